@@ -0,0 +1,167 @@
+package guru.springframework.controllers;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import guru.springframework.converters.IngredientCommandToIngredientImpl;
+import guru.springframework.converters.IngredientToIngredientCommandImpl;
+import guru.springframework.converters.NotesCommandToNotesImpl;
+import guru.springframework.converters.NotesToNotesCommandImpl;
+import guru.springframework.converters.RecipeCommandToRecipeImpl;
+import guru.springframework.converters.RecipeToRecipeCommandImpl;
+import guru.springframework.converters.UnitOfMeasureCommandToUnitOfMeasureImpl;
+import guru.springframework.converters.UnitOfMeasureToUnitOfMeasureCommandImpl;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.UnitOfMeasure;
+import guru.springframework.repositories.reactive.GridFsRecipeImageStore;
+import guru.springframework.repositories.reactive.RecipeReactiveRepository;
+import guru.springframework.repositories.reactive.RecipeReactiveRepositoryCustomImpl;
+import guru.springframework.repositories.reactive.UnitOfMeasureReactiveRepository;
+import guru.springframework.services.IngredientIndex;
+import guru.springframework.services.IngredientServiceImpl;
+import guru.springframework.services.RecipeServiceImpl;
+import guru.springframework.services.ReferenceDataCache;
+import guru.springframework.services.UnitOfMeasureServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.gridfs.ReactiveGridFsTemplate;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.thymeleaf.spring6.SpringWebFluxTemplateEngine;
+import org.thymeleaf.spring6.view.reactive.ThymeleafReactiveViewResolver;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering the new and the edit ingredient forms through the controller and the Thymeleaf templates against a
+ * running MongoDB (-Dmongo.uri, localhost by default), with the units of measure for the select read from the
+ * ReferenceDataCache, or read from the database on every render as before the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IngredientFormBenchmark {
+
+    private static final String DATABASE = "ingredient-form-benchmark";
+
+    private static final List<String> UOMS = List.of("Teaspoon", "Tablespoon", "Cup", "Pinch", "Ounce", "Each",
+            "Dash", "Pint", "Gram", "Kilogram", "Millilitre", "Litre");
+
+    @Param({"true", "false"})
+    boolean cached;
+
+    @Param({"new", "update"})
+    String form;
+
+    MongoClient mongoClient;
+    ReactiveMongoTemplate mongoTemplate;
+    WebTestClient webTestClient;
+    String uri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mongoClient = MongoClients.create(System.getProperty("mongo.uri", "mongodb://localhost:27017"));
+        mongoTemplate = new ReactiveMongoTemplate(mongoClient, DATABASE);
+        mongoTemplate.dropCollection(Recipe.class).then(mongoTemplate.dropCollection(UnitOfMeasure.class)).block();
+
+        List<UnitOfMeasure> uoms = UOMS.stream().map(description -> {
+            UnitOfMeasure uom = new UnitOfMeasure();
+            uom.setDescription(description);
+            return uom;
+        }).toList();
+        mongoTemplate.insertAll(uoms).blockLast();
+
+        Recipe recipe = new Recipe();
+        recipe.setDescription("Perfect Guacamole");
+        for (int i = 0; i < 10; i++) {
+            recipe.addIngredient(new Ingredient("ingredient " + i, BigDecimal.ONE, uoms.get(i % uoms.size())));
+        }
+        mongoTemplate.insert(recipe).block();
+
+        ReactiveMongoRepositoryFactory repositoryFactory = new ReactiveMongoRepositoryFactory(mongoTemplate);
+        UnitOfMeasureReactiveRepository unitOfMeasureRepository = repositoryFactory.getRepository(UnitOfMeasureReactiveRepository.class);
+        RecipeReactiveRepository recipeRepository = repositoryFactory.getRepository(RecipeReactiveRepository.class,
+                RepositoryFragments.just(new RecipeReactiveRepositoryCustomImpl(mongoTemplate)));
+
+        //a snapshot that expires right away reloads on every read, like reading the repository directly
+        ReferenceDataCache<UnitOfMeasure> unitOfMeasureCache = new ReferenceDataCache<>("unitOfMeasure",
+                unitOfMeasureRepository::findAll, unitOfMeasureRepository::findById, UnitOfMeasure::getId, 1000,
+                cached ? Duration.ofMinutes(10) : Duration.ZERO);
+        UnitOfMeasureServiceImpl unitOfMeasureService = new UnitOfMeasureServiceImpl(unitOfMeasureCache,
+                new UnitOfMeasureToUnitOfMeasureCommandImpl());
+
+        IngredientToIngredientCommandImpl ingredientToIngredientCommand =
+                new IngredientToIngredientCommandImpl(new UnitOfMeasureToUnitOfMeasureCommandImpl());
+        IngredientCommandToIngredientImpl ingredientCommandToIngredient =
+                new IngredientCommandToIngredientImpl(new UnitOfMeasureCommandToUnitOfMeasureImpl());
+        IngredientIndex ingredientIndex = new IngredientIndex();
+
+        RecipeServiceImpl recipeService = new RecipeServiceImpl(recipeRepository,
+                new RecipeCommandToRecipeImpl(ingredientCommandToIngredient, new NotesCommandToNotesImpl()),
+                new RecipeToRecipeCommandImpl(ingredientToIngredientCommand, new NotesToNotesCommandImpl()),
+                new GridFsRecipeImageStore(new ReactiveGridFsTemplate(mongoTemplate.getMongoDatabaseFactory(),
+                        mongoTemplate.getConverter())),
+                ingredientIndex);
+        IngredientServiceImpl ingredientService = new IngredientServiceImpl(ingredientToIngredientCommand,
+                ingredientCommandToIngredient, recipeRepository, unitOfMeasureService, ingredientIndex);
+
+        webTestClient = WebTestClient
+                .bindToController(new IngredientController(ingredientService, recipeService, unitOfMeasureService, 10))
+                .viewResolvers(registry -> registry.viewResolver(viewResolver()))
+                .build();
+
+        uri = form.equals("new")
+                ? "/recipe/" + recipe.getId() + "/ingredient/new"
+                : "/recipe/" + recipe.getId() + "/ingredient/" + recipe.getIngredients().get(3).getId() + "/update";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoTemplate.dropCollection(Recipe.class).then(mongoTemplate.dropCollection(UnitOfMeasure.class)).block();
+        mongoClient.close();
+    }
+
+    @Benchmark
+    public String render() {
+        return webTestClient.get().uri(uri)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+    }
+
+    //the templates as the application resolves them, cached after the first render
+    private static ThymeleafReactiveViewResolver viewResolver() {
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+
+        SpringWebFluxTemplateEngine templateEngine = new SpringWebFluxTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+
+        StaticApplicationContext applicationContext = new StaticApplicationContext();
+        applicationContext.refresh();
+
+        ThymeleafReactiveViewResolver viewResolver = new ThymeleafReactiveViewResolver();
+        viewResolver.setTemplateEngine(templateEngine);
+        viewResolver.setApplicationContext(applicationContext);
+        return viewResolver;
+    }
+}
@@ -0,0 +1,54 @@
+package guru.springframework.converters;
+
+import guru.springframework.domain.Recipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A recipe round trip through the converters from every core at once, sharing one set of converters like the
+ * application's singleton beans. Compare the score with -t 1 against the default to see how it scales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(Threads.MAX)
+public class ConcurrentConverterBenchmark {
+
+    RecipeToRecipeCommand recipeToRecipeCommand;
+    RecipeCommandToRecipe recipeCommandToRecipe;
+
+    @State(Scope.Thread)
+    public static class ThreadRecipe {
+
+        Recipe recipe;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            recipe = RecipeConverterBenchmark.recipe(new Random(ThreadLocalRandom.current().nextLong()), 50, true);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        recipeToRecipeCommand = new RecipeToRecipeCommandImpl(
+                new IngredientToIngredientCommandImpl(new UnitOfMeasureToUnitOfMeasureCommandImpl()), new NotesToNotesCommandImpl());
+        recipeCommandToRecipe = new RecipeCommandToRecipeImpl(
+                new IngredientCommandToIngredientImpl(new UnitOfMeasureCommandToUnitOfMeasureImpl()), new NotesCommandToNotesImpl());
+    }
+
+    @Benchmark
+    public Recipe roundTrip(ThreadRecipe thread) {
+        return recipeCommandToRecipe.convert(recipeToRecipeCommand.convert(thread.recipe));
+    }
+}
@@ -0,0 +1,109 @@
+package guru.springframework.converters;
+
+import guru.springframework.commands.CategoryCommand;
+import guru.springframework.commands.IngredientCommand;
+import guru.springframework.commands.NotesCommand;
+import guru.springframework.commands.UnitOfMeasureCommand;
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Notes;
+import guru.springframework.domain.UnitOfMeasure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The converters the recipe converters are made of, one object at a time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConverterBenchmark {
+
+    UnitOfMeasureToUnitOfMeasureCommand unitOfMeasureToCommand = new UnitOfMeasureToUnitOfMeasureCommandImpl();
+    UnitOfMeasureCommandToUnitOfMeasure commandToUnitOfMeasure = new UnitOfMeasureCommandToUnitOfMeasureImpl();
+    IngredientToIngredientCommand ingredientToCommand = new IngredientToIngredientCommandImpl(unitOfMeasureToCommand);
+    IngredientCommandToIngredient commandToIngredient = new IngredientCommandToIngredientImpl(commandToUnitOfMeasure);
+    NotesToNotesCommand notesToCommand = new NotesToNotesCommandImpl();
+    NotesCommandToNotes commandToNotes = new NotesCommandToNotesImpl();
+    CategoryToCategoryCommand categoryToCommand = new CategoryToCategoryCommandImpl();
+    CategoryCommandToCategory commandToCategory = new CategoryCommandToCategoryImpl();
+
+    UnitOfMeasure unitOfMeasure;
+    UnitOfMeasureCommand unitOfMeasureCommand;
+    Ingredient ingredient;
+    IngredientCommand ingredientCommand;
+    Notes notes;
+    NotesCommand notesCommand;
+    Category category;
+    CategoryCommand categoryCommand;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        unitOfMeasure = new UnitOfMeasure();
+        unitOfMeasure.setId("5a1b2c3d4e5f60718293a4b5");
+        unitOfMeasure.setDescription("Tablespoon");
+        unitOfMeasureCommand = unitOfMeasureToCommand.convert(unitOfMeasure);
+
+        ingredient = new Ingredient("fresh lime juice or lemon juice", new BigDecimal(2), unitOfMeasure);
+        ingredientCommand = ingredientToCommand.convert(ingredient);
+
+        notes = new Notes();
+        notes.setId("5a1b2c3d4e5f60718293a4b6");
+        notes.setRecipeNotes("For a very quick guacamole just take a 1/4 cup of salsa and mix it in with your mashed avocados.");
+        notesCommand = notesToCommand.convert(notes);
+
+        category = new Category();
+        category.setId("5a1b2c3d4e5f60718293a4b7");
+        category.setDescription("Mexican");
+        categoryCommand = categoryToCommand.convert(category);
+    }
+
+    @Benchmark
+    public UnitOfMeasureCommand unitOfMeasureToCommand() {
+        return unitOfMeasureToCommand.convert(unitOfMeasure);
+    }
+
+    @Benchmark
+    public UnitOfMeasure commandToUnitOfMeasure() {
+        return commandToUnitOfMeasure.convert(unitOfMeasureCommand);
+    }
+
+    @Benchmark
+    public IngredientCommand ingredientToCommand() {
+        return ingredientToCommand.convert(ingredient);
+    }
+
+    @Benchmark
+    public Ingredient commandToIngredient() {
+        return commandToIngredient.convert(ingredientCommand);
+    }
+
+    @Benchmark
+    public NotesCommand notesToCommand() {
+        return notesToCommand.convert(notes);
+    }
+
+    @Benchmark
+    public Notes commandToNotes() {
+        return commandToNotes.convert(notesCommand);
+    }
+
+    @Benchmark
+    public CategoryCommand categoryToCommand() {
+        return categoryToCommand.convert(category);
+    }
+
+    @Benchmark
+    public Category commandToCategory() {
+        return commandToCategory.convert(categoryCommand);
+    }
+}
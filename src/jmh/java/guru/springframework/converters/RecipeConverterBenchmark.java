@@ -0,0 +1,115 @@
+package guru.springframework.converters;
+
+import guru.springframework.commands.RecipeCommand;
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Difficulty;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Notes;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.domain.UnitOfMeasure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole recipe conversions in both directions, the work done on every show, form and save request.
+ * Run with the gc profiler (configured in build.gradle) for the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecipeConverterBenchmark {
+
+    @Param({"5", "50", "500"})
+    int ingredients;
+
+    @Param({"true", "false"})
+    boolean image;
+
+    RecipeToRecipeCommand recipeToRecipeCommand;
+    RecipeCommandToRecipe recipeCommandToRecipe;
+
+    Recipe recipe;
+    RecipeCommand command;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        recipeToRecipeCommand = new RecipeToRecipeCommandImpl(
+                new IngredientToIngredientCommandImpl(new UnitOfMeasureToUnitOfMeasureCommandImpl()), new NotesToNotesCommandImpl());
+        recipeCommandToRecipe = new RecipeCommandToRecipeImpl(
+                new IngredientCommandToIngredientImpl(new UnitOfMeasureCommandToUnitOfMeasureImpl()), new NotesCommandToNotesImpl());
+
+        recipe = recipe(new Random(42), ingredients, image);
+        command = recipeToRecipeCommand.convert(recipe);
+    }
+
+    @Benchmark
+    public RecipeCommand recipeToCommand() {
+        return recipeToRecipeCommand.convert(recipe);
+    }
+
+    @Benchmark
+    public Recipe commandToRecipe() {
+        return recipeCommandToRecipe.convert(command);
+    }
+
+    static Recipe recipe(Random random, int ingredients, boolean withImage) {
+        Recipe recipe = new Recipe();
+        recipe.setId(Long.toHexString(random.nextLong()));
+        recipe.setVersion(3L);
+        recipe.setDescription("Spicy Grilled Chicken Taco");
+        recipe.setPrepTime(20);
+        recipe.setCookTime(9);
+        recipe.setServings(4);
+        recipe.setDifficulty(Difficulty.MODERATE);
+        recipe.setSource("Simply Recipes");
+        recipe.setUrl("http://www.simplyrecipes.com/recipes/spicy_grilled_chicken_tacos/");
+        recipe.setDirections("Prepare a gas or charcoal grill for medium-high, direct heat. ".repeat(12));
+
+        Notes notes = new Notes();
+        notes.setId(Long.toHexString(random.nextLong()));
+        notes.setRecipeNotes("Everything goes better in a tortilla. ".repeat(8));
+        recipe.setNotes(notes);
+
+        UnitOfMeasure[] unitsOfMeasure = new UnitOfMeasure[8];
+        for (int i = 0; i < unitsOfMeasure.length; i++) {
+            unitsOfMeasure[i] = new UnitOfMeasure();
+            unitsOfMeasure[i].setId(Long.toHexString(random.nextLong()));
+            unitsOfMeasure[i].setDescription("Unit " + i);
+        }
+
+        for (int i = 0; i < ingredients; i++) {
+            recipe.addIngredient(new Ingredient("ingredient " + random.nextInt(2000),
+                    BigDecimal.valueOf(1 + random.nextInt(16), 1), unitsOfMeasure[random.nextInt(unitsOfMeasure.length)]));
+        }
+
+        for (int i = 0; i < 3; i++) {
+            Category category = new Category();
+            category.setId(Long.toHexString(random.nextLong()));
+            recipe.getCategoryIds().add(category.getId());
+        }
+
+        if (withImage) {
+            RecipeImage image = new RecipeImage();
+            image.setFileId(Long.toHexString(random.nextLong()));
+            image.setContentType("image/jpeg");
+            image.setLength(180_000L);
+            image.setContentHash(Long.toHexString(random.nextLong()));
+            image.setUploadDate(new Date(1_500_000_000_000L));
+            recipe.setImage(image);
+        }
+        return recipe;
+    }
+}
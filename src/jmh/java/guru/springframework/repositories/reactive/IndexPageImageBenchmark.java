@@ -0,0 +1,116 @@
+package guru.springframework.repositories.reactive;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import guru.springframework.bootstrap.RecipeDataGenerator;
+import guru.springframework.domain.Recipe;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the index page waits on from a running MongoDB (-Dmongo.uri, localhost by default) when every recipe has an
+ * image: the old page read every recipe document whole, the current one reads a keyset page of summaries. Both read
+ * plain documents, since the embedded layout no longer maps onto Recipe. With the embedded layout the image bytes
+ * sit in the recipe documents, as before the images moved to GridFS; they are stored as binary, since a 2 MB image
+ * written as the old array of boxed bytes does not fit in a 16 MB document. With the reference layout the documents
+ * only point at their image, and the listing never reads the file, so the files themselves are not stored. Each
+ * layout and size is seeded once into a database of its own and kept for later runs; the embedded layout at the
+ * default size takes about 20 GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IndexPageImageBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final String[] SUMMARY_FIELDS = {"description", "difficulty", "prepTime", "cookTime", "image"};
+
+    @Param({"10000"})
+    int recipes;
+
+    @Param({"2048"})
+    int imageKilobytes;
+
+    @Param({"embedded", "reference"})
+    String layout;
+
+    MongoClient mongoClient;
+    ReactiveMongoTemplate mongoTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mongoClient = MongoClients.create(System.getProperty("mongo.uri", "mongodb://localhost:27017"));
+        mongoTemplate = new ReactiveMongoTemplate(mongoClient,
+                "index-page-image-benchmark-" + layout + "-" + recipes + "-" + imageKilobytes);
+
+        if (mongoTemplate.count(new Query(), Recipe.class).block() != recipes) {
+            seed();
+        }
+    }
+
+    private void seed() {
+        RecipeDataGenerator generator = new RecipeDataGenerator(42, List.of(), List.of());
+        RecipeDataGenerator.SharedImage sharedImage = RecipeDataGenerator.sharedImages().get(0);
+        byte[] image = new byte[imageKilobytes * 1024];
+        new Random(42).nextBytes(image);
+
+        mongoTemplate.dropCollection(Recipe.class)
+                .thenMany(generator.recipes(recipes)
+                        .map(recipe -> {
+                            recipe.setImage(sharedImage.image());
+                            Document document = new Document();
+                            mongoTemplate.getConverter().write(recipe, document);
+                            if (layout.equals("embedded")) {
+                                document.put("image", new Binary(image));
+                            }
+                            return document;
+                        })
+                        .buffer(documentsPerBatch())
+                        .concatMap(documents -> mongoTemplate.insert(documents, mongoTemplate.getCollectionName(Recipe.class))))
+                .blockLast();
+    }
+
+    //about 8 MB of images per insert or reply, well under the message size limit
+    private int documentsPerBatch() {
+        return Math.max(1, 8192 / imageKilobytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoClient.close();
+    }
+
+    @Benchmark
+    public List<Document> findAllDocuments() {
+        Query everyRecipe = new Query().cursorBatchSize(documentsPerBatch());
+        return mongoTemplate.find(everyRecipe, Document.class, mongoTemplate.getCollectionName(Recipe.class))
+                .collectList().block();
+    }
+
+    @Benchmark
+    public List<Document> keysetSummaryPage() {
+        //the query findAllByOrderByIdAsc sends for a page and one more row, which the embedded images still ride along
+        Query firstPage = new Query().with(Sort.by("id")).limit(PAGE_SIZE + 1);
+        firstPage.fields().include(SUMMARY_FIELDS);
+        return mongoTemplate.find(firstPage, Document.class, mongoTemplate.getCollectionName(Recipe.class))
+                .collectList().block();
+    }
+}
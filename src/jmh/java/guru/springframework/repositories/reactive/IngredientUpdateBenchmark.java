@@ -0,0 +1,114 @@
+package guru.springframework.repositories.reactive;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import guru.springframework.bootstrap.RecipeDataGenerator;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.UnitOfMeasure;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Editing one ingredient of a stored recipe against a running MongoDB (-Dmongo.uri, localhost by default): the
+ * targeted update of the ingredient subdocument, or the old way of loading the recipe and saving the whole document
+ * back. Every thread edits a recipe of its own, compare the score with -t 1 against the default to see how it scales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(Threads.MAX)
+public class IngredientUpdateBenchmark {
+
+    private static final String DATABASE = "ingredient-update-benchmark";
+
+    @Param({"10", "60"})
+    int ingredients;
+
+    MongoClient mongoClient;
+    ReactiveMongoTemplate mongoTemplate;
+    RecipeReactiveRepositoryCustomImpl recipeRepository;
+
+    @State(Scope.Thread)
+    public static class ThreadRecipe {
+
+        String recipeId;
+        List<Ingredient> ingredients;
+        int edits;
+
+        @Setup(Level.Trial)
+        public void setUp(IngredientUpdateBenchmark benchmark) {
+            UnitOfMeasure unitOfMeasure = new UnitOfMeasure();
+            unitOfMeasure.setId(new ObjectId().toHexString());
+            unitOfMeasure.setDescription("Teaspoon");
+
+            //a generated recipe for realistic directions and notes, with the ingredient count of the run
+            Recipe recipe = new RecipeDataGenerator(ThreadLocalRandom.current().nextLong(), List.of(unitOfMeasure), List.of())
+                    .recipe(0);
+            recipe.setId(new ObjectId().toHexString());
+            recipe.getIngredients().clear();
+            for (int i = 0; i < benchmark.ingredients; i++) {
+                recipe.addIngredient(new Ingredient("ingredient " + i, BigDecimal.ONE, unitOfMeasure));
+            }
+
+            benchmark.mongoTemplate.insert(recipe).block();
+            recipeId = recipe.getId();
+            ingredients = recipe.getIngredients();
+        }
+
+        Ingredient nextEdit() {
+            Ingredient ingredient = ingredients.get(edits++ % ingredients.size());
+
+            Ingredient edit = new Ingredient(ingredient.getDescription(), BigDecimal.valueOf(edits), ingredient.getUom());
+            edit.setId(ingredient.getId());
+            return edit;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mongoClient = MongoClients.create(System.getProperty("mongo.uri", "mongodb://localhost:27017"));
+        mongoTemplate = new ReactiveMongoTemplate(mongoClient, DATABASE);
+        mongoTemplate.dropCollection(Recipe.class).block();
+        recipeRepository = new RecipeReactiveRepositoryCustomImpl(mongoTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoTemplate.dropCollection(Recipe.class).block();
+        mongoClient.close();
+    }
+
+    @Benchmark
+    public Boolean targetedUpdate(ThreadRecipe thread) {
+        return recipeRepository.updateIngredient(thread.recipeId, thread.nextEdit()).block();
+    }
+
+    @Benchmark
+    public Recipe fullDocumentSave(ThreadRecipe thread) {
+        Ingredient edit = thread.nextEdit();
+
+        return mongoTemplate.findById(thread.recipeId, Recipe.class)
+                .flatMap(recipe -> {
+                    recipe.getIngredients().replaceAll(ingredient -> ingredient.getId().equals(edit.getId()) ? edit : ingredient);
+                    return mongoTemplate.save(recipe);
+                })
+                .block();
+    }
+}
@@ -0,0 +1,131 @@
+package guru.springframework.repositories.reactive;
+
+import guru.springframework.bootstrap.RecipeDataGenerator;
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.domain.UnitOfMeasure;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Decodes a page of 100 recipe documents, each with an image, as the driver does when they are loaded. The image is
+ * embedded as an array of boxed bytes (the old layout), embedded as binary data, or a reference to a GridFS file
+ * (the current layout). Run with the gc profiler: gc.alloc.rate.norm is the heap a page load costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecipeImageHeapBenchmark {
+
+    private static final int RECIPES = 100;
+
+    @Param({"boxed", "binary", "reference"})
+    String layout;
+
+    @Param({"16", "128"})
+    int imageKilobytes;
+
+    DocumentCodec codec = new DocumentCodec();
+    List<byte[]> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter mongoConverter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        mongoConverter.setCustomConversions(conversions);
+        mongoConverter.afterPropertiesSet();
+
+        List<UnitOfMeasure> unitsOfMeasure = IntStream.range(0, 8).mapToObj(i -> {
+            UnitOfMeasure unitOfMeasure = new UnitOfMeasure();
+            unitOfMeasure.setId("uom" + i);
+            unitOfMeasure.setDescription("Unit " + i);
+            return unitOfMeasure;
+        }).collect(Collectors.toList());
+        List<Category> categories = IntStream.range(0, 4).mapToObj(i -> {
+            Category category = new Category();
+            category.setId("category" + i);
+            category.setDescription("Category " + i);
+            return category;
+        }).collect(Collectors.toList());
+        RecipeDataGenerator generator = new RecipeDataGenerator(42, unitsOfMeasure, categories);
+
+        Random random = new Random(42);
+        page = new ArrayList<>(RECIPES);
+        for (int i = 0; i < RECIPES; i++) {
+            //compressed images look like random bytes
+            byte[] imageBytes = new byte[imageKilobytes * 1024];
+            random.nextBytes(imageBytes);
+
+            Recipe recipe = generator.recipe(i);
+            recipe.setImage(image(i, imageBytes.length));
+            Document document = new Document();
+            mongoConverter.write(recipe, document);
+
+            if (layout.equals("boxed")) {
+                List<Integer> boxed = new ArrayList<>(imageBytes.length);
+                for (byte b : imageBytes) {
+                    boxed.add((int) b);
+                }
+                document.put("image", boxed);
+            } else if (layout.equals("binary")) {
+                document.put("image", imageBytes);
+            }
+
+            RawBsonDocument raw = new RawBsonDocument(document, codec);
+            ByteBuffer buffer = raw.getByteBuffer().asNIO();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            page.add(bytes);
+        }
+    }
+
+    @Benchmark
+    public List<Document> loadPage() {
+        List<Document> documents = new ArrayList<>(page.size());
+
+        for (byte[] bytes : page) {
+            try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(bytes))) {
+                documents.add(codec.decode(reader, DecoderContext.builder().build()));
+            }
+        }
+        return documents;
+    }
+
+    private static RecipeImage image(int number, long length) {
+        RecipeImage image = new RecipeImage();
+        image.setFileId(RecipeDataGenerator.idOf(number));
+        image.setContentType("image/jpeg");
+        image.setLength(length);
+        image.setContentHash(Integer.toHexString(number));
+        image.setUploadDate(new Date(1_500_000_000_000L));
+        return image;
+    }
+}
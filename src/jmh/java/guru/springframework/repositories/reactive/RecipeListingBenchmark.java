@@ -0,0 +1,92 @@
+package guru.springframework.repositories.reactive;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import guru.springframework.bootstrap.RecipeDataGenerator;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One index page of recipes at the start and 90% deep into collections of growing size, against a running MongoDB
+ * (-Dmongo.uri, localhost by default): the keyset listing of summaries the index page uses, or the old findAll of
+ * whole recipes, which can only reach a page by reading past every recipe before it. The keyset scores should stay
+ * flat across sizes. Each size is seeded once into a database of its own and kept for later runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecipeListingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "10000", "100000"})
+    int recipes;
+
+    MongoClient mongoClient;
+    RecipeReactiveRepository recipeRepository;
+    int deepOffset;
+    String deepCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mongoClient = MongoClients.create(System.getProperty("mongo.uri", "mongodb://localhost:27017"));
+        ReactiveMongoTemplate mongoTemplate = new ReactiveMongoTemplate(mongoClient, "recipe-listing-benchmark-" + recipes);
+
+        if (mongoTemplate.count(new Query(), Recipe.class).block() != recipes) {
+            RecipeDataGenerator generator = new RecipeDataGenerator(42, List.of(), List.of());
+            mongoTemplate.dropCollection(Recipe.class)
+                    .thenMany(generator.recipes(recipes).buffer(1000).concatMap(mongoTemplate::insertAll))
+                    .blockLast();
+        }
+
+        recipeRepository = new ReactiveMongoRepositoryFactory(mongoTemplate).getRepository(RecipeReactiveRepository.class,
+                RepositoryFragments.just(new RecipeReactiveRepositoryCustomImpl(mongoTemplate)));
+
+        //generated ids ascend with the recipe number, so the cursor of a page is the id of the recipe before it
+        deepOffset = recipes * 9 / 10;
+        deepCursor = RecipeDataGenerator.idOf(deepOffset - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoClient.close();
+    }
+
+    @Benchmark
+    public List<RecipeSummary> keysetFirstPage() {
+        return recipeRepository.findAllByOrderByIdAsc(Limit.of(PAGE_SIZE)).collectList().block();
+    }
+
+    @Benchmark
+    public List<RecipeSummary> keysetDeepPage() {
+        return recipeRepository.findByIdGreaterThanOrderByIdAsc(deepCursor, Limit.of(PAGE_SIZE)).collectList().block();
+    }
+
+    @Benchmark
+    public List<Recipe> findAllFirstPage() {
+        return recipeRepository.findAll().take(PAGE_SIZE).collectList().block();
+    }
+
+    @Benchmark
+    public List<Recipe> findAllDeepPage() {
+        return recipeRepository.findAll().skip(deepOffset).take(PAGE_SIZE).collectList().block();
+    }
+}
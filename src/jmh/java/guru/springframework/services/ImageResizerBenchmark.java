@@ -0,0 +1,100 @@
+package guru.springframework.services;
+
+import guru.springframework.domain.ImageVariant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Image variant generation from uploads of representative sizes: decoding the upload, and scaling and encoding it
+ * for each variant. JPEG uploads are photos, PNG uploads have transparency and are encoded as PNG again. One thread
+ * per core like the variant worker pool, compare the score with -t 1 against the default to see how it scales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(Threads.MAX)
+public class ImageResizerBenchmark {
+
+    @Param({"jpeg", "png"})
+    String format;
+
+    //width of a 4:3 upload: a web image, a downscaled photo and a 12 megapixel phone photo
+    @Param({"800", "2000", "4000"})
+    int width;
+
+    byte[] upload;
+    BufferedImage decoded;
+
+    @State(Scope.Benchmark)
+    public static class Variant {
+
+        @Param({"THUMBNAIL", "MEDIUM", "FULL"})
+        ImageVariant variant;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        boolean png = format.equals("png");
+        int height = width * 3 / 4;
+        Random random = new Random(42);
+
+        BufferedImage image = new BufferedImage(width, height, png ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setPaint(new GradientPaint(0, 0, color(random, png), width, height, color(random, png)));
+            graphics.fillRect(0, 0, width, height);
+            for (int shape = 0; shape < 200; shape++) {
+                graphics.setColor(color(random, png));
+                graphics.fillOval(random.nextInt(width), random.nextInt(height), 1 + random.nextInt(width / 8), 1 + random.nextInt(height / 8));
+            }
+        } finally {
+            graphics.dispose();
+        }
+
+        //some sensor noise, so the encoders see photo-like detail rather than flat areas
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(9) - 4;
+                int rgb = image.getRGB(x, y);
+                image.setRGB(x, y, (rgb & 0xFF000000) | (channel(rgb >> 16, noise) << 16) | (channel(rgb >> 8, noise) << 8) | channel(rgb, noise));
+            }
+        }
+
+        upload = ImageResizer.encode(image);
+        decoded = ImageResizer.decode(upload);
+    }
+
+    @Benchmark
+    public BufferedImage decode() throws IOException {
+        return ImageResizer.decode(upload);
+    }
+
+    @Benchmark
+    public byte[] render(Variant variant) throws IOException {
+        return ImageResizer.encode(ImageResizer.scaleToFit(decoded, variant.variant.getMaxSize()));
+    }
+
+    private static Color color(Random random, boolean alpha) {
+        return new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256), alpha ? 64 + random.nextInt(192) : 255);
+    }
+
+    private static int channel(int value, int noise) {
+        return Math.max(0, Math.min(255, (value & 0xFF) + noise));
+    }
+}
@@ -0,0 +1,91 @@
+package guru.springframework.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingredient queries over a generated collection. Ingredient popularity is skewed like real recipes:
+ * a few staples are in most of them, the long tail is rare.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IngredientIndexBenchmark {
+
+    private static final int VOCABULARY = 2000;
+
+    @Param({"100000", "1000000"})
+    int recipes;
+
+    IngredientIndex index;
+    List<String> pantry;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        index = new IngredientIndex();
+
+        for (int i = 0; i < recipes; i++) {
+            int ingredientCount = 5 + random.nextInt(11);
+            List<String> ingredients = new ArrayList<>(ingredientCount);
+            for (int j = 0; j < ingredientCount; j++) {
+                ingredients.add(ingredient(skewed(random)));
+            }
+            index.index("recipe-" + i, ingredients);
+        }
+
+        pantry = List.of(ingredient(0), ingredient(3), ingredient(12), ingredient(40), ingredient(150), ingredient(700));
+    }
+
+    @Benchmark
+    public List<String> allOfCommon() {
+        return index.find(List.of(ingredient(0), ingredient(1)), List.of(), List.of(), 50);
+    }
+
+    @Benchmark
+    public List<String> allOfRare() {
+        return index.find(List.of(ingredient(5), ingredient(900)), List.of(), List.of(), 50);
+    }
+
+    @Benchmark
+    public List<String> anyOfNoneOf() {
+        return index.find(List.of(ingredient(2)), List.of(ingredient(20), ingredient(30), ingredient(60)),
+                List.of(ingredient(4)), 50);
+    }
+
+    @Benchmark
+    public List<IngredientIndex.Match> missingAtMostTwo() {
+        return index.findMissingAtMost(pantry, 2, 50);
+    }
+
+    /**
+     * Ingredient number with roughly Zipf distributed popularity.
+     */
+    private static int skewed(Random random) {
+        return (int) Math.min(VOCABULARY - 1, Math.floor(Math.pow(VOCABULARY, random.nextDouble())) - 1);
+    }
+
+    /**
+     * Made of letters only, so each name stays a single term.
+     */
+    private static String ingredient(int number) {
+        StringBuilder name = new StringBuilder("ingredient");
+        do {
+            name.append((char) ('a' + number % 26));
+            number /= 26;
+        } while (number > 0);
+        return name.append('x').toString();
+    }
+}
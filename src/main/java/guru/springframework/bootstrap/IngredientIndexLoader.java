@@ -0,0 +1,45 @@
+package guru.springframework.bootstrap;
+
+import guru.springframework.domain.Recipe;
+import guru.springframework.services.IngredientIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Fills the ingredient index from the recipe collection. The services keep it current from then on.
+ */
+@Slf4j
+@Component
+public class IngredientIndexLoader implements ApplicationRunner {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final IngredientIndex ingredientIndex;
+
+    public IngredientIndexLoader(ReactiveMongoTemplate mongoTemplate, IngredientIndex ingredientIndex) {
+        this.mongoTemplate = mongoTemplate;
+        this.ingredientIndex = ingredientIndex;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        //queries answered while this runs only see the recipes loaded so far
+        long start = System.currentTimeMillis();
+        load().subscribe(
+                loaded -> log.info("Indexed ingredients of " + loaded + " recipes in " + (System.currentTimeMillis() - start) + " ms"),
+                e -> log.error("Error loading the ingredient index", e));
+    }
+
+    public Mono<Long> load() {
+        Query query = new Query();
+        query.fields().include("ingredients.description");
+
+        return mongoTemplate.find(query, Recipe.class)
+                .doOnNext(ingredientIndex::index)
+                .count();
+    }
+}
@@ -1,165 +1,101 @@
 package guru.springframework.bootstrap;
 
 import guru.springframework.domain.*;
-import guru.springframework.repositories.CategoryRepository;
-import guru.springframework.repositories.RecipeRepository;
-import guru.springframework.repositories.UnitOfMeasureRepository;
-import guru.springframework.repositories.reactive.UnitOfMeasureReactiveRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.ApplicationListener;
-import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 
 /**
  * Created by jt on 6/13/17.
  */
 @Slf4j
 @Component
-public class RecipeBootstrap implements ApplicationListener<ContextRefreshedEvent> {
-
-    private final CategoryRepository categoryRepository;
-    private final RecipeRepository recipeRepository;
-    private final UnitOfMeasureRepository unitOfMeasureRepository;
-
-    public RecipeBootstrap(CategoryRepository categoryRepository,
-                           RecipeRepository recipeRepository,
-                           UnitOfMeasureRepository unitOfMeasureRepository) {
-        this.categoryRepository = categoryRepository;
-        this.recipeRepository = recipeRepository;
-        this.unitOfMeasureRepository = unitOfMeasureRepository;;
-    }
-
-    @Override
-    @Transactional
-    public void onApplicationEvent(ContextRefreshedEvent event) {
-        loadCategories();
-        loadUom();
-        recipeRepository.saveAll(getRecipes());
-        log.debug("Loading Bootstrap Data");
-    }
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RecipeBootstrap implements ApplicationRunner {
 
-    private void loadCategories(){
-        Category cat1 = new Category();
-        cat1.setDescription("American");
-        categoryRepository.save(cat1);
+    static final List<String> CATEGORIES = List.of("American", "Italian", "Mexican", "Fast Food");
+    static final List<String> UNITS_OF_MEASURE = List.of("Teaspoon", "Tablespoon", "Cup", "Pinch", "Ounce", "Each", "Pint", "Dash");
 
-        Category cat2 = new Category();
-        cat2.setDescription("Italian");
-        categoryRepository.save(cat2);
+    private final ReactiveMongoOperations mongoOperations;
 
-        Category cat3 = new Category();
-        cat3.setDescription("Mexican");
-        categoryRepository.save(cat3);
-
-        Category cat4 = new Category();
-        cat4.setDescription("Fast Food");
-        categoryRepository.save(cat4);
+    public RecipeBootstrap(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
     }
 
-    private void loadUom(){
-        UnitOfMeasure uom1 = new UnitOfMeasure();
-        uom1.setDescription("Teaspoon");
-        unitOfMeasureRepository.save(uom1);
-
-        UnitOfMeasure uom2 = new UnitOfMeasure();
-        uom2.setDescription("Tablespoon");
-        unitOfMeasureRepository.save(uom2);
-
-        UnitOfMeasure uom3 = new UnitOfMeasure();
-        uom3.setDescription("Cup");
-        unitOfMeasureRepository.save(uom3);
+    @Override
+    public void run(ApplicationArguments args) {
+        //the caches and the ingredient index load once the application is ready, so this finishes first
+        long start = System.currentTimeMillis();
+        Long loaded = load().block();
+        log.info("Bootstrap loaded " + loaded + " recipes in " + (System.currentTimeMillis() - start) + " ms");
+    }
 
-        UnitOfMeasure uom4 = new UnitOfMeasure();
-        uom4.setDescription("Pinch");
-        unitOfMeasureRepository.save(uom4);
+    /**
+     * Upserts the reference data, then inserts the recipes unless there are any already. Safe to run repeatedly.
+     */
+    public Mono<Long> load() {
+        return upsertDescriptions(Category.class, CATEGORIES)
+                .then(upsertDescriptions(UnitOfMeasure.class, UNITS_OF_MEASURE))
+                .then(mongoOperations.exists(new Query(), Recipe.class))
+                .flatMap(exists -> exists ? Mono.just(0L) : Mono.zip(
+                                byDescription(UnitOfMeasure.class, UNITS_OF_MEASURE, UnitOfMeasure::getDescription),
+                                byDescription(Category.class, CATEGORIES, Category::getDescription))
+                        .flatMap(reference -> insertRecipes(getRecipes(reference.getT1(), reference.getT2()))));
+    }
 
-        UnitOfMeasure uom5 = new UnitOfMeasure();
-        uom5.setDescription("Ounce");
-        unitOfMeasureRepository.save(uom5);
+    /**
+     * One unordered bulk write, documents already there are left as they are.
+     */
+    private Mono<Void> upsertDescriptions(Class<?> type, List<String> descriptions) {
+        ReactiveBulkOperations bulkOperations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+        descriptions.forEach(description -> bulkOperations.upsert(query(where("description").is(description)),
+                new Update().setOnInsert("description", description)));
 
-        UnitOfMeasure uom6 = new UnitOfMeasure();
-        uom6.setDescription("Each");
-        unitOfMeasureRepository.save(uom6);
+        return bulkOperations.execute().then();
+    }
 
-        UnitOfMeasure uom7 = new UnitOfMeasure();
-        uom7.setDescription("Pint");
-        unitOfMeasureRepository.save(uom7);
+    private <T> Mono<Map<String, T>> byDescription(Class<T> type, List<String> descriptions, Function<T, String> description) {
+        return mongoOperations.find(query(where("description").in(descriptions)), type)
+                .collectMap(description);
+    }
 
-        UnitOfMeasure uom8 = new UnitOfMeasure();
-        uom8.setDescription("Dash");
-        unitOfMeasureRepository.save(uom8);
+    private Mono<Long> insertRecipes(List<Recipe> recipes) {
+        return mongoOperations.insert(recipes, Recipe.class).count();
     }
 
-    private List<Recipe> getRecipes() {
+    private List<Recipe> getRecipes(Map<String, UnitOfMeasure> unitsOfMeasure, Map<String, Category> categories) {
 
         List<Recipe> recipes = new ArrayList<>(2);
 
         //get UOMs
-        Optional<UnitOfMeasure> eachUomOptional = unitOfMeasureRepository.findByDescription("Each");
-
-        if(!eachUomOptional.isPresent()){
-            throw new RuntimeException("Expected UOM Not Found");
-        }
-
-        Optional<UnitOfMeasure> tableSpoonUomOptional = unitOfMeasureRepository.findByDescription("Tablespoon");
-
-        if(!tableSpoonUomOptional.isPresent()){
-            throw new RuntimeException("Expected UOM Not Found");
-        }
-
-        Optional<UnitOfMeasure> teaSpoonUomOptional = unitOfMeasureRepository.findByDescription("Teaspoon");
-
-        if(!teaSpoonUomOptional.isPresent()){
-            throw new RuntimeException("Expected UOM Not Found");
-        }
-
-        Optional<UnitOfMeasure> dashUomOptional = unitOfMeasureRepository.findByDescription("Dash");
-
-        if(!dashUomOptional.isPresent()){
-            throw new RuntimeException("Expected UOM Not Found");
-        }
-
-        Optional<UnitOfMeasure> pintUomOptional = unitOfMeasureRepository.findByDescription("Pint");
-
-        if(!pintUomOptional.isPresent()){
-            throw new RuntimeException("Expected UOM Not Found");
-        }
-
-        Optional<UnitOfMeasure> cupsUomOptional = unitOfMeasureRepository.findByDescription("Cup");
-
-        if(!cupsUomOptional.isPresent()){
-            throw new RuntimeException("Expected UOM Not Found");
-        }
-
-        //get optionals
-        UnitOfMeasure eachUom = eachUomOptional.get();
-        UnitOfMeasure tableSpoonUom = tableSpoonUomOptional.get();
-        UnitOfMeasure teapoonUom = tableSpoonUomOptional.get();
-        UnitOfMeasure dashUom = dashUomOptional.get();
-        UnitOfMeasure pintUom = dashUomOptional.get();
-        UnitOfMeasure cupsUom = cupsUomOptional.get();
+        UnitOfMeasure eachUom = required(unitsOfMeasure, "Each");
+        UnitOfMeasure tableSpoonUom = required(unitsOfMeasure, "Tablespoon");
+        UnitOfMeasure teapoonUom = required(unitsOfMeasure, "Teaspoon");
+        UnitOfMeasure dashUom = required(unitsOfMeasure, "Dash");
+        UnitOfMeasure pintUom = required(unitsOfMeasure, "Pint");
+        UnitOfMeasure cupsUom = required(unitsOfMeasure, "Cup");
 
         //get Categories
-        Optional<Category> americanCategoryOptional = categoryRepository.findByDescription("American");
-
-        if(!americanCategoryOptional.isPresent()){
-            throw new RuntimeException("Expected Category Not Found");
-        }
-
-        Optional<Category> mexicanCategoryOptional = categoryRepository.findByDescription("Mexican");
-
-        if(!mexicanCategoryOptional.isPresent()){
-            throw new RuntimeException("Expected Category Not Found");
-        }
-
-        Category americanCategory = americanCategoryOptional.get();
-        Category mexicanCategory = mexicanCategoryOptional.get();
+        Category americanCategory = required(categories, "American");
+        Category mexicanCategory = required(categories, "Mexican");
 
         //Yummy Guac
         Recipe guacRecipe = new Recipe();
@@ -201,8 +137,8 @@ public class RecipeBootstrap implements ApplicationListener<ContextRefreshedEven
         guacRecipe.addIngredient(new Ingredient("freshly grated black pepper", new BigDecimal(2), dashUom));
         guacRecipe.addIngredient(new Ingredient("ripe tomato, seeds and pulp removed, chopped", new BigDecimal(".5"), eachUom));
 
-        guacRecipe.getCategories().add(americanCategory);
-        guacRecipe.getCategories().add(mexicanCategory);
+        guacRecipe.getCategoryIds().add(americanCategory.getId());
+        guacRecipe.getCategoryIds().add(mexicanCategory.getId());
 
         guacRecipe.setUrl("http://www.simplyrecipes.com/recipes/perfect_guacamole/");
         guacRecipe.setServings(4);
@@ -263,8 +199,8 @@ public class RecipeBootstrap implements ApplicationListener<ContextRefreshedEven
         tacosRecipe.addIngredient(new Ingredient("cup sour cream thinned with 1/4 cup milk", new BigDecimal(4), cupsUom));
         tacosRecipe.addIngredient(new Ingredient("lime, cut into wedges", new BigDecimal(4), eachUom));
 
-        tacosRecipe.getCategories().add(americanCategory);
-        tacosRecipe.getCategories().add(mexicanCategory);
+        tacosRecipe.getCategoryIds().add(americanCategory.getId());
+        tacosRecipe.getCategoryIds().add(mexicanCategory.getId());
 
         tacosRecipe.setUrl("http://www.simplyrecipes.com/recipes/spicy_grilled_chicken_tacos/");
         tacosRecipe.setServings(4);
@@ -273,4 +209,12 @@ public class RecipeBootstrap implements ApplicationListener<ContextRefreshedEven
         recipes.add(tacosRecipe);
         return recipes;
     }
+
+    private static <T> T required(Map<String, T> byDescription, String description) {
+        T found = byDescription.get(description);
+        if (found == null) {
+            throw new RuntimeException("Expected " + description + " Not Found");
+        }
+        return found;
+    }
 }
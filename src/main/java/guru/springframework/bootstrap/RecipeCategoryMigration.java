@@ -0,0 +1,63 @@
+package guru.springframework.bootstrap;
+
+import guru.springframework.domain.Recipe;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Replaces the category copies embedded in recipe documents by the categories' ids, in one server side update.
+ */
+@Slf4j
+@Component
+public class RecipeCategoryMigration implements ApplicationRunner {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public RecipeCategoryMigration(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Long migrated = migrate().block();
+
+        if (migrated != null && migrated > 0) {
+            log.info("Replaced embedded categories by category ids in " + migrated + " recipes");
+        }
+    }
+
+    public Mono<Long> migrate() {
+        return mongoTemplate.updateMulti(embeddedCategories(), toCategoryIds(), mongoTemplate.getCollectionName(Recipe.class))
+                .map(result -> result.getModifiedCount());
+    }
+
+    static Query embeddedCategories() {
+        return query(where("categories").exists(true));
+    }
+
+    /**
+     * Embedded ids were written as ObjectIds, category ids are kept as their hex strings.
+     */
+    static AggregationUpdate toCategoryIds() {
+        Document categoryIds = new Document("$map", new Document("input", "$categories")
+                .append("as", "category")
+                .append("in", new Document("$toString", "$$category._id")));
+
+        return AggregationUpdate.from(List.<AggregationOperation>of(
+                context -> new Document("$set", new Document("categoryIds", categoryIds)),
+                context -> new Document("$unset", "categories")));
+    }
+}
@@ -0,0 +1,131 @@
+package guru.springframework.bootstrap;
+
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.UnitOfMeasure;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Recipes as JSON lines, one document per line in Mongo extended JSON, so a generated data set can be replayed.
+ * Categories and units of measure are written by description and resolved against the loading database, as
+ * their ids differ from one database to the next.
+ */
+@Component
+public class RecipeDataFile {
+
+    private static final String CATEGORIES = "categories";
+    private static final String CATEGORY_IDS = "categoryIds";
+    private static final String INGREDIENTS = "ingredients";
+    private static final String UOM = "uom";
+
+    private final MongoConverter mongoConverter;
+
+    public RecipeDataFile(MongoConverter mongoConverter) {
+        this.mongoConverter = mongoConverter;
+    }
+
+    /**
+     * Writes the recipes as they pass, the file is complete once the returned Flux completes.
+     */
+    public Flux<Recipe> write(Flux<Recipe> recipes, Path file, List<Category> categories) {
+        Map<String, String> categoryDescriptions = categories.stream()
+                .collect(Collectors.toMap(Category::getId, Category::getDescription));
+
+        return Flux.using(() -> Files.newBufferedWriter(file, StandardCharsets.UTF_8),
+                writer -> recipes
+                        .publishOn(Schedulers.boundedElastic())
+                        .doOnNext(recipe -> writeLine(writer, recipe, categoryDescriptions)),
+                RecipeDataFile::close);
+    }
+
+    public Flux<Recipe> read(Path file, List<UnitOfMeasure> unitsOfMeasure, List<Category> categories) {
+        Map<String, UnitOfMeasure> unitsByDescription = unitsOfMeasure.stream()
+                .collect(Collectors.toMap(UnitOfMeasure::getDescription, Function.identity()));
+        Map<String, String> categoryIds = categories.stream()
+                .collect(Collectors.toMap(Category::getDescription, Category::getId));
+
+        return Flux.using(() -> Files.lines(file, StandardCharsets.UTF_8),
+                        lines -> Flux.fromStream(lines.filter(line -> !line.isBlank()))
+                                .map(line -> readLine(line, unitsByDescription, categoryIds)),
+                        Stream::close)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void writeLine(BufferedWriter writer, Recipe recipe, Map<String, String> categoryDescriptions) {
+        Document document = new Document();
+        mongoConverter.write(recipe, document);
+
+        List<String> categories = recipe.getCategoryIds().stream()
+                .map(id -> resolve(categoryDescriptions, id, "category id"))
+                .toList();
+        document.remove(CATEGORY_IDS);
+        document.put(CATEGORIES, categories);
+
+        for (Document ingredient : document.getList(INGREDIENTS, Document.class, List.of())) {
+            Document uom = ingredient.get(UOM, Document.class);
+            if (uom != null) {
+                ingredient.put(UOM, uom.getString("description"));
+            }
+        }
+
+        try {
+            writer.write(document.toJson());
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Recipe readLine(String line, Map<String, UnitOfMeasure> unitsByDescription, Map<String, String> categoryIds) {
+        Document document = Document.parse(line);
+
+        List<String> categories = document.getList(CATEGORIES, String.class, List.of());
+        document.remove(CATEGORIES);
+        List<String> units = new ArrayList<>();
+        for (Document ingredient : document.getList(INGREDIENTS, Document.class, List.of())) {
+            units.add((String) ingredient.remove(UOM));
+        }
+
+        Recipe recipe = mongoConverter.read(Recipe.class, document);
+
+        categories.forEach(description -> recipe.getCategoryIds().add(resolve(categoryIds, description, "category")));
+        for (int i = 0; i < units.size(); i++) {
+            String unit = units.get(i);
+            recipe.getIngredients().get(i).setUom(unit != null ? resolve(unitsByDescription, unit, "unit of measure") : null);
+        }
+        return recipe;
+    }
+
+    private static <T> T resolve(Map<String, T> values, String key, String kind) {
+        T value = values.get(key);
+        if (value == null) {
+            throw new IllegalStateException("Unknown " + kind + " in recipe data: " + key);
+        }
+        return value;
+    }
+
+    private static void close(BufferedWriter writer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package guru.springframework.bootstrap;
+
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Difficulty;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Notes;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.domain.UnitOfMeasure;
+import guru.springframework.services.ImageResizer;
+import reactor.core.publisher.Flux;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Produces any number of synthetic recipes for volume testing. Recipe n depends only on the seed and n, so the
+ * same seed always gives the same recipes, ids included, and any slice of the sequence can be generated alone.
+ * Ingredients are drawn with a skew towards the common ones, and sizes follow long tailed distributions.
+ */
+public class RecipeDataGenerator {
+
+    //ids are ObjectIds with a fixed timestamp and n in the remaining bytes, so they sort in generation order;
+    //ObjectId's own counter constructor mixes in a random per process value, so the same ids would not come back
+    private static final int ID_TIMESTAMP = 1_500_000_000;
+    private static final long IMAGE_UPLOAD_DATE = 1_500_000_000_000L;
+
+    private static final String[] DISHES = {
+            "Tacos", "Guacamole", "Chili", "Lasagna", "Risotto", "Curry", "Stew", "Salad", "Soup", "Burger",
+            "Pizza", "Pasta", "Enchiladas", "Burrito", "Quesadilla", "Stir Fry", "Casserole", "Omelette", "Pancakes",
+            "Meatballs", "Skewers", "Tart", "Pie", "Bread", "Muffins", "Cookies", "Brownies", "Cake", "Noodles", "Dumplings"};
+
+    private static final String[] STYLES = {
+            "Spicy", "Classic", "Quick", "Grilled", "Roasted", "Smoky", "Creamy", "Crispy", "Easy", "Perfect",
+            "Weeknight", "Slow Cooker", "Vegetarian", "Lemon", "Garlic", "Honey", "Chipotle", "Herbed", "Rustic", "Summer"};
+
+    //ordered from the most to the least common, the choice is skewed towards the front
+    private static final String[] INGREDIENTS = {
+            "salt", "black pepper", "olive oil", "garlic", "onion", "butter", "sugar", "flour", "eggs", "water",
+            "lemon juice", "milk", "tomatoes", "red onion", "cilantro", "lime juice", "chicken breast", "parmesan cheese",
+            "ground cumin", "chili powder", "oregano", "basil", "parsley", "carrots", "celery", "vegetable oil",
+            "brown sugar", "baking powder", "baking soda", "vanilla extract", "heavy cream", "sour cream", "avocados",
+            "jalapeno", "bell pepper", "mushrooms", "spinach", "potatoes", "rice", "black beans", "corn tortillas",
+            "chicken stock", "soy sauce", "ginger", "green onion", "paprika", "cinnamon", "nutmeg", "thyme", "rosemary",
+            "bay leaves", "cheddar cheese", "mozzarella", "ground beef", "bacon", "shrimp", "salmon", "pork shoulder",
+            "honey", "maple syrup", "dijon mustard", "mayonnaise", "red wine vinegar", "balsamic vinegar", "white wine",
+            "coconut milk", "curry powder", "turmeric", "chickpeas", "lentils", "zucchini", "eggplant", "cucumber",
+            "radishes", "arugula", "kale", "cabbage", "sweet potatoes", "pumpkin", "apples", "bananas", "strawberries",
+            "blueberries", "orange zest", "walnuts", "almonds", "pine nuts", "sesame seeds", "tahini", "feta cheese",
+            "goat cheese", "ricotta", "lasagna noodles", "spaghetti", "breadcrumbs", "yeast", "cocoa powder",
+            "chocolate chips", "pomegranate seeds", "anchovies", "capers", "saffron"};
+
+    private static final String[] VERBS = {
+            "Add", "Stir in", "Whisk", "Fold in", "Combine", "Toss", "Season", "Simmer", "Saute", "Roast", "Grill",
+            "Bake", "Chop", "Slice", "Mash", "Drizzle", "Sprinkle", "Transfer", "Cover", "Serve"};
+
+    private static final String[] PHRASES = {
+            "over medium heat", "until golden brown", "for about five minutes", "until fragrant", "in a large bowl",
+            "with a wooden spoon", "until just combined", "and set aside", "to taste", "until tender",
+            "on a baking sheet", "in a hot skillet", "until the sauce thickens", "and let it rest", "before serving",
+            "until bubbling", "in batches", "with the remaining oil", "until smooth", "while still warm"};
+
+    private static final Difficulty[] DIFFICULTIES = {
+            Difficulty.EASY, Difficulty.EASY, Difficulty.EASY, Difficulty.MODERATE, Difficulty.MODERATE,
+            Difficulty.KIND_OF_HARD, Difficulty.HARD};
+
+    private static final String[] SOURCES = {"Simply Recipes", "Family Kitchen", "Serious Eats", "Home Cooking", "Test Kitchen"};
+
+    private static final double[] INGREDIENT_WEIGHTS = zipfCumulative(INGREDIENTS.length);
+
+    private static final int SHARED_IMAGE_COUNT = 10;
+    private static final List<SharedImage> SHARED_IMAGES = renderSharedImages();
+
+    private final long seed;
+    private final List<UnitOfMeasure> unitsOfMeasure;
+    private final List<Category> categories;
+    private final double[] categoryWeights;
+
+    public RecipeDataGenerator(long seed, List<UnitOfMeasure> unitsOfMeasure, List<Category> categories) {
+        this.seed = seed;
+        this.unitsOfMeasure = sorted(unitsOfMeasure, UnitOfMeasure::getDescription);
+        this.categories = sorted(categories, Category::getDescription);
+        this.categoryWeights = zipfCumulative(categories.size());
+    }
+
+    public Flux<Recipe> recipes(int count) {
+        return Flux.range(0, count).map(this::recipe);
+    }
+
+    public Recipe recipe(int number) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + number);
+
+        Recipe recipe = new Recipe();
+        recipe.setId(idOf(number));
+        recipe.setDescription(pick(random, STYLES) + " " + pick(random, DISHES) + " #" + (number + 1));
+        recipe.setPrepTime(clamp(logNormal(random, 15, 0.6), 1, 240));
+        recipe.setCookTime(random.nextInt(10) == 0 ? 0 : clamp(logNormal(random, 30, 0.8), 1, 600));
+        recipe.setServings(1 + random.nextInt(12));
+        recipe.setDifficulty(pick(random, DIFFICULTIES));
+        recipe.setSource(pick(random, SOURCES));
+        recipe.setUrl("http://example.com/recipes/" + number);
+        recipe.setDirections(directions(random));
+
+        int ingredients = clamp(logNormal(random, 9, 0.45), 1, 60);
+        for (int i = 0; i < ingredients; i++) {
+            Ingredient ingredient = new Ingredient(INGREDIENTS[skewed(random, INGREDIENT_WEIGHTS)],
+                    amount(random), unitsOfMeasure.isEmpty() ? null : unitsOfMeasure.get(random.nextInt(unitsOfMeasure.size())));
+            ingredient.setId(new UUID(random.nextLong(), random.nextLong()).toString());
+            recipe.addIngredient(ingredient);
+        }
+
+        if (!categories.isEmpty()) {
+            int count = 1 + (random.nextInt(10) < 4 ? 1 : 0) + (random.nextInt(10) == 0 ? 1 : 0);
+            for (int i = 0; i < count; i++) {
+                String categoryId = categories.get(skewed(random, categoryWeights)).getId();
+                if (!recipe.getCategoryIds().contains(categoryId)) {
+                    recipe.getCategoryIds().add(categoryId);
+                }
+            }
+        }
+
+        //the views expect notes, only their text is optional
+        Notes notes = new Notes();
+        if (random.nextInt(10) < 6) {
+            notes.setRecipeNotes(sentences(random, 1 + random.nextInt(4)));
+        }
+        recipe.setNotes(notes);
+
+        if (random.nextInt(100) < 45) {
+            recipe.setImage(SHARED_IMAGES.get(random.nextInt(SHARED_IMAGES.size())).image());
+        }
+        return recipe;
+    }
+
+    public static String idOf(int number) {
+        return objectId(ID_TIMESTAMP, number);
+    }
+
+    /**
+     * The images the generated recipes refer to, they have to be stored along with the recipes.
+     */
+    public static List<SharedImage> sharedImages() {
+        return SHARED_IMAGES;
+    }
+
+    private static String objectId(int timestamp, int number) {
+        return String.format("%08x%016x", timestamp, number);
+    }
+
+    private static String directions(SplittableRandom random) {
+        int steps = clamp(logNormal(random, 6, 0.5), 1, 30);
+        StringBuilder directions = new StringBuilder();
+        for (int step = 1; step <= steps; step++) {
+            directions.append(step).append(' ').append(sentences(random, 1 + random.nextInt(3))).append('\n');
+        }
+        return directions.toString();
+    }
+
+    private static String sentences(SplittableRandom random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(pick(random, VERBS)).append(" the ").append(INGREDIENTS[skewed(random, INGREDIENT_WEIGHTS)])
+                    .append(' ').append(pick(random, PHRASES));
+            if (random.nextBoolean()) {
+                text.append(", then ").append(pick(random, VERBS).toLowerCase()).append(' ').append(pick(random, PHRASES));
+            }
+            text.append('.');
+        }
+        return text.toString();
+    }
+
+    /**
+     * A fixed set of rendered images, the same for every seed, so a replayed file finds them too. They are
+     * stored once and shared by reference between all the recipes showing them; one in five is a PNG.
+     */
+    private static List<SharedImage> renderSharedImages() {
+        List<SharedImage> images = new ArrayList<>();
+        for (int i = 0; i < SHARED_IMAGE_COUNT; i++) {
+            SplittableRandom random = new SplittableRandom(i);
+            boolean png = i % 5 == 4;
+            int width = 480 + 160 * random.nextInt(6);
+
+            BufferedImage rendered = new BufferedImage(width, width * 3 / 4,
+                    png ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = rendered.createGraphics();
+            try {
+                graphics.setPaint(new GradientPaint(0, 0, color(random), width, width * 3 / 4f, color(random)));
+                graphics.fillRect(0, 0, rendered.getWidth(), rendered.getHeight());
+                for (int shape = 0; shape < 12; shape++) {
+                    graphics.setColor(color(random));
+                    graphics.fillOval(random.nextInt(width), random.nextInt(rendered.getHeight()),
+                            20 + random.nextInt(width / 3), 20 + random.nextInt(width / 3));
+                }
+            } finally {
+                graphics.dispose();
+            }
+
+            byte[] content;
+            try {
+                content = ImageResizer.encode(rendered);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            RecipeImage image = new RecipeImage();
+            image.setFileId(objectId(ID_TIMESTAMP + 1, i));
+            image.setContentType(ImageResizer.contentType(rendered));
+            image.setLength((long) content.length);
+            image.setContentHash(sha256(content));
+            image.setUploadDate(new Date(IMAGE_UPLOAD_DATE + i * 1000L));
+            images.add(new SharedImage(image, content));
+        }
+        return List.copyOf(images);
+    }
+
+    private static Color color(SplittableRandom random) {
+        return new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static BigDecimal amount(SplittableRandom random) {
+        //quarters up to 4, whole numbers above
+        return random.nextBoolean()
+                ? BigDecimal.valueOf(1 + random.nextInt(16)).divide(BigDecimal.valueOf(4))
+                : BigDecimal.valueOf(1 + random.nextInt(12));
+    }
+
+    private static <T> T pick(SplittableRandom random, T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static int skewed(SplittableRandom random, double[] cumulativeWeights) {
+        double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulativeWeights[middle] < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static double[] zipfCumulative(int size) {
+        double[] cumulative = new double[size];
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += 1.0 / (i + 1);
+            cumulative[i] = total;
+        }
+        return cumulative;
+    }
+
+    private static double logNormal(SplittableRandom random, double median, double sigma) {
+        //Box-Muller for a standard normal
+        double normal = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+        return median * Math.exp(sigma * normal);
+    }
+
+    private static int clamp(double value, int min, int max) {
+        return (int) Math.max(min, Math.min(max, Math.round(value)));
+    }
+
+    public record SharedImage(RecipeImage image, byte[] content) {
+    }
+
+    private static <T> List<T> sorted(List<T> values, Function<T, String> key) {
+        List<T> sorted = new ArrayList<>(values);
+        sorted.sort(Comparator.comparing(key));
+        return sorted;
+    }
+}
@@ -0,0 +1,102 @@
+package guru.springframework.bootstrap;
+
+import com.mongodb.client.result.UpdateResult;
+import guru.springframework.domain.Recipe;
+import guru.springframework.repositories.reactive.RecipeImageStore;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URLConnection;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Moves images still embedded in recipe documents out to the image store, whether they were written as arrays of
+ * boxed bytes or as binary data.
+ */
+@Slf4j
+@Component
+public class RecipeImageMigration implements ApplicationRunner {
+
+    static final JsonSchemaObject.Type[] EMBEDDED_TYPES = {JsonSchemaObject.Type.arrayType(), JsonSchemaObject.Type.binaryType()};
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final RecipeImageStore recipeImageStore;
+
+    public RecipeImageMigration(ReactiveMongoTemplate mongoTemplate, RecipeImageStore recipeImageStore) {
+        this.mongoTemplate = mongoTemplate;
+        this.recipeImageStore = recipeImageStore;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Long migrated = migrate().block();
+
+        if (migrated != null && migrated > 0) {
+            log.info("Moved " + migrated + " embedded recipe images to GridFS");
+        }
+    }
+
+    public Mono<Long> migrate() {
+        Query embeddedImages = query(where("image").type(EMBEDDED_TYPES));
+        embeddedImages.fields().include("image");
+
+        return mongoTemplate.find(embeddedImages, Document.class, mongoTemplate.getCollectionName(Recipe.class))
+                .concatMap(this::moveToImageStore)
+                .filter(result -> result.getModifiedCount() > 0)
+                .count();
+    }
+
+    private Mono<UpdateResult> moveToImageStore(Document recipe) {
+        Object id = recipe.get("_id");
+        byte[] bytes = bytes(recipe.get("image"));
+
+        return recipeImageStore.store(id.toString(), Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(bytes)), contentType(bytes))
+                .flatMap(image -> mongoTemplate.updateFirst(
+                        query(where("_id").is(id).and("image").type(EMBEDDED_TYPES)),
+                        Update.update("image", image), Recipe.class));
+    }
+
+    static byte[] bytes(Object image) {
+        if (image instanceof Binary binary) {
+            return binary.getData();
+        }
+        if (image instanceof byte[] bytes) {
+            return bytes;
+        }
+        return unbox((List<?>) image);
+    }
+
+    private static byte[] unbox(List<?> boxed) {
+        byte[] bytes = new byte[boxed.size()];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = ((Number) boxed.get(i)).byteValue();
+        }
+        return bytes;
+    }
+
+    private static String contentType(byte[] bytes) {
+        try {
+            String guessed = URLConnection.guessContentTypeFromStream(new ByteArrayInputStream(bytes));
+            return guessed != null ? guessed : "image/jpeg";
+        } catch (IOException e) {
+            return "image/jpeg";
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package guru.springframework.bootstrap;
+
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.UnitOfMeasure;
+import guru.springframework.repositories.reactive.RecipeImageStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Loads recipe.synthetic.recipes generated recipes after the bootstrap data, for volume testing. With
+ * recipe.synthetic.file set the recipes are replayed from that file if it exists, or written to it as generated.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class SyntheticRecipeLoader implements ApplicationRunner {
+
+    static final int BATCH_SIZE = 1000;
+    static final int CONCURRENT_BATCHES = 4;
+
+    private final ReactiveMongoOperations mongoOperations;
+    private final RecipeDataFile recipeDataFile;
+    private final RecipeImageStore recipeImageStore;
+    private final int recipes;
+    private final long seed;
+    private final String file;
+
+    public SyntheticRecipeLoader(ReactiveMongoOperations mongoOperations, RecipeDataFile recipeDataFile,
+                                 RecipeImageStore recipeImageStore,
+                                 @Value("${recipe.synthetic.recipes:0}") int recipes,
+                                 @Value("${recipe.synthetic.seed:42}") long seed,
+                                 @Value("${recipe.synthetic.file:}") String file) {
+        this.mongoOperations = mongoOperations;
+        this.recipeDataFile = recipeDataFile;
+        this.recipeImageStore = recipeImageStore;
+        this.recipes = recipes;
+        this.seed = seed;
+        this.file = file;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (recipes <= 0 && file.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        Long loaded = load().block();
+        log.info("Loaded " + loaded + " synthetic recipes in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Does nothing when the first generated recipe is already stored, the ids are the same on every run.
+     */
+    public Mono<Long> load() {
+        return mongoOperations.exists(query(where("_id").is(RecipeDataGenerator.idOf(0))), Recipe.class)
+                .flatMap(loaded -> loaded ? Mono.just(0L) : storeSharedImages().then(insert(source())));
+    }
+
+    //the images the recipes refer to, stored once whether the recipes are generated or replayed
+    private Mono<Void> storeSharedImages() {
+        return Flux.fromIterable(RecipeDataGenerator.sharedImages())
+                .concatMap(shared -> recipeImageStore.storeShared(shared.image().getFileId(), shared.content(),
+                        shared.image().getContentType()))
+                .then();
+    }
+
+    private Flux<Recipe> source() {
+        Path path = file.isEmpty() ? null : Path.of(file);
+
+        return Mono.zip(
+                        mongoOperations.findAll(UnitOfMeasure.class).collectList(),
+                        mongoOperations.findAll(Category.class).collectList())
+                .flatMapMany(reference -> {
+                    if (path != null && Files.exists(path)) {
+                        return recipeDataFile.read(path, reference.getT1(), reference.getT2());
+                    }
+
+                    Flux<Recipe> generated = new RecipeDataGenerator(seed, reference.getT1(), reference.getT2()).recipes(recipes);
+                    return path != null ? recipeDataFile.write(generated, path, reference.getT2()) : generated;
+                });
+    }
+
+    /**
+     * Mapping the recipes to documents costs far more than generating them, so batches are mapped in parallel.
+     */
+    private Mono<Long> insert(Flux<Recipe> recipes) {
+        return recipes
+                .buffer(BATCH_SIZE)
+                .flatMap(batch -> mongoOperations.insert(batch, Recipe.class).count()
+                        .subscribeOn(Schedulers.parallel()), CONCURRENT_BATCHES)
+                .reduce(0L, Long::sum);
+    }
+}
@@ -23,6 +23,7 @@ import java.util.Set;
 @NoArgsConstructor
 public class RecipeCommand {
     private String id;
+    private Long version;
 
     @NotBlank
     @Size(min = 3, max = 255)
@@ -48,7 +49,6 @@ public class RecipeCommand {
     private String directions;
 
     private List<IngredientCommand> ingredients = new ArrayList<>();
-    private Byte[] image;
     private Difficulty difficulty;
     private NotesCommand notes;
     private List<CategoryCommand> categories = new ArrayList<>();
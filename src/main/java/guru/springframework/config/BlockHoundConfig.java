@@ -0,0 +1,67 @@
+package guru.springframework.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.server.WebFilter;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingOperationError;
+
+/**
+ * Development and test mode that fails any blocking call made on a non-blocking thread (Netty event loops,
+ * Reactor's parallel scheduler) with a {@link BlockingOperationError}, and logs the stack trace with the route
+ * of the request that made it. Run with --spring.profiles.active=blockhound; on Java 13+ the JVM also needs
+ * -XX:+AllowRedefinitionToAddDeleteMethods, which the test and bootRun tasks pass. BlockHound is only on the
+ * bootRun and test classpaths, the packaged application leaves this configuration out even with the profile.
+ */
+@Slf4j
+@Configuration
+@Profile("blockhound")
+@ConditionalOnClass(name = "reactor.blockhound.BlockHound")
+public class BlockHoundConfig {
+
+    public BlockHoundConfig() {
+        install();
+    }
+
+    /**
+     * Installs the detector, with the Reactor integration found on the classpath, once per JVM; later calls do nothing.
+     */
+    public static void install() {
+        BlockHound.install(builder -> builder
+                //the engine initializes on the first render, and each template and message bundle is read from
+                //the classpath once, then served from a cache
+                .allowBlockingCallsInside("org.thymeleaf.TemplateEngine", "initialize")
+                .allowBlockingCallsInside("org.springframework.context.support.ResourceBundleMessageSource", "doGetBundle")
+                .allowBlockingCallsInside("org.hibernate.validator.resourceloading.PlatformResourceBundleLocator", "loadBundle")
+                .allowBlockingCallsInside("org.thymeleaf.templateresource.ClassLoaderTemplateResource", "reader")
+                .allowBlockingCallsInside("org.thymeleaf.templateparser.reader.ParserLevelCommentMarkupReader", "read")
+                //a projection's properties are read from its class file on the first query returning it, then cached
+                .allowBlockingCallsInside("org.springframework.data.projection.ProxyProjectionFactory", "getProjectionMetadata"));
+    }
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public WebFilter blockingCallReporter() {
+        return (exchange, chain) -> chain.filter(exchange)
+                .doOnError(e -> {
+                    BlockingOperationError blockingCall = blockingCall(e);
+                    if (blockingCall != null) {
+                        log.error("Blocking call in " + RequestRoutes.describe(exchange), blockingCall);
+                    }
+                });
+    }
+
+    private static BlockingOperationError blockingCall(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BlockingOperationError blockingOperationError) {
+                return blockingOperationError;
+            }
+        }
+        return null;
+    }
+}
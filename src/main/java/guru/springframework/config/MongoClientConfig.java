@@ -0,0 +1,102 @@
+package guru.springframework.config;
+
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadPreference;
+import com.mongodb.reactivestreams.client.MongoClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import org.springframework.web.server.WebFilter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies {@link MongoClientProperties} to the reactive MongoClient Spring Boot creates, and times how long
+ * operations wait for a pooled connection. Spring Boot's own pool metrics report the pool size, checked out
+ * connections and wait queue size next to it. Every command also goes through the {@link MongoQueryListener}.
+ */
+@Configuration
+@EnableConfigurationProperties(MongoClientProperties.class)
+public class MongoClientConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoClientPropertiesCustomizer(MongoClientProperties properties) {
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        MongoClientProperties.Pool pool = properties.getPool();
+        MongoClientProperties.Socket socket = properties.getSocket();
+
+        return builder -> {
+            map.from(properties::getCompressors).whenNot(List::isEmpty).as(MongoClientConfig::compressors)
+                    .to(builder::compressorList);
+            map.from(properties::getReadPreference).whenHasText().as(ReadPreference::valueOf)
+                    .to(builder::readPreference);
+
+            builder.applyToClusterSettings(cluster -> map.from(properties::getServerSelectionTimeout)
+                    .as(Duration::toMillis).to(millis -> cluster.serverSelectionTimeout(millis, TimeUnit.MILLISECONDS)));
+
+            builder.applyToConnectionPoolSettings(settings -> {
+                map.from(pool::getMaxSize).to(settings::maxSize);
+                map.from(pool::getMinSize).to(settings::minSize);
+                map.from(pool::getMaxConnecting).to(settings::maxConnecting);
+                map.from(pool::getMaxWaitTime).as(Duration::toMillis)
+                        .to(millis -> settings.maxWaitTime(millis, TimeUnit.MILLISECONDS));
+                map.from(pool::getMaxConnectionIdleTime).as(Duration::toMillis)
+                        .to(millis -> settings.maxConnectionIdleTime(millis, TimeUnit.MILLISECONDS));
+                map.from(pool::getMaxConnectionLifeTime).as(Duration::toMillis)
+                        .to(millis -> settings.maxConnectionLifeTime(millis, TimeUnit.MILLISECONDS));
+            });
+
+            builder.applyToSocketSettings(settings -> {
+                map.from(socket::getConnectTimeout).as(Duration::toMillis)
+                        .to(millis -> settings.connectTimeout(Math.toIntExact(millis), TimeUnit.MILLISECONDS));
+                map.from(socket::getReadTimeout).as(Duration::toMillis)
+                        .to(millis -> settings.readTimeout(Math.toIntExact(millis), TimeUnit.MILLISECONDS));
+            });
+        };
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoConnectionCheckoutMetrics(MeterRegistry meterRegistry) {
+        MongoConnectionCheckoutListener listener = new MongoConnectionCheckoutListener(meterRegistry);
+
+        return builder -> builder.applyToConnectionPoolSettings(settings -> settings.addConnectionPoolListener(listener));
+    }
+
+    @Bean
+    public MongoQueryListener mongoQueryListener(MongoClientProperties properties, ObjectProvider<MongoClient> mongoClient) {
+        return new MongoQueryListener(properties.getQueries(), mongoClient);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoQueryLog(MongoQueryListener mongoQueryListener) {
+        return builder -> builder.contextProvider(MongoQueryListener.contextProvider())
+                .addCommandListener(mongoQueryListener);
+    }
+
+    //makes the exchange, and so the route, available to the operations subscribed while handling a request
+    @Bean
+    public WebFilter serverWebExchangeContextFilter() {
+        return new ServerWebExchangeContextFilter();
+    }
+
+    static List<MongoCompressor> compressors(List<String> names) {
+        return names.stream().map(MongoClientConfig::compressor).toList();
+    }
+
+    private static MongoCompressor compressor(String name) {
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "zstd" -> MongoCompressor.createZstdCompressor();
+            case "snappy" -> MongoCompressor.createSnappyCompressor();
+            case "zlib" -> MongoCompressor.createZlibCompressor();
+            default -> throw new IllegalArgumentException("Unknown Mongo compressor: " + name);
+        };
+    }
+}
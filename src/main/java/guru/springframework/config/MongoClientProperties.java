@@ -0,0 +1,91 @@
+package guru.springframework.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Client settings Spring Boot's spring.data.mongodb properties do not cover. Anything left unset keeps the
+ * driver's default.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("recipe.mongodb")
+public class MongoClientProperties {
+
+    /**
+     * Wire protocol compressors in order of preference: zstd, snappy or zlib. The server picks the first one
+     * it also has enabled.
+     */
+    private List<String> compressors = new ArrayList<>();
+
+    /**
+     * Read preference by name, such as primary, primaryPreferred, secondaryPreferred or nearest.
+     */
+    private String readPreference;
+
+    /**
+     * How long to wait for a suitable server before an operation fails.
+     */
+    private Duration serverSelectionTimeout;
+
+    private final Pool pool = new Pool();
+
+    private final Socket socket = new Socket();
+
+    private final Queries queries = new Queries();
+
+    @Getter
+    @Setter
+    public static class Pool {
+
+        private Integer maxSize;
+        private Integer minSize;
+
+        /**
+         * Connections being established at the same time, per server.
+         */
+        private Integer maxConnecting;
+
+        /**
+         * How long an operation waits in the queue for a connection before failing with a timeout.
+         */
+        private Duration maxWaitTime;
+
+        private Duration maxConnectionIdleTime;
+        private Duration maxConnectionLifeTime;
+    }
+
+    @Getter
+    @Setter
+    public static class Socket {
+
+        private Duration connectTimeout;
+        private Duration readTimeout;
+    }
+
+    @Getter
+    @Setter
+    public static class Queries {
+
+        /**
+         * Commands taking longer are logged with the route of the request that issued them.
+         */
+        private Duration slowThreshold = Duration.ofMillis(100);
+
+        /**
+         * Share of queries explained to record their plan and documents examined, on top of the first query
+         * of each shape. Explaining runs the query a second time.
+         */
+        private double explainSampleRate = 0.01;
+
+        /**
+         * Distinct query shapes tracked; further shapes are counted together.
+         */
+        private int maxShapes = 500;
+    }
+}
@@ -0,0 +1,47 @@
+package guru.springframework.config;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times each connection checkout, from the request to the pool until a connection is handed over or the
+ * checkout fails. The outcome tag is success, or the failure reason such as timeout when the pool stayed
+ * exhausted for the configured maximum wait time.
+ */
+public class MongoConnectionCheckoutListener implements ConnectionPoolListener {
+
+    static final String CHECKOUT_TIMER = "mongodb.driver.pool.checkout";
+
+    private final MeterRegistry meterRegistry;
+
+    public MongoConnectionCheckoutListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        record(event.getConnectionId().getServerId().getAddress(), "success", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        record(event.getServerId().getAddress(), event.getReason().name().toLowerCase(Locale.ROOT),
+                event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    private void record(ServerAddress address, String outcome, long nanos) {
+        Timer.builder(CHECKOUT_TIMER)
+                .description("Time spent waiting for a pooled connection")
+                .tag("server.address", address.toString())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,56 @@
+package guru.springframework.config;
+
+import com.mongodb.MongoClientSettings;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the BSON size of every mapped document read from or written to a collection. The driver does not
+ * expose the size, so the document is encoded again; that is cheap next to mapping it.
+ */
+@Component
+public class MongoDocumentSizeListener extends AbstractMongoEventListener<Object> {
+
+    static final String DOCUMENT_SIZE = "mongodb.document.size";
+
+    private final MeterRegistry meterRegistry;
+    private final Codec<Document> codec = MongoClientSettings.getDefaultCodecRegistry().get(Document.class);
+
+    public MongoDocumentSizeListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onAfterLoad(AfterLoadEvent<Object> event) {
+        record(event.getCollectionName(), "read", event.getDocument());
+    }
+
+    @Override
+    public void onBeforeSave(BeforeSaveEvent<Object> event) {
+        record(event.getCollectionName(), "write", event.getDocument());
+    }
+
+    private void record(String collection, String operation, Document document) {
+        if (document == null) {
+            return;
+        }
+
+        DistributionSummary.builder(DOCUMENT_SIZE)
+                .baseUnit("bytes")
+                .tag("collection", collection)
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(size(document));
+    }
+
+    int size(Document document) {
+        return new RawBsonDocument(document, codec).getByteBuffer().remaining();
+    }
+}
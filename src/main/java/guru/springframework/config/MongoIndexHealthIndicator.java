@@ -0,0 +1,45 @@
+package guru.springframework.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.AbstractReactiveHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Down while any declared index is missing, since the queries relying on it would scan whole collections.
+ * A complete report is kept for the TTL, so frequent health checks do not list indexes and run $indexStats
+ * on every call; an incomplete one is verified again on the next check.
+ */
+@Component
+public class MongoIndexHealthIndicator extends AbstractReactiveHealthIndicator {
+
+    private final Mono<MongoIndexReport> verifiedReport;
+
+    public MongoIndexHealthIndicator(MongoIndexManager mongoIndexManager,
+                                     @Value("${recipe.mongodb.indexes.report-ttl:PT5M}") Duration reportTtl) {
+        super("Mongo index verification failed");
+        this.verifiedReport = Mono.defer(mongoIndexManager::verify)
+                .cache(report -> report.isComplete() ? reportTtl : Duration.ZERO, e -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    @Override
+    protected Mono<Health> doHealthCheck(Health.Builder builder) {
+        return verifiedReport
+                .map(report -> {
+                    builder.status(report.isComplete() ? "UP" : "DOWN");
+                    report.getCollections().forEach(collection -> {
+                        Map<String, Object> details = new LinkedHashMap<>();
+                        details.put("missing", collection.getMissing());
+                        details.put("undeclared", collection.getUndeclared());
+                        details.put("unused", collection.getUnused());
+                        builder.withDetail(collection.getCollection(), details);
+                    });
+                    return builder.build();
+                });
+    }
+}
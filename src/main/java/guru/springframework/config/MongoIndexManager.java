@@ -0,0 +1,205 @@
+package guru.springframework.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Owns the indexes declared on the @Document classes with @Indexed, @CompoundIndex and @TextIndexed.
+ * At startup the missing ones are created in the background; {@link #verify()} compares the declarations
+ * with what the server has, by key rather than by name, so an equivalent index created by hand counts.
+ */
+@Slf4j
+@Component
+public class MongoIndexManager implements ApplicationRunner {
+
+    private static final String ID_INDEX = "_id_";
+
+    private final ReactiveMongoOperations mongoOperations;
+    private final MongoMappingContext mappingContext;
+
+    public MongoIndexManager(ReactiveMongoOperations mongoOperations, MongoMappingContext mappingContext) {
+        this.mongoOperations = mongoOperations;
+        this.mappingContext = mappingContext;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        ensureIndexes().subscribe(this::logReport, e -> log.error("Error ensuring Mongo indexes", e));
+    }
+
+    /**
+     * Declared indexes by collection name.
+     */
+    public Map<String, List<IndexDefinition>> declaredIndexes() {
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        Map<String, List<IndexDefinition>> declared = new LinkedHashMap<>();
+
+        mappingContext.getPersistentEntities().stream()
+                .filter(entity -> entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class))
+                .sorted(Comparator.comparing(MongoPersistentEntity::getCollection))
+                .forEach(entity -> {
+                    List<IndexDefinition> indexes = new ArrayList<>();
+                    resolver.resolveIndexFor(entity.getTypeInformation()).forEach(indexes::add);
+                    declared.put(entity.getCollection(), indexes);
+                });
+        return declared;
+    }
+
+    /**
+     * Creates the declared indexes the server does not have yet, then reports the resulting state.
+     */
+    public Mono<MongoIndexReport> ensureIndexes() {
+        return Flux.fromIterable(declaredIndexes().entrySet())
+                .concatMap(collection -> mongoOperations.indexOps(collection.getKey()).getIndexInfo().collectList()
+                        .flatMapMany(existing -> Flux.fromIterable(missing(collection.getValue(), existing)))
+                        .concatMap(index -> mongoOperations.indexOps(collection.getKey()).ensureIndex(index)
+                                .doOnNext(name -> log.info("Created index " + name + " on " + collection.getKey()))))
+                .then(verify());
+    }
+
+    public Mono<MongoIndexReport> verify() {
+        return Flux.fromIterable(declaredIndexes().entrySet())
+                .concatMap(collection -> verify(collection.getKey(), collection.getValue()))
+                .collectList()
+                .map(MongoIndexReport::new);
+    }
+
+    private Mono<MongoIndexReport.CollectionIndexes> verify(String collection, List<IndexDefinition> declared) {
+        Mono<List<IndexInfo>> existing = mongoOperations.indexOps(collection).getIndexInfo().collectList();
+
+        return Mono.zip(existing, unusedIndexNames(collection))
+                .map(state -> {
+                    Set<String> declaredKeys = declared.stream().map(MongoIndexManager::keyOf).collect(Collectors.toSet());
+
+                    List<String> missing = missing(declared, state.getT1()).stream()
+                            .map(MongoIndexManager::nameOf)
+                            .collect(Collectors.toList());
+                    List<String> undeclared = state.getT1().stream()
+                            .filter(index -> !ID_INDEX.equals(index.getName()) && !declaredKeys.contains(keyOf(index)))
+                            .map(IndexInfo::getName)
+                            .collect(Collectors.toList());
+                    List<String> unused = state.getT2().stream()
+                            .filter(name -> !ID_INDEX.equals(name))
+                            .collect(Collectors.toList());
+
+                    return new MongoIndexReport.CollectionIndexes(collection, missing, undeclared, unused);
+                });
+    }
+
+    /**
+     * Indexes no query has used since the server started, from $indexStats. Empty where the server cannot tell.
+     */
+    private Mono<List<String>> unusedIndexNames(String collection) {
+        return mongoOperations.aggregate(Aggregation.newAggregation(context -> new Document("$indexStats", new Document())),
+                        collection, Document.class)
+                .filter(stats -> {
+                    Object ops = stats.get("accesses", Document.class).get("ops");
+                    return ops instanceof Number && ((Number) ops).longValue() == 0;
+                })
+                .map(stats -> stats.getString("name"))
+                .collectList()
+                .onErrorResume(e -> {
+                    log.debug("No index usage statistics for " + collection + ": " + e.getMessage());
+                    return Mono.just(List.of());
+                });
+    }
+
+    private void logReport(MongoIndexReport report) {
+        report.getCollections().forEach(collection -> {
+            if (!collection.getMissing().isEmpty()) {
+                log.error("Missing indexes on " + collection.getCollection() + ": " + collection.getMissing());
+            }
+            if (!collection.getUndeclared().isEmpty()) {
+                log.warn("Indexes on " + collection.getCollection() + " not declared by any entity: " + collection.getUndeclared());
+            }
+        });
+    }
+
+    private static List<IndexDefinition> missing(List<IndexDefinition> declared, List<IndexInfo> existing) {
+        Set<String> existingKeys = existing.stream().map(MongoIndexManager::keyOf).collect(Collectors.toSet());
+
+        return declared.stream()
+                .filter(index -> !existingKeys.contains(keyOf(index)))
+                .collect(Collectors.toList());
+    }
+
+    private static String nameOf(IndexDefinition index) {
+        Object name = index.getIndexOptions().get("name");
+        return name != null ? name.toString() : index.getIndexKeys().toJson();
+    }
+
+    /**
+     * Text indexes are compared by their set of fields, all others by their ordered keys and directions, or
+     * their index type for hashed and geo keys.
+     */
+    static String keyOf(IndexDefinition index) {
+        Document keys = index.getIndexKeys();
+        if (keys.containsValue("text")) {
+            return textKey(keys.entrySet().stream()
+                    .filter(key -> "text".equals(key.getValue()))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList()));
+        }
+        return keys.entrySet().stream()
+                .map(key -> key.getKey() + ":" + typeOf(key.getValue()))
+                .collect(Collectors.joining(","));
+    }
+
+    private static String typeOf(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue() < 0 ? "-1" : "1";
+        }
+        //IndexInfo does not tell 2d from 2dsphere
+        String type = String.valueOf(value);
+        return type.startsWith("2d") ? "geo" : type;
+    }
+
+    static String keyOf(IndexInfo index) {
+        if (index.getIndexFields().stream().anyMatch(IndexField::isText)) {
+            return textKey(index.getIndexFields().stream()
+                    .filter(IndexField::isText)
+                    .map(IndexField::getKey)
+                    .collect(Collectors.toList()));
+        }
+        return index.getIndexFields().stream()
+                .map(field -> field.getKey() + ":" + typeOf(field))
+                .collect(Collectors.joining(","));
+    }
+
+    private static String typeOf(IndexField field) {
+        if (field.isHashed()) {
+            return "hashed";
+        }
+        if (field.isGeo()) {
+            return "geo";
+        }
+        return field.getDirection() == Sort.Direction.DESC ? "-1" : "1";
+    }
+
+    private static String textKey(List<String> fields) {
+        return "text(" + String.join(",", new TreeSet<>(fields)) + ")";
+    }
+}
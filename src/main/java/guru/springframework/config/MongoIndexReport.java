@@ -0,0 +1,41 @@
+package guru.springframework.config;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * How the indexes on the server compare to the ones the entities declare, per collection.
+ */
+@Getter
+public class MongoIndexReport {
+
+    private final List<CollectionIndexes> collections;
+
+    public MongoIndexReport(List<CollectionIndexes> collections) {
+        this.collections = collections;
+    }
+
+    public boolean isComplete() {
+        return collections.stream().allMatch(collection -> collection.getMissing().isEmpty());
+    }
+
+    @Getter
+    public static final class CollectionIndexes {
+
+        private final String collection;
+        //declared but not on the server
+        private final List<String> missing;
+        //on the server but not declared
+        private final List<String> undeclared;
+        //never used by a query since the server started
+        private final List<String> unused;
+
+        public CollectionIndexes(String collection, List<String> missing, List<String> undeclared, List<String> unused) {
+            this.collection = collection;
+            this.missing = missing;
+            this.undeclared = undeclared;
+            this.unused = unused;
+        }
+    }
+}
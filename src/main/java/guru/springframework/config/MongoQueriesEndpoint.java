@@ -0,0 +1,33 @@
+package guru.springframework.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/mongoqueries lists the Mongo query shapes by total time with their plans; a DELETE starts over.
+ */
+@Component
+@Endpoint(id = "mongoqueries")
+public class MongoQueriesEndpoint {
+
+    private final MongoQueryListener mongoQueryListener;
+
+    public MongoQueriesEndpoint(MongoQueryListener mongoQueryListener) {
+        this.mongoQueryListener = mongoQueryListener;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> queries() {
+        return mongoQueryListener.getStats();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        mongoQueryListener.reset();
+    }
+}
@@ -0,0 +1,348 @@
+package guru.springframework.config;
+
+import com.mongodb.RequestContext;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.ReactiveContextProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Aggregates every command the client sends by query shape, logs the ones slower than the threshold with the
+ * route of the request that issued them, and explains the first query of each shape plus a sample of the rest
+ * to record its plan and the documents it examined. The route reaches the driver through the Reactor context,
+ * see {@link #contextProvider()}.
+ */
+@Slf4j
+public class MongoQueryListener implements CommandListener {
+
+    static final String OTHER_SHAPES = "(other)";
+
+    private static final BsonString REDACTED = new BsonString("?");
+    private static final List<String> SHAPE_FIELDS = List.of("filter", "query", "q", "key", "pipeline", "sort");
+    private static final Set<String> UNREDACTED_FIELDS = Set.of("sort", "$sort", "key", "projection", "$project");
+    private static final Set<String> EXPLAINABLE_COMMANDS = Set.of("find", "aggregate", "count", "distinct");
+    private static final Set<String> NOT_EXPLAINABLE_FIELDS = Set.of("lsid", "txnNumber", "autocommit",
+            "startTransaction", "readConcern");
+
+    private final MongoClientProperties.Queries properties;
+    private final ObjectProvider<MongoClient> mongoClient;
+    private final Map<String, MongoQueryStats> stats = new ConcurrentHashMap<>();
+    private final Map<Integer, StartedCommand> startedCommands = new ConcurrentHashMap<>();
+
+    public MongoQueryListener(MongoClientProperties.Queries properties, ObjectProvider<MongoClient> mongoClient) {
+        this.properties = properties;
+        this.mongoClient = mongoClient;
+    }
+
+    /**
+     * Hands the exchange ServerWebExchangeContextFilter put in the Reactor context over to the driver, which
+     * passes it to the command events of the operations subscribed under that request.
+     */
+    public static ReactiveContextProvider contextProvider() {
+        return subscriber -> {
+            ExchangeRequestContext context = new ExchangeRequestContext();
+            if (subscriber instanceof CoreSubscriber<?> coreSubscriber) {
+                ServerWebExchangeContextFilter.getExchange(coreSubscriber.currentContext())
+                        .ifPresent(exchange -> context.put(ServerWebExchange.class, exchange));
+            }
+            return context;
+        };
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        //the explains sent below
+        if (event.getCommandName().equals("explain")) {
+            return;
+        }
+
+        String shape = shape(event.getCommandName(), event.getCommand());
+        boolean firstOfShape = !stats.containsKey(shape);
+        MongoQueryStats queryStats = stats(shape);
+        startedCommands.put(event.getRequestId(), new StartedCommand(queryStats, route(event.getRequestContext())));
+
+        boolean sampled = firstOfShape || ThreadLocalRandom.current().nextDouble() < properties.getExplainSampleRate();
+        if (sampled && queryStats.getShape().equals(shape) && EXPLAINABLE_COMMANDS.contains(event.getCommandName())) {
+            explain(event.getDatabaseName(), event.getCommand(), queryStats);
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        completed(event.getRequestId(), event.getElapsedTime(TimeUnit.NANOSECONDS), returned(event.getResponse()), false);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        completed(event.getRequestId(), event.getElapsedTime(TimeUnit.NANOSECONDS), 0, true);
+    }
+
+    /**
+     * Snapshots of the stats by query shape, the most time consuming first.
+     */
+    public List<Map<String, Object>> getStats() {
+        return stats.values().stream()
+                .sorted(Comparator.comparingLong(MongoQueryStats::getTotalNanos).reversed())
+                .map(MongoQueryStats::snapshot)
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    private MongoQueryStats stats(String shape) {
+        if (!stats.containsKey(shape) && stats.size() >= properties.getMaxShapes()) {
+            shape = OTHER_SHAPES;
+        }
+        return stats.computeIfAbsent(shape, MongoQueryStats::new);
+    }
+
+    private void completed(int requestId, long nanos, long returned, boolean failed) {
+        StartedCommand command = startedCommands.remove(requestId);
+        if (command == null) {
+            return;
+        }
+
+        boolean slow = nanos >= properties.getSlowThreshold().toNanos();
+        command.stats.record(nanos, returned, failed, slow, command.route);
+
+        if (slow) {
+            String plan = command.stats.getPlan();
+            log.warn("Slow Mongo query took " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms"
+                    + (failed ? " and failed" : "") + " in " + (command.route != null ? command.route : "no request")
+                    + ": " + command.stats.getShape() + ", plan " + (plan != null ? plan : "not sampled yet"));
+        }
+    }
+
+    private void explain(String database, BsonDocument command, MongoQueryStats queryStats) {
+        MongoClient client = mongoClient.getIfAvailable();
+        if (client == null || writesOutput(command)) {
+            return;
+        }
+
+        BsonDocument explain = new BsonDocument("explain", explainable(command))
+                .append("verbosity", new BsonString("executionStats"));
+
+        //sent from another thread, this one may be inside the connection pool, which cannot be entered again from here
+        Mono.from(client.getDatabase(database).runCommand(explain, BsonDocument.class))
+                .subscribeOn(Schedulers.parallel())
+                .subscribe(result -> explained(result, queryStats),
+                        e -> log.debug("Could not explain " + queryStats.getShape(), e));
+    }
+
+    static void explained(BsonDocument explain, MongoQueryStats queryStats) {
+        BsonDocument cursorStage = cursorStage(explain);
+        BsonDocument queryPlanner = cursorStage.getDocument("queryPlanner", new BsonDocument());
+        BsonDocument executionStats = cursorStage.getDocument("executionStats", new BsonDocument());
+
+        queryStats.explained(plan(queryPlanner.getDocument("winningPlan", new BsonDocument())),
+                number(executionStats, "totalDocsExamined"), number(executionStats, "totalKeysExamined"),
+                number(executionStats, "nReturned"));
+    }
+
+    /**
+     * The shape of a command: its name, collection and the fields that select documents, with the values left
+     * out so the same query with other arguments counts as the same shape and no data ends up in the logs.
+     */
+    static String shape(String commandName, BsonDocument command) {
+        StringBuilder shape = new StringBuilder(commandName);
+
+        BsonValue collection = command.get(commandName);
+        if (collection != null && collection.isString()) {
+            shape.append(' ').append(collection.asString().getValue());
+        } else if (command.isString("collection")) {
+            shape.append(' ').append(command.getString("collection").getValue());
+        }
+
+        BsonDocument selection = command;
+        //update and delete statements come as an array, the first one stands for the batch
+        for (String statements : List.of("updates", "deletes")) {
+            if (command.isArray(statements) && !command.getArray(statements).isEmpty()
+                    && command.getArray(statements).get(0).isDocument()) {
+                selection = command.getArray(statements).get(0).asDocument();
+            }
+        }
+
+        for (String field : SHAPE_FIELDS) {
+            BsonValue value = selection.get(field);
+            if (value != null) {
+                BsonValue shown = UNREDACTED_FIELDS.contains(field) ? value : redact(value);
+                shape.append(' ').append(new BsonDocument(field, shown).toJson());
+            }
+        }
+        return shape.toString();
+    }
+
+    static BsonValue redact(BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument redacted = new BsonDocument();
+            value.asDocument().forEach((key, field) ->
+                    redacted.append(key, UNREDACTED_FIELDS.contains(key) ? field : redact(field)));
+            return redacted;
+        }
+        if (value.isArray() && !value.asArray().isEmpty() && value.asArray().stream().allMatch(BsonValue::isDocument)) {
+            return new BsonArray(value.asArray().stream().map(MongoQueryListener::redact).toList());
+        }
+        return REDACTED;
+    }
+
+    /**
+     * The winning plan from the root stage down, such as LIMIT <- FETCH <- IXSCAN(categoryIds_1__id_1).
+     */
+    static String plan(BsonDocument winningPlan) {
+        //slot based execution nests the classic plan
+        if (winningPlan.isDocument("queryPlan")) {
+            winningPlan = winningPlan.getDocument("queryPlan");
+        }
+        if (!winningPlan.isString("stage")) {
+            return "unknown";
+        }
+
+        String stage = winningPlan.getString("stage").getValue();
+        if (winningPlan.isString("indexName")) {
+            stage += "(" + winningPlan.getString("indexName").getValue() + ")";
+        }
+        if (winningPlan.isDocument("inputStage")) {
+            return stage + " <- " + plan(winningPlan.getDocument("inputStage"));
+        }
+        if (winningPlan.isArray("inputStages")) {
+            return stage + " <- [" + winningPlan.getArray("inputStages").stream()
+                    .filter(BsonValue::isDocument)
+                    .map(input -> plan(input.asDocument()))
+                    .collect(Collectors.joining(", ")) + "]";
+        }
+        return stage;
+    }
+
+    static long returned(BsonDocument response) {
+        if (response == null) {
+            return 0;
+        }
+        if (response.isDocument("cursor")) {
+            BsonDocument cursor = response.getDocument("cursor");
+            return cursor.getArray("firstBatch", cursor.getArray("nextBatch", new BsonArray())).size();
+        }
+        if (response.isArray("values")) {
+            return response.getArray("values").size();
+        }
+        return number(response, "n");
+    }
+
+    /**
+     * An aggregation that is not run by the query engine as a whole reports its plan in a $cursor first stage.
+     */
+    private static BsonDocument cursorStage(BsonDocument explain) {
+        if (!explain.containsKey("queryPlanner") && explain.isArray("stages") && !explain.getArray("stages").isEmpty()) {
+            BsonValue first = explain.getArray("stages").get(0);
+            if (first.isDocument() && first.asDocument().isDocument("$cursor")) {
+                return first.asDocument().getDocument("$cursor");
+            }
+        }
+        return explain;
+    }
+
+    private static BsonDocument explainable(BsonDocument command) {
+        //the event's document is only valid during the callback
+        BsonDocument copy = command.clone();
+        BsonDocument explainable = new BsonDocument();
+        copy.forEach((key, value) -> {
+            if (!key.startsWith("$") && !NOT_EXPLAINABLE_FIELDS.contains(key)) {
+                explainable.append(key, value);
+            }
+        });
+        return explainable;
+    }
+
+    private static boolean writesOutput(BsonDocument command) {
+        return command.isArray("pipeline") && command.getArray("pipeline").stream()
+                .anyMatch(stage -> stage.isDocument()
+                        && (stage.asDocument().containsKey("$out") || stage.asDocument().containsKey("$merge")));
+    }
+
+    private static long number(BsonDocument document, String key) {
+        return document.isNumber(key) ? document.getNumber(key).longValue() : 0;
+    }
+
+    private static String route(RequestContext context) {
+        if (context == null || !context.hasKey(ServerWebExchange.class)) {
+            return null;
+        }
+        return RequestRoutes.describe(context.get(ServerWebExchange.class));
+    }
+
+    private static class StartedCommand {
+
+        private final MongoQueryStats stats;
+        private final String route;
+
+        StartedCommand(MongoQueryStats stats, String route) {
+            this.stats = stats;
+            this.route = route;
+        }
+    }
+
+    static class ExchangeRequestContext implements RequestContext {
+
+        private final Map<Object, Object> values = new ConcurrentHashMap<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key) {
+            return (T) values.get(key);
+        }
+
+        @Override
+        public boolean hasKey(Object key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return values.isEmpty();
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            values.put(key, value);
+        }
+
+        @Override
+        public void delete(Object key) {
+            values.remove(key);
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+
+        @Override
+        public Stream<Map.Entry<Object, Object>> stream() {
+            return values.entrySet().stream();
+        }
+    }
+}
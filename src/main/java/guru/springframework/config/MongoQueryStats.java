@@ -0,0 +1,87 @@
+package guru.springframework.config;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Totals for one query shape: a command on a collection with the values left out of its filter. Documents
+ * examined and the plan come from the latest sampled explain, so they lag behind the timings.
+ */
+public class MongoQueryStats {
+
+    @Getter
+    private final String shape;
+
+    private long count;
+    private long failures;
+    private long slow;
+    private long totalNanos;
+    private long maxNanos;
+    private long returned;
+    private String lastRoute;
+
+    private String plan;
+    private Long docsExamined;
+    private Long keysExamined;
+    private Long explainReturned;
+
+    public MongoQueryStats(String shape) {
+        this.shape = shape;
+    }
+
+    public synchronized void record(long nanos, long returned, boolean failed, boolean slow, String route) {
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        this.returned += returned;
+        if (failed) {
+            failures++;
+        }
+        if (slow) {
+            this.slow++;
+        }
+        if (route != null) {
+            lastRoute = route;
+        }
+    }
+
+    public synchronized void explained(String plan, long docsExamined, long keysExamined, long returned) {
+        this.plan = plan;
+        this.docsExamined = docsExamined;
+        this.keysExamined = keysExamined;
+        this.explainReturned = returned;
+    }
+
+    public synchronized String getPlan() {
+        return plan;
+    }
+
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("shape", shape);
+        snapshot.put("count", count);
+        snapshot.put("failures", failures);
+        snapshot.put("slow", slow);
+        snapshot.put("totalMs", millis(totalNanos));
+        snapshot.put("meanMs", count > 0 ? millis(totalNanos / count) : 0);
+        snapshot.put("maxMs", millis(maxNanos));
+        snapshot.put("returned", returned);
+        snapshot.put("lastRoute", lastRoute);
+        snapshot.put("plan", plan);
+        snapshot.put("docsExamined", docsExamined);
+        snapshot.put("keysExamined", keysExamined);
+        snapshot.put("explainReturned", explainReturned);
+        return snapshot;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,116 @@
+package guru.springframework.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every public service and repository method. A Mono or Flux is timed from subscription to its
+ * termination, not when it is returned, since that is when the work happens; anything else is timed around
+ * the call. The outcome tag is success, error or cancelled, and errors carry the exception class.
+ */
+@Aspect
+@Component
+public class ReactiveTimingAspect {
+
+    static final String SERVICE_TIMER = "recipe.service";
+    static final String REPOSITORY_TIMER = "recipe.repository";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, String> typeNames = new ConcurrentHashMap<>();
+
+    public ReactiveTimingAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Pointcut("execution(public * *(..)) && !execution(* java.lang.Object.*(..))")
+    void publicMethod() {
+    }
+
+    @Pointcut("@within(org.springframework.stereotype.Service)")
+    void service() {
+    }
+
+    //spring data repositories are proxies, so they are matched by type rather than by annotation
+    @Pointcut("target(org.springframework.data.repository.Repository) "
+            + "|| (@within(org.springframework.stereotype.Repository) && within(guru.springframework..*))")
+    void repository() {
+    }
+
+    @Around("publicMethod() && service()")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint);
+    }
+
+    @Around("publicMethod() && repository() && !service()")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_TIMER, joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        String type = typeNames.computeIfAbsent(joinPoint.getTarget().getClass(), ReactiveTimingAspect::typeName);
+        String method = joinPoint.getSignature().getName();
+
+        Timer.Sample callSample = Timer.start(meterRegistry);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            stop(callSample, name, type, method, "error", e);
+            throw e;
+        }
+
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                return mono
+                        .doOnSuccess(value -> stop(sample, name, type, method, "success", null))
+                        .doOnError(e -> stop(sample, name, type, method, "error", e))
+                        .doOnCancel(() -> stop(sample, name, type, method, "cancelled", null));
+            });
+        }
+        if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                return flux
+                        .doOnComplete(() -> stop(sample, name, type, method, "success", null))
+                        .doOnError(e -> stop(sample, name, type, method, "error", e))
+                        .doOnCancel(() -> stop(sample, name, type, method, "cancelled", null));
+            });
+        }
+        stop(callSample, name, type, method, "success", null);
+        return result;
+    }
+
+    private void stop(Timer.Sample sample, String name, String type, String method, String outcome, Throwable error) {
+        sample.stop(Timer.builder(name)
+                .tag("type", type)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .tag("exception", error == null ? "none" : error.getClass().getSimpleName())
+                .register(meterRegistry));
+    }
+
+    /**
+     * The application interface the bean implements, so RecipeServiceImpl and a repository proxy are
+     * reported as RecipeService and RecipeReactiveRepository.
+     */
+    private static String typeName(Class<?> targetClass) {
+        for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(targetClass)) {
+            if (type.getName().startsWith("guru.springframework.") && !type.getSimpleName().endsWith("Custom")) {
+                return type.getSimpleName();
+            }
+        }
+        return ClassUtils.getUserClass(targetClass).getSimpleName();
+    }
+}
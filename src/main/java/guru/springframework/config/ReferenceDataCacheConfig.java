@@ -0,0 +1,87 @@
+package guru.springframework.config;
+
+import guru.springframework.domain.Category;
+import guru.springframework.domain.UnitOfMeasure;
+import guru.springframework.repositories.reactive.CategoryReactiveRepository;
+import guru.springframework.repositories.reactive.UnitOfMeasureReactiveRepository;
+import guru.springframework.services.ReferenceDataCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * In-memory caches for the unit of measure and category collections. They are only written by the
+ * bootstrap, so a TTL is enough to pick up changes; a change stream would need a replica set.
+ */
+@Slf4j
+@Configuration
+public class ReferenceDataCacheConfig {
+
+    @Value("${recipe.reference-data.max-size:1000}")
+    private int maxSize;
+
+    @Value("${recipe.reference-data.ttl:PT10M}")
+    private Duration ttl;
+
+    @Bean
+    public ReferenceDataCache<UnitOfMeasure> unitOfMeasureCache(UnitOfMeasureReactiveRepository unitOfMeasureReactiveRepository) {
+        return new ReferenceDataCache<>("unitOfMeasure", unitOfMeasureReactiveRepository::findAll,
+                unitOfMeasureReactiveRepository::findById, UnitOfMeasure::getId, maxSize, ttl);
+    }
+
+    @Bean
+    public ReferenceDataCache<Category> categoryCache(CategoryReactiveRepository categoryReactiveRepository) {
+        return new ReferenceDataCache<>("category", categoryReactiveRepository::findAll,
+                categoryReactiveRepository::findById, Category::getId, maxSize, ttl);
+    }
+
+    /**
+     * Hits and misses per cache as cache.gets, tagged like Micrometer's own cache metrics.
+     */
+    @Bean
+    public MeterBinder referenceDataCacheMetrics(List<ReferenceDataCache<?>> caches) {
+        return meterRegistry -> caches.forEach(cache -> {
+            FunctionCounter.builder("cache.gets", cache, ReferenceDataCache::getHits)
+                    .tag("cache", cache.getName())
+                    .tag("result", "hit")
+                    .register(meterRegistry);
+            FunctionCounter.builder("cache.gets", cache, ReferenceDataCache::getMisses)
+                    .tag("cache", cache.getName())
+                    .tag("result", "miss")
+                    .register(meterRegistry);
+        });
+    }
+
+    @Bean
+    public ReferenceDataCacheWarmer referenceDataCacheWarmer(List<ReferenceDataCache<?>> caches) {
+        return new ReferenceDataCacheWarmer(caches);
+    }
+
+    static class ReferenceDataCacheWarmer {
+
+        private final List<ReferenceDataCache<?>> caches;
+
+        ReferenceDataCacheWarmer(List<ReferenceDataCache<?>> caches) {
+            this.caches = caches;
+        }
+
+        @EventListener(ApplicationReadyEvent.class)
+        public void warm() {
+            Flux.fromIterable(caches)
+                    .flatMap(cache -> cache.refresh()
+                            .doOnError(e -> log.error("Error warming " + cache.getName() + " cache", e))
+                            .onErrorResume(e -> Mono.empty()))
+                    .subscribe();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package guru.springframework.config;
+
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Describes a request by the controller route that handles it, such as GET /recipe/{id}/show (/recipe/1/show),
+ * so reports about the same endpoint can be grouped. Before a handler is picked only the path is known.
+ */
+public final class RequestRoutes {
+
+    private RequestRoutes() {
+    }
+
+    public static String describe(ServerWebExchange exchange) {
+        Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String path = exchange.getRequest().getPath().value();
+
+        return exchange.getRequest().getMethod() + " " + (pattern != null ? pattern + " (" + path + ")" : path);
+    }
+}
@@ -0,0 +1,60 @@
+package guru.springframework.controllers;
+
+import guru.springframework.exceptions.NotFoundException;
+import guru.springframework.services.CategoryService;
+import guru.springframework.services.RecipeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@Controller
+public class CategoryController {
+
+    static final int PAGE_SIZE = 20;
+
+    private final CategoryService categoryService;
+    private final RecipeService recipeService;
+
+    public CategoryController(CategoryService categoryService, RecipeService recipeService) {
+        this.categoryService = categoryService;
+        this.recipeService = recipeService;
+    }
+
+    @GetMapping("/category/{id}/recipes")
+    public Mono<String> listRecipes(@PathVariable String id, @RequestParam(required = false) String after, Model model) {
+        log.debug("Getting recipes for category id: " + id);
+
+        model.addAttribute("category", categoryService.findCategoryById(id)
+                .switchIfEmpty(Mono.error(new NotFoundException("Category Not Found. For ID value: " + id))));
+
+        return recipeService.listRecipesInCategory(id, after, PAGE_SIZE + 1)
+                .collectList()
+                .map(pageAndOneMore -> {
+                    KeysetPage page = new KeysetPage(pageAndOneMore, PAGE_SIZE);
+                    model.addAttribute("recipes", page.rows());
+                    model.addAttribute("nextCursor", page.nextCursor());
+
+                    return "category/recipes";
+                });
+    }
+
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    @ExceptionHandler(NotFoundException.class)
+    public String handleNotFound(Exception exception, Model model){
+
+        log.error("Handling not found exception");
+        log.error(exception.getMessage());
+
+        model.addAttribute("exception", exception);
+
+        return "404error";
+    }
+}
@@ -1,5 +1,6 @@
 package guru.springframework.controllers;
 
+import guru.springframework.exceptions.InvalidImageException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.ui.Model;
@@ -28,4 +29,15 @@ public class ControllerExceptionHandler {
 
         return "400error";
     }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(InvalidImageException.class)
+    public String handleInvalidImage(Exception exception, Model model){
+
+        log.warn("Rejected image upload: " + exception.getMessage());
+
+        model.addAttribute("exception", exception);
+
+        return "400error";
+    }
 }
@@ -1,19 +1,32 @@
 package guru.springframework.controllers;
 
-import guru.springframework.commands.RecipeCommand;
+import guru.springframework.domain.ImageVariant;
+import guru.springframework.domain.RecipeImage;
 import guru.springframework.services.ImageService;
 import guru.springframework.services.RecipeService;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.bind.annotation.RequestPart;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Created by jt on 7/3/17.
@@ -37,28 +50,98 @@ public class ImageController {
     }
 
     @PostMapping("recipe/{id}/image")
-    public String handleImagePost(@PathVariable String id, @RequestParam("imagefile") MultipartFile file){
+    public Mono<String> handleImagePost(@PathVariable String id, @RequestPart("imagefile") Mono<FilePart> file){
 
-        imageService.saveImageFile(id, file);
-
-        return "redirect:/recipe/" + id + "/show";
+        return file.flatMap(filePart -> imageService.saveImageFile(id, filePart))
+                .thenReturn("redirect:/recipe/" + id + "/show");
     }
-/*
-    @GetMapping("recipe/{id}/recipeimage")
-    public void renderImageFromDB(@PathVariable String id, HttpServletResponse response) throws IOException {
-        RecipeCommand recipeCommand = recipeService.findCommandById(id);
 
-        if (recipeCommand.getImage() != null) {
-            byte[] byteArray = new byte[recipeCommand.getImage().length];
-            int i = 0;
+    /**
+     * Streams the stored image as-is. The stored file is looked up before any header is written, so image
+     * metadata without a file is a 404. If-None-Match/If-Modified-Since are answered with 304 by the
+     * ResponseEntity result handler, so the content is only read from storage when it is actually sent.
+     * The optional variant (thumbnail, medium, full) falls back to the original until it has been generated.
+     * Only image types from {@link RecipeImage#IMAGE_CONTENT_TYPES} are served inline, anything else stored
+     * is sent as a download, so an upload cannot run as a page of this site.
+     */
+    @GetMapping("recipe/{id}/recipeimage")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> renderImageFromDB(@PathVariable String id,
+                                                                    @RequestParam(required = false) String variant,
+                                                                    @RequestHeader HttpHeaders requestHeaders){
 
-            for (Byte wrappedByte : recipeCommand.getImage()){
-                byteArray[i++] = wrappedByte; //auto unboxing
+        ImageVariant imageVariant = null;
+        if (variant != null) {
+            try {
+                imageVariant = ImageVariant.valueOf(variant.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return Mono.just(ResponseEntity.badRequest().build());
             }
+        }
+
+        return imageService.findImageByRecipeId(id, imageVariant)
+                .flatMap(image -> imageService.openImageContent(image)
+                        .map(content -> imageResponse(image, content, requestHeaders)))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<Flux<DataBuffer>> imageResponse(RecipeImage image, Flux<DataBuffer> content,
+                                                           HttpHeaders requestHeaders) {
+        String eTag = "\"" + image.getContentHash() + "\"";
+        long length = image.getLength();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+        headers.setLastModified(image.getUploadDate().toInstant());
+        headers.setCacheControl(CacheControl.noCache().cachePublic());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.set("X-Content-Type-Options", "nosniff");
+        if (image.getContentType() != null && RecipeImage.IMAGE_CONTENT_TYPES.contains(image.getContentType())) {
+            headers.setContentType(MediaType.parseMediaType(image.getContentType()));
+        } else {
+            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+            headers.setContentDisposition(ContentDisposition.attachment().build());
+        }
+
+        HttpRange range = singleRange(requestHeaders, eTag);
+
+        if (range == null) {
+            headers.setContentLength(length);
+            return ResponseEntity.ok().headers(headers)
+                    .body(content);
+        }
+
+        long start = range.getRangeStart(length);
+        long end = range.getRangeEnd(length);
 
-            response.setContentType("image/jpeg");
-            InputStream is = new ByteArrayInputStream(byteArray);
-            IOUtils.copy(is, response.getOutputStream());
+        if (start >= length || start > end) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
         }
-    }*/
+
+        long rangeLength = end - start + 1;
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        headers.setContentLength(rangeLength);
+
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(headers)
+                .body(DataBufferUtils.takeUntilByteCount(
+                        DataBufferUtils.skipUntilByteCount(content, start), rangeLength));
+    }
+
+    /**
+     * Only a single range is served; multiple ranges, malformed headers or a stale If-Range get the full image.
+     */
+    private HttpRange singleRange(HttpHeaders requestHeaders, String eTag) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+
+        if (ifRange != null && !ifRange.equals(eTag)) {
+            return null;
+        }
+
+        try {
+            List<HttpRange> ranges = requestHeaders.getRange();
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
@@ -5,6 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Mono;
 
 /**
  * Created by jt on 6/1/17.
@@ -13,6 +15,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 @Controller
 public class IndexController {
 
+    static final int PAGE_SIZE = 20;
+
     private final RecipeService recipeService;
 
     public IndexController(RecipeService recipeService) {
@@ -20,11 +24,17 @@ public class IndexController {
     }
 
     @RequestMapping({"", "/", "/index"})
-    public String getIndexPage(Model model) {
+    public Mono<String> getIndexPage(@RequestParam(required = false) String after, Model model) {
         log.debug("Getting Index page");
 
-        model.addAttribute("recipes", recipeService.getRecipes());
+        return recipeService.listRecipes(after, PAGE_SIZE + 1)
+                .collectList()
+                .map(pageAndOneMore -> {
+                    KeysetPage page = new KeysetPage(pageAndOneMore, PAGE_SIZE);
+                    model.addAttribute("recipes", page.rows());
+                    model.addAttribute("nextCursor", page.nextCursor());
 
-        return "index";
+                    return "index";
+                });
     }
 }
@@ -0,0 +1,33 @@
+package guru.springframework.controllers;
+
+import guru.springframework.domain.RecipeSummary;
+
+import java.util.List;
+
+/**
+ * A page of recipe summaries listed with one row more than the page shows, so the one query answers both the
+ * rows and whether there is a next page. The listing is resolved before the page renders; at one page of rows
+ * there is nothing worth streaming, and the next link needs the extra row anyway.
+ */
+final class KeysetPage {
+
+    private final List<RecipeSummary> rows;
+    private final String nextCursor;
+
+    KeysetPage(List<RecipeSummary> pageAndOneMore, int size) {
+        this.rows = pageAndOneMore.subList(0, Math.min(size, pageAndOneMore.size()));
+        //a row after this page means there is a next one, starting after the last row shown
+        this.nextCursor = pageAndOneMore.size() > size ? pageAndOneMore.get(size - 1).getId() : null;
+    }
+
+    List<RecipeSummary> rows() {
+        return rows;
+    }
+
+    /**
+     * Id of the last row of this page, or null if no rows follow it.
+     */
+    String nextCursor() {
+        return nextCursor;
+    }
+}
@@ -1,10 +1,14 @@
 package guru.springframework.controllers;
 
 import guru.springframework.commands.RecipeCommand;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeSearchResult;
 import guru.springframework.exceptions.NotFoundException;
+import guru.springframework.services.CategoryService;
 import guru.springframework.services.RecipeService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -12,6 +16,9 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
+import java.util.Arrays;
+import java.util.List;
+
 
 /**
  * Created by jt on 6/19/17.
@@ -21,20 +28,68 @@ import reactor.core.publisher.Mono;
 public class RecipeController {
 
     private static final String RECIPE_RECIPEFORM_URL = "recipe/recipeform";
+    static final int SEARCH_PAGE_SIZE = 20;
+
     private final RecipeService recipeService;
+    private final CategoryService categoryService;
 
-    public RecipeController(RecipeService recipeService) {
+    public RecipeController(RecipeService recipeService, CategoryService categoryService) {
         this.recipeService = recipeService;
+        this.categoryService = categoryService;
     }
 
     @GetMapping("/recipe/{id}/show")
     public String showById(@PathVariable String id, Model model){
 
-        model.addAttribute("recipe", recipeService.findById(id));
+        Mono<Recipe> recipe = recipeService.findById(id).cache();
+
+        model.addAttribute("recipe", recipe);
+        model.addAttribute("categories", recipe.flatMapMany(found -> categoryService.findCategoriesByIds(found.getCategoryIds()))
+                .collectList());
 
         return "recipe/show";
     }
 
+    @GetMapping("recipe/search")
+    public String search(@RequestParam(required = false) String q, @RequestParam(defaultValue = "0") int page, Model model){
+        int currentPage = Math.max(page, 0);
+
+        //one match more than the page holds tells whether there is a next page
+        Mono<List<RecipeSearchResult>> matches = recipeService
+                .searchRecipes(q, (long) currentPage * SEARCH_PAGE_SIZE, SEARCH_PAGE_SIZE + 1)
+                .collectList()
+                .cache();
+
+        model.addAttribute("q", q);
+        model.addAttribute("page", currentPage);
+        model.addAttribute("results", matches.map(results -> results.subList(0, Math.min(results.size(), SEARCH_PAGE_SIZE))));
+        model.addAttribute("hasNext", matches.map(results -> results.size() > SEARCH_PAGE_SIZE));
+
+        return "recipe/search";
+    }
+
+    /**
+     * Ingredients are given comma separated; missing lets recipes lack up to that many of the "all" ingredients.
+     */
+    @GetMapping("recipe/ingredients")
+    public String searchByIngredients(@RequestParam(required = false) String all, @RequestParam(required = false) String any,
+                                      @RequestParam(required = false) String none, @RequestParam(defaultValue = "0") int missing,
+                                      Model model){
+        boolean searched = all != null || any != null || none != null;
+
+        model.addAttribute("all", all);
+        model.addAttribute("any", any);
+        model.addAttribute("none", none);
+        model.addAttribute("missing", Math.max(missing, 0));
+        model.addAttribute("searched", searched);
+        model.addAttribute("matches", searched
+                ? recipeService.findByIngredients(ingredients(all), ingredients(any), ingredients(none),
+                        Math.max(missing, 0), SEARCH_PAGE_SIZE).collectList()
+                : Mono.just(List.of()));
+
+        return "recipe/ingredientsearch";
+    }
+
     @GetMapping("recipe/new")
     public String newRecipe(Model model){
         model.addAttribute("recipe", new RecipeCommand());
@@ -60,18 +115,34 @@ public class RecipeController {
             return Mono.just(RECIPE_RECIPEFORM_URL);
         }
 
-        return recipeService.saveRecipeCommand(command).map(recipeCommand ->
-                "redirect:/recipe/" + recipeCommand.getId() + "/show");
+        return recipeService.saveRecipeCommand(command)
+                .map(recipeCommand -> "redirect:/recipe/" + recipeCommand.getId() + "/show")
+                .onErrorResume(OptimisticLockingFailureException.class, exception -> {
+                    log.debug(exception.getMessage());
+                    bindingResult.reject("recipe.conflict");
+
+                    return Mono.just(RECIPE_RECIPEFORM_URL);
+                });
 
     }
 
     @GetMapping("recipe/{id}/delete")
-    public String deleteById(@PathVariable String id){
+    public Mono<String> deleteById(@PathVariable String id){
 
         log.debug("Deleting id: " + id);
 
-        recipeService.deleteById(id);
-        return "redirect:/";
+        return recipeService.deleteById(id)
+                .thenReturn("redirect:/");
+    }
+
+    static List<String> ingredients(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(text.split(","))
+                .map(String::trim)
+                .filter(ingredient -> !ingredient.isEmpty())
+                .toList();
     }
 
     @ResponseStatus(HttpStatus.NOT_FOUND)
@@ -1,30 +1,18 @@
 package guru.springframework.converters;
 
-
 import guru.springframework.commands.CategoryCommand;
 import guru.springframework.domain.Category;
-import lombok.Synchronized;
+import org.mapstruct.Mapper;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.Nullable;
-import org.springframework.stereotype.Component;
 
 /**
  * Created by jt on 6/21/17.
  */
-@Component
-public class CategoryCommandToCategory implements Converter<CategoryCommand, Category>{
+@Mapper(config = ConverterConfig.class)
+public interface CategoryCommandToCategory extends Converter<CategoryCommand, Category> {
 
-    @Synchronized
     @Nullable
     @Override
-    public Category convert(CategoryCommand source) {
-        if (source == null) {
-            return null;
-        }
-
-        final Category category = new Category();
-        category.setId(source.getId());
-        category.setDescription(source.getDescription());
-        return category;
-    }
+    Category convert(CategoryCommand source);
 }
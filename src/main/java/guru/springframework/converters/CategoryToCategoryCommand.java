@@ -2,30 +2,17 @@ package guru.springframework.converters;
 
 import guru.springframework.commands.CategoryCommand;
 import guru.springframework.domain.Category;
-import lombok.Synchronized;
+import org.mapstruct.Mapper;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.Nullable;
-import org.springframework.stereotype.Component;
 
 /**
  * Created by jt on 6/21/17.
  */
-@Component
-public class CategoryToCategoryCommand implements Converter<Category, CategoryCommand> {
+@Mapper(config = ConverterConfig.class)
+public interface CategoryToCategoryCommand extends Converter<Category, CategoryCommand> {
 
-    @Synchronized
     @Nullable
     @Override
-    public CategoryCommand convert(Category source) {
-        if (source == null) {
-            return null;
-        }
-
-        final CategoryCommand categoryCommand = new CategoryCommand();
-
-        categoryCommand.setId(source.getId());
-        categoryCommand.setDescription(source.getDescription());
-
-        return categoryCommand;
-    }
+    CategoryCommand convert(Category source);
 }
@@ -0,0 +1,16 @@
+package guru.springframework.converters;
+
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.MapperConfig;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Shared by all converters. The implementations are generated at compile time as Spring beans, and a target
+ * property no mapping accounts for fails the build instead of being silently left empty.
+ */
+@MapperConfig(componentModel = MappingConstants.ComponentModel.SPRING,
+        injectionStrategy = InjectionStrategy.CONSTRUCTOR,
+        unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface ConverterConfig {
+}
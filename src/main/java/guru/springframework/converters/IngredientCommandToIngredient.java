@@ -2,38 +2,31 @@ package guru.springframework.converters;
 
 import guru.springframework.commands.IngredientCommand;
 import guru.springframework.domain.Ingredient;
-import guru.springframework.domain.Recipe;
+import org.mapstruct.AfterMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.Nullable;
-import org.springframework.stereotype.Component;
 
 /**
  * Created by jt on 6/21/17.
  */
-@Component
-public class IngredientCommandToIngredient implements Converter<IngredientCommand, Ingredient> {
-
-    private final UnitOfMeasureCommandToUnitOfMeasure uomConverter;
-
-    public IngredientCommandToIngredient(UnitOfMeasureCommandToUnitOfMeasure uomConverter) {
-        this.uomConverter = uomConverter;
-    }
+@Mapper(config = ConverterConfig.class, uses = UnitOfMeasureCommandToUnitOfMeasure.class)
+public interface IngredientCommandToIngredient extends Converter<IngredientCommand, Ingredient> {
 
     @Nullable
     @Override
-    public Ingredient convert(IngredientCommand source) {
-        if (source == null) {
-            return null;
-        }
+    @Mapping(target = "id", ignore = true)
+    Ingredient convert(IngredientCommand source);
 
-        final Ingredient ingredient = new Ingredient();
-        if(source.getId() != null && !source.getId().isEmpty()) {
+    /**
+     * A new ingredient has no id in the form, it keeps the one it was created with.
+     */
+    @AfterMapping
+    default void copyId(IngredientCommand source, @MappingTarget Ingredient ingredient) {
+        if (source.getId() != null && !source.getId().isEmpty()) {
             ingredient.setId(source.getId());
         }
-
-        ingredient.setAmount(source.getAmount());
-        ingredient.setDescription(source.getDescription());
-        ingredient.setUom(uomConverter.convert(source.getUom()));
-        return ingredient;
     }
 }
@@ -2,36 +2,20 @@ package guru.springframework.converters;
 
 import guru.springframework.commands.IngredientCommand;
 import guru.springframework.domain.Ingredient;
-import lombok.Synchronized;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.Nullable;
-import org.springframework.stereotype.Component;
 
 /**
  * Created by jt on 6/21/17.
  */
-@Component
-public class IngredientToIngredientCommand implements Converter<Ingredient, IngredientCommand> {
+@Mapper(config = ConverterConfig.class, uses = UnitOfMeasureToUnitOfMeasureCommand.class)
+public interface IngredientToIngredientCommand extends Converter<Ingredient, IngredientCommand> {
 
-    private final UnitOfMeasureToUnitOfMeasureCommand uomConverter;
-
-    public IngredientToIngredientCommand(UnitOfMeasureToUnitOfMeasureCommand uomConverter) {
-        this.uomConverter = uomConverter;
-    }
-
-    @Synchronized
+    //the ingredient does not know its recipe, the services set it
     @Nullable
     @Override
-    public IngredientCommand convert(Ingredient ingredient) {
-        if (ingredient == null) {
-            return null;
-        }
-
-        IngredientCommand ingredientCommand = new IngredientCommand();
-        ingredientCommand.setId(ingredient.getId());
-        ingredientCommand.setAmount(ingredient.getAmount());
-        ingredientCommand.setDescription(ingredient.getDescription());
-        ingredientCommand.setUom(uomConverter.convert(ingredient.getUom()));
-        return ingredientCommand;
-    }
+    @Mapping(target = "recipeId", ignore = true)
+    IngredientCommand convert(Ingredient source);
 }
@@ -2,28 +2,19 @@ package guru.springframework.converters;
 
 import guru.springframework.commands.NotesCommand;
 import guru.springframework.domain.Notes;
-import lombok.Synchronized;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.Nullable;
-import org.springframework.stereotype.Component;
 
 /**
  * Created by jt on 6/21/17.
  */
-@Component
-public class NotesCommandToNotes implements Converter<NotesCommand, Notes> {
+@Mapper(config = ConverterConfig.class)
+public interface NotesCommandToNotes extends Converter<NotesCommand, Notes> {
 
-    @Synchronized
     @Nullable
     @Override
-    public Notes convert(NotesCommand source) {
-        if(source == null) {
-            return null;
-        }
-
-        final Notes notes = new Notes();
-        notes.setId(source.getId());
-        notes.setRecipeNotes(source.getRecipeNotes());
-        return notes;
-    }
+    @Mapping(target = "recipe", ignore = true)
+    Notes convert(NotesCommand source);
 }
@@ -2,28 +2,17 @@ package guru.springframework.converters;
 
 import guru.springframework.commands.NotesCommand;
 import guru.springframework.domain.Notes;
-import lombok.Synchronized;
+import org.mapstruct.Mapper;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.Nullable;
-import org.springframework.stereotype.Component;
 
 /**
  * Created by jt on 6/21/17.
  */
-@Component
-public class NotesToNotesCommand implements Converter<Notes, NotesCommand>{
+@Mapper(config = ConverterConfig.class)
+public interface NotesToNotesCommand extends Converter<Notes, NotesCommand> {
 
-    @Synchronized
     @Nullable
     @Override
-    public NotesCommand convert(Notes source) {
-        if (source == null) {
-            return null;
-        }
-
-        final NotesCommand notesCommand = new NotesCommand();
-        notesCommand.setId(source.getId());
-        notesCommand.setRecipeNotes(source.getRecipeNotes());
-        return notesCommand;
-    }
+    NotesCommand convert(Notes source);
 }
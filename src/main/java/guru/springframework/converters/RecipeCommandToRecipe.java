@@ -1,59 +1,27 @@
 package guru.springframework.converters;
 
+import guru.springframework.commands.CategoryCommand;
 import guru.springframework.commands.RecipeCommand;
 import guru.springframework.domain.Recipe;
-import lombok.Synchronized;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.Nullable;
-import org.springframework.stereotype.Component;
 
 /**
  * Created by jt on 6/21/17.
  */
-@Component
-public class RecipeCommandToRecipe implements Converter<RecipeCommand, Recipe> {
+@Mapper(config = ConverterConfig.class, uses = {IngredientCommandToIngredient.class, NotesCommandToNotes.class})
+public interface RecipeCommandToRecipe extends Converter<RecipeCommand, Recipe> {
 
-    private final CategoryCommandToCategory categoryConveter;
-    private final IngredientCommandToIngredient ingredientConverter;
-    private final NotesCommandToNotes notesConverter;
-
-    public RecipeCommandToRecipe(CategoryCommandToCategory categoryConveter, IngredientCommandToIngredient ingredientConverter,
-                                 NotesCommandToNotes notesConverter) {
-        this.categoryConveter = categoryConveter;
-        this.ingredientConverter = ingredientConverter;
-        this.notesConverter = notesConverter;
-    }
-
-    @Synchronized
+    //the form has no image, it is stored by the image service and kept when the recipe is updated
     @Nullable
     @Override
-    public Recipe convert(RecipeCommand source) {
-        if (source == null) {
-            return null;
-        }
-
-        final Recipe recipe = new Recipe();
-        recipe.setId(source.getId());
-        recipe.setCookTime(source.getCookTime());
-        recipe.setPrepTime(source.getPrepTime());
-        recipe.setDescription(source.getDescription());
-        recipe.setDifficulty(source.getDifficulty());
-        recipe.setDirections(source.getDirections());
-        recipe.setServings(source.getServings());
-        recipe.setSource(source.getSource());
-        recipe.setUrl(source.getUrl());
-        recipe.setNotes(notesConverter.convert(source.getNotes()));
-
-        if (source.getCategories() != null && source.getCategories().size() > 0){
-            source.getCategories()
-                    .forEach( category -> recipe.getCategories().add(categoryConveter.convert(category)));
-        }
-
-        if (source.getIngredients() != null && source.getIngredients().size() > 0){
-            source.getIngredients()
-                    .forEach(ingredient -> recipe.getIngredients().add(ingredientConverter.convert(ingredient)));
-        }
+    @Mapping(target = "categoryIds", source = "categories")
+    @Mapping(target = "image", ignore = true)
+    Recipe convert(RecipeCommand source);
 
-        return recipe;
+    default String categoryId(CategoryCommand category) {
+        return category.getId();
     }
 }
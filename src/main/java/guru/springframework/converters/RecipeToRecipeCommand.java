@@ -1,61 +1,28 @@
 package guru.springframework.converters;
 
+import guru.springframework.commands.CategoryCommand;
 import guru.springframework.commands.RecipeCommand;
-import guru.springframework.domain.Category;
 import guru.springframework.domain.Recipe;
-import lombok.Synchronized;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.Nullable;
-import org.springframework.stereotype.Component;
 
 /**
  * Created by jt on 6/21/17.
  */
-@Component
-public class RecipeToRecipeCommand implements Converter<Recipe, RecipeCommand>{
+@Mapper(config = ConverterConfig.class, uses = {IngredientToIngredientCommand.class, NotesToNotesCommand.class})
+public interface RecipeToRecipeCommand extends Converter<Recipe, RecipeCommand> {
 
-    private final CategoryToCategoryCommand categoryConveter;
-    private final IngredientToIngredientCommand ingredientConverter;
-    private final NotesToNotesCommand notesConverter;
-
-    public RecipeToRecipeCommand(CategoryToCategoryCommand categoryConveter, IngredientToIngredientCommand ingredientConverter,
-                                 NotesToNotesCommand notesConverter) {
-        this.categoryConveter = categoryConveter;
-        this.ingredientConverter = ingredientConverter;
-        this.notesConverter = notesConverter;
-    }
-
-    @Synchronized
     @Nullable
     @Override
-    public RecipeCommand convert(Recipe source) {
-        if (source == null) {
-            return null;
-        }
-
-        final RecipeCommand command = new RecipeCommand();
-        command.setId(source.getId());
-        command.setCookTime(source.getCookTime());
-        command.setPrepTime(source.getPrepTime());
-        command.setDescription(source.getDescription());
-        command.setDifficulty(source.getDifficulty());
-        command.setDirections(source.getDirections());
-        command.setServings(source.getServings());
-        command.setSource(source.getSource());
-        command.setUrl(source.getUrl());
-        command.setImage(source.getImage());
-        command.setNotes(notesConverter.convert(source.getNotes()));
-
-        if (source.getCategories() != null && source.getCategories().size() > 0){
-            source.getCategories()
-                    .forEach((Category category) -> command.getCategories().add(categoryConveter.convert(category)));
-        }
-
-        if (source.getIngredients() != null && source.getIngredients().size() > 0){
-            source.getIngredients()
-                    .forEach(ingredient -> command.getIngredients().add(ingredientConverter.convert(ingredient)));
-        }
-
-        return command;
+    @Mapping(target = "categories", source = "categoryIds")
+    RecipeCommand convert(Recipe source);
+
+    //only the ids are stored with the recipe, that is all the form posts back
+    default CategoryCommand categoryCommand(String categoryId) {
+        CategoryCommand category = new CategoryCommand();
+        category.setId(categoryId);
+        return category;
     }
 }
@@ -2,28 +2,17 @@ package guru.springframework.converters;
 
 import guru.springframework.commands.UnitOfMeasureCommand;
 import guru.springframework.domain.UnitOfMeasure;
-import lombok.Synchronized;
+import org.mapstruct.Mapper;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.Nullable;
-import org.springframework.stereotype.Component;
 
 /**
  * Created by jt on 6/21/17.
  */
-@Component
-public class UnitOfMeasureToUnitOfMeasureCommand implements Converter<UnitOfMeasure, UnitOfMeasureCommand> {
+@Mapper(config = ConverterConfig.class)
+public interface UnitOfMeasureToUnitOfMeasureCommand extends Converter<UnitOfMeasure, UnitOfMeasureCommand> {
 
-    @Synchronized
     @Nullable
     @Override
-    public UnitOfMeasureCommand convert(UnitOfMeasure unitOfMeasure) {
-
-        if (unitOfMeasure != null) {
-            final UnitOfMeasureCommand uomc = new UnitOfMeasureCommand();
-            uomc.setId(unitOfMeasure.getId());
-            uomc.setDescription(unitOfMeasure.getDescription());
-            return uomc;
-        }
-        return null;
-    }
+    UnitOfMeasureCommand convert(UnitOfMeasure source);
 }
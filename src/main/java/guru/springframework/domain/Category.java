@@ -2,11 +2,9 @@ package guru.springframework.domain;
 
 import lombok.Getter;
 import lombok.Setter;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.Set;
-
 /**
  * Created by jt on 6/13/17.
  */
@@ -15,6 +13,7 @@ import java.util.Set;
 @Document
 public class Category {
     private String id;
+
+    @Indexed(name = "category_description")
     private String description;
-    private Set<Recipe> recipes;
 }
@@ -0,0 +1,19 @@
+package guru.springframework.domain;
+
+/**
+ * Downscaled renditions generated from an uploaded recipe image, bounded to a square of {@code maxSize} pixels.
+ */
+public enum ImageVariant {
+
+    THUMBNAIL(100), MEDIUM(400), FULL(1600);
+
+    private final int maxSize;
+
+    ImageVariant(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
@@ -2,9 +2,11 @@ package guru.springframework.domain;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 
 import java.math.BigDecimal;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Created by jt on 6/13/17.
@@ -13,7 +15,8 @@ import java.util.UUID;
 @Setter
 public class Ingredient {
 
-    private String id = UUID.randomUUID().toString();
+    private String id = randomId();
+    @TextIndexed(weight = 5)
     private String description;
     private BigDecimal amount;
     private UnitOfMeasure uom;
@@ -27,4 +30,14 @@ public class Ingredient {
         this.uom = uom;
     }
 
+    /**
+     * A random (version 4) UUID drawn from ThreadLocalRandom, as UUID.randomUUID shares one SecureRandom
+     * between all threads. Ingredient ids only have to be unique within their recipe.
+     */
+    private static String randomId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSignificantBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSignificantBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSignificantBits, leastSignificantBits).toString();
+    }
 }
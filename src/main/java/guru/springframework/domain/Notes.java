@@ -3,6 +3,8 @@ package guru.springframework.domain;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 
 
 /**
@@ -14,7 +16,9 @@ public class Notes {
 
     @Id
     private String id;
+    @Transient
     private Recipe recipe;
+    @TextIndexed(weight = 2)
     private String recipeNotes;
 
 }
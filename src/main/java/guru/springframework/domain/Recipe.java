@@ -2,6 +2,9 @@ package guru.springframework.domain;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -16,21 +19,31 @@ import java.util.Set;
 @Getter
 @Setter
 @Document
+@CompoundIndex(name = "recipe_category", def = "{'categoryIds': 1, '_id': 1}")
 public class Recipe {
 
     private String id;
+
+    @Version
+    private Long version;
+
+    @TextIndexed(weight = 10)
     private String description;
     private Integer prepTime;
     private Integer cookTime;
     private Integer servings;
     private String source;
     private String url;
+    @TextIndexed
     private String directions;
     private List<Ingredient> ingredients = new ArrayList<>();
-    private Byte[] image;
+    private RecipeImage image;
     private Difficulty difficulty;
     private Notes notes;
-    private List<Category> categories = new ArrayList<>();
+    /**
+     * Ids of the recipe's categories; the categories themselves are read through the category cache.
+     */
+    private List<String> categoryIds = new ArrayList<>();
 
     public void setNotes(Notes notes) {
         if (notes != null) {
@@ -0,0 +1,48 @@
+package guru.springframework.domain;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reference to a recipe image held in GridFS, embedded in the recipe document in place of the image bytes.
+ */
+@Getter
+@Setter
+public class RecipeImage {
+
+    /**
+     * Content types browsers render as images and never as active content, the only ones served inline.
+     */
+    public static final Set<String> IMAGE_CONTENT_TYPES = Set.of("image/jpeg", "image/png", "image/gif", "image/webp");
+
+    private String fileId;
+    private String contentType;
+    private Long length;
+    private String contentHash;
+    private Date uploadDate;
+    private Map<ImageVariant, RecipeImage> variants = new HashMap<>();
+
+    /**
+     * The requested variant, or this original upload if that variant has not been generated.
+     */
+    public RecipeImage forVariant(ImageVariant variant) {
+        RecipeImage image = variant != null && variants != null ? variants.get(variant) : null;
+        return image != null ? image : this;
+    }
+
+    public List<String> fileIds() {
+        List<String> fileIds = new ArrayList<>();
+        fileIds.add(fileId);
+        if (variants != null) {
+            variants.values().forEach(variant -> fileIds.add(variant.getFileId()));
+        }
+        return fileIds;
+    }
+}
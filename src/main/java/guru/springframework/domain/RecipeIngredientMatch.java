@@ -0,0 +1,20 @@
+package guru.springframework.domain;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A {@link RecipeSummary} found by its ingredients, with the searched ingredients the recipe lacks.
+ */
+@Getter
+public class RecipeIngredientMatch {
+
+    private final RecipeSummary recipe;
+    private final List<String> missing;
+
+    public RecipeIngredientMatch(RecipeSummary recipe, List<String> missing) {
+        this.recipe = recipe;
+        this.missing = missing;
+    }
+}
@@ -0,0 +1,16 @@
+package guru.springframework.domain;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.mongodb.core.mapping.TextScore;
+
+/**
+ * A {@link RecipeSummary} found by a text search, with the relevance score Mongo gave the match.
+ */
+@Getter
+@Setter
+public class RecipeSearchResult extends RecipeSummary {
+
+    @TextScore
+    private Float score;
+}
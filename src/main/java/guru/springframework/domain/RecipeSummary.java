@@ -0,0 +1,19 @@
+package guru.springframework.domain;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Read-only projection of a {@link Recipe} for listings; only these fields are fetched from the recipe document.
+ */
+@Getter
+@Setter
+public class RecipeSummary {
+
+    private String id;
+    private String description;
+    private Difficulty difficulty;
+    private Integer prepTime;
+    private Integer cookTime;
+    private RecipeImage image;
+}
@@ -0,0 +1,19 @@
+package guru.springframework.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * An upload that is not an image of an accepted type, or too large to take.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidImageException extends RuntimeException {
+
+    public InvalidImageException(String message) {
+        super(message);
+    }
+
+    public InvalidImageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,10 +0,0 @@
-package guru.springframework.repositories;
-
-import guru.springframework.domain.Recipe;
-import org.springframework.data.repository.CrudRepository;
-
-/**
- * Created by jt on 6/13/17.
- */
-public interface RecipeRepository extends CrudRepository<Recipe, String> {
-}
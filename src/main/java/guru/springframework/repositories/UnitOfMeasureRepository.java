@@ -1,14 +0,0 @@
-package guru.springframework.repositories;
-
-import guru.springframework.domain.UnitOfMeasure;
-import org.springframework.data.repository.CrudRepository;
-
-import java.util.Optional;
-
-/**
- * Created by jt on 6/13/17.
- */
-public interface UnitOfMeasureRepository extends CrudRepository<UnitOfMeasure, String> {
-
-    Optional<UnitOfMeasure> findByDescription(String description);
-}
@@ -0,0 +1,112 @@
+package guru.springframework.repositories.reactive;
+
+import guru.springframework.domain.RecipeImage;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.data.mongodb.gridfs.ReactiveGridFsOperations;
+import org.springframework.data.mongodb.gridfs.ReactiveGridFsResource;
+import org.springframework.data.mongodb.gridfs.ReactiveGridFsUpload;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Streams recipe images into GridFS chunks, hashing the content on the way through.
+ */
+@Repository
+public class GridFsRecipeImageStore implements RecipeImageStore {
+
+    static final String RECIPE_ID_METADATA = "recipeId";
+
+    private final ReactiveGridFsOperations gridFsOperations;
+
+    public GridFsRecipeImageStore(ReactiveGridFsOperations gridFsOperations) {
+        this.gridFsOperations = gridFsOperations;
+    }
+
+    @Override
+    public Mono<RecipeImage> store(String recipeId, Flux<DataBuffer> content, String contentType) {
+
+        return Mono.defer(() -> {
+            MessageDigest digest = sha256();
+            AtomicLong length = new AtomicLong();
+
+            Flux<DataBuffer> hashedContent = content.doOnNext(dataBuffer -> {
+                length.addAndGet(dataBuffer.readableByteCount());
+                try (DataBuffer.ByteBufferIterator byteBuffers = dataBuffer.readableByteBuffers()) {
+                    byteBuffers.forEachRemaining(digest::update);
+                }
+            });
+
+            return gridFsOperations.store(hashedContent, recipeId, contentType, new Document(RECIPE_ID_METADATA, recipeId))
+                    .map(fileId -> {
+                        RecipeImage image = new RecipeImage();
+                        image.setFileId(fileId.toHexString());
+                        image.setContentType(contentType);
+                        image.setLength(length.get());
+                        image.setContentHash(HexFormat.of().formatHex(digest.digest()));
+                        image.setUploadDate(new Date());
+                        return image;
+                    });
+        });
+    }
+
+    @Override
+    public Mono<Void> storeShared(String fileId, byte[] content, String contentType) {
+        ObjectId id = new ObjectId(fileId);
+
+        return gridFsOperations.findOne(query(where("_id").is(id)))
+                .hasElement()
+                .filter(stored -> !stored)
+                .flatMap(stored -> gridFsOperations.store(ReactiveGridFsUpload
+                        .fromPublisher(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(content)))
+                        .id(id)
+                        .filename(fileId)
+                        .contentType(contentType)
+                        .build()))
+                .then();
+    }
+
+    @Override
+    public Flux<DataBuffer> read(String fileId) {
+        return open(fileId).flatMapMany(Function.identity());
+    }
+
+    @Override
+    public Mono<Flux<DataBuffer>> open(String fileId) {
+        return gridFsOperations.findOne(query(where("_id").is(new ObjectId(fileId))))
+                .flatMap(gridFsOperations::getResource)
+                .map(ReactiveGridFsResource::getDownloadStream);
+    }
+
+    @Override
+    public Mono<Void> delete(String recipeId, String fileId) {
+        return gridFsOperations.delete(query(where("_id").is(new ObjectId(fileId))
+                .and("metadata." + RECIPE_ID_METADATA).is(recipeId)));
+    }
+
+    @Override
+    public Mono<Void> deleteByRecipeId(String recipeId) {
+        return gridFsOperations.delete(query(where("metadata." + RECIPE_ID_METADATA).is(recipeId)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package guru.springframework.repositories.reactive;
+
+import guru.springframework.domain.RecipeImage;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Binary storage for recipe images, kept outside the recipe documents.
+ */
+public interface RecipeImageStore {
+
+    Mono<RecipeImage> store(String recipeId, Flux<DataBuffer> content, String contentType);
+
+    /**
+     * Stores an image that belongs to no single recipe under the given file id, unless it is already there.
+     */
+    Mono<Void> storeShared(String fileId, byte[] content, String contentType);
+
+    Flux<DataBuffer> read(String fileId);
+
+    /**
+     * Looks the file up without reading it; empty when there is no such file.
+     */
+    Mono<Flux<DataBuffer>> open(String fileId);
+
+    /**
+     * Deletes the file only if it was stored for that recipe, shared images are left alone.
+     */
+    Mono<Void> delete(String recipeId, String fileId);
+
+    Mono<Void> deleteByRecipeId(String recipeId);
+}
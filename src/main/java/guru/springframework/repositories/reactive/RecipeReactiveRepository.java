@@ -1,7 +1,28 @@
 package guru.springframework.repositories.reactive;
 
 import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeSummary;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 
-public interface RecipeReactiveRepository extends ReactiveCrudRepository<Recipe, String> {
+import java.util.Collection;
+
+public interface RecipeReactiveRepository extends ReactiveCrudRepository<Recipe, String>, RecipeReactiveRepositoryCustom {
+
+    Flux<RecipeSummary> findAllByOrderByIdAsc(Limit limit);
+
+    /**
+     * Keyset page: seeks past the last id of the previous page on the _id index instead of skipping documents.
+     */
+    Flux<RecipeSummary> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
+
+    /**
+     * Keyset pages of the recipes in one category, read from the categoryIds/_id index.
+     */
+    Flux<RecipeSummary> findByCategoryIdsOrderByIdAsc(String categoryId, Limit limit);
+
+    Flux<RecipeSummary> findByCategoryIdsAndIdGreaterThanOrderByIdAsc(String categoryId, String id, Limit limit);
+
+    Flux<RecipeSummary> findByIdIn(Collection<String> ids);
 }
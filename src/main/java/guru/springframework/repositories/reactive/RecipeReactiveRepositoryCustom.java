@@ -0,0 +1,49 @@
+package guru.springframework.repositories.reactive;
+
+import guru.springframework.domain.ImageVariant;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.domain.RecipeSearchResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Targeted updates that touch only the parts of a recipe document they change, so concurrent edits of
+ * other parts are not overwritten. Boolean results tell whether a matching recipe (and element) was found.
+ * Also holds the text search, which needs a score projection and sort the derived queries cannot express.
+ */
+public interface RecipeReactiveRepositoryCustom {
+
+    Mono<Boolean> addIngredient(String recipeId, Ingredient ingredient);
+
+    Mono<Boolean> updateIngredient(String recipeId, Ingredient ingredient);
+
+    Mono<Boolean> removeIngredient(String recipeId, String ingredientId);
+
+    /**
+     * Deletes the recipe, false if there was no recipe with that id to delete.
+     */
+    Mono<Boolean> removeRecipe(String recipeId);
+
+    /**
+     * Sets the given recipe properties and bumps the version, only if the recipe is still at expectedVersion.
+     */
+    Mono<Boolean> updateFields(String recipeId, Long expectedVersion, Map<String, Object> changes);
+
+    /**
+     * Sets the recipe image and emits the image it replaced, if there was one.
+     */
+    Mono<RecipeImage> replaceImage(String recipeId, RecipeImage image);
+
+    /**
+     * Attaches variants to the recipe image, only while that image is still the one with the given file id.
+     */
+    Mono<Boolean> attachImageVariants(String recipeId, String fileId, Map<ImageVariant, RecipeImage> variants);
+
+    /**
+     * Recipes matching the text in the recipe text index, best match first.
+     */
+    Flux<RecipeSearchResult> search(String text, long offset, int limit);
+}
@@ -0,0 +1,127 @@
+package guru.springframework.repositories.reactive;
+
+import guru.springframework.domain.ImageVariant;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.domain.RecipeSearchResult;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.BasicUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+public class RecipeReactiveRepositoryCustomImpl implements RecipeReactiveRepositoryCustom {
+
+    private final ReactiveMongoOperations mongoOperations;
+    private final QueryMapper queryMapper;
+    private final UpdateMapper updateMapper;
+
+    public RecipeReactiveRepositoryCustomImpl(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+        this.queryMapper = new QueryMapper(mongoOperations.getConverter());
+        this.updateMapper = new UpdateMapper(mongoOperations.getConverter());
+    }
+
+    @Override
+    public Mono<Boolean> addIngredient(String recipeId, Ingredient ingredient) {
+        return update(query(where("id").is(recipeId)),
+                new Update().push("ingredients", ingredient));
+    }
+
+    @Override
+    public Mono<Boolean> updateIngredient(String recipeId, Ingredient ingredient) {
+        return update(query(where("id").is(recipeId).and("ingredients.id").is(ingredient.getId())),
+                new Update().set("ingredients.$", ingredient));
+    }
+
+    @Override
+    public Mono<Boolean> removeIngredient(String recipeId, String ingredientId) {
+        return update(query(where("id").is(recipeId).and("ingredients.id").is(ingredientId)),
+                new Update().pull("ingredients", query(where("id").is(ingredientId))));
+    }
+
+    @Override
+    public Mono<Boolean> removeRecipe(String recipeId) {
+        return mongoOperations.remove(query(where("id").is(recipeId)), Recipe.class)
+                .map(result -> result.getDeletedCount() > 0);
+    }
+
+    @Override
+    public Mono<Boolean> updateFields(String recipeId, Long expectedVersion, Map<String, Object> changes) {
+        Update update = new Update().inc("version", 1);
+        changes.forEach(update::set);
+
+        return mongoOperations.updateFirst(query(where("id").is(recipeId).and("version").is(expectedVersion)), update, Recipe.class)
+                .map(result -> result.getMatchedCount() > 0);
+    }
+
+    @Override
+    public Mono<RecipeImage> replaceImage(String recipeId, RecipeImage image) {
+        Query query = query(where("id").is(recipeId));
+        query.fields().include("image");
+
+        //findAndModify hands back the document as it was before the update
+        return mongoOperations.findAndModify(unversioned(query), unversioned(new Update().set("image", image)),
+                        FindAndModifyOptions.none(), Document.class, mongoOperations.getCollectionName(Recipe.class))
+                .mapNotNull(previous -> previous.get("image", Document.class))
+                .map(previous -> mongoOperations.getConverter().read(RecipeImage.class, previous));
+    }
+
+    @Override
+    public Mono<Boolean> attachImageVariants(String recipeId, String fileId, Map<ImageVariant, RecipeImage> variants) {
+        return update(query(where("id").is(recipeId).and("image.fileId").is(fileId)),
+                new Update().set("image.variants", variants));
+    }
+
+    @Override
+    public Flux<RecipeSearchResult> search(String text, long offset, int limit) {
+        return mongoOperations.find(searchQuery(text, offset, limit), RecipeSearchResult.class,
+                mongoOperations.getCollectionName(Recipe.class));
+    }
+
+    static Query searchQuery(String text, long offset, int limit) {
+        Query query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text))
+                .sortByScore()
+                .skip(offset)
+                .limit(limit);
+        query.fields().include("description", "difficulty", "prepTime", "cookTime", "image");
+        return query;
+    }
+
+    /**
+     * Spring Data bumps the version with every update it maps against Recipe. Ingredient and image changes are
+     * not edits the recipe form conflicts with, so they are mapped here and sent to the collection unversioned.
+     */
+    private Mono<Boolean> update(Query query, Update update) {
+        return mongoOperations.updateFirst(unversioned(query), unversioned(update), mongoOperations.getCollectionName(Recipe.class))
+                .map(result -> result.getMatchedCount() > 0);
+    }
+
+    private Query unversioned(Query query) {
+        return new BasicQuery(queryMapper.getMappedObject(query.getQueryObject(), recipeEntity()),
+                queryMapper.getMappedFields(query.getFieldsObject(), recipeEntity()));
+    }
+
+    private Update unversioned(Update update) {
+        return new BasicUpdate(updateMapper.getMappedObject(update.getUpdateObject(), recipeEntity()));
+    }
+
+    private MongoPersistentEntity<?> recipeEntity() {
+        return mongoOperations.getConverter().getMappingContext().getRequiredPersistentEntity(Recipe.class);
+    }
+}
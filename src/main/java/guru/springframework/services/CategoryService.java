@@ -0,0 +1,20 @@
+package guru.springframework.services;
+
+import guru.springframework.commands.CategoryCommand;
+import guru.springframework.domain.Category;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface CategoryService {
+
+    Flux<CategoryCommand> listAllCategories();
+
+    Mono<Category> findCategoryById(String id);
+
+    /**
+     * The categories with the given ids, in that order, skipping ids that no longer exist.
+     */
+    Flux<Category> findCategoriesByIds(List<String> ids);
+}
@@ -0,0 +1,37 @@
+package guru.springframework.services;
+
+import guru.springframework.commands.CategoryCommand;
+import guru.springframework.converters.CategoryToCategoryCommand;
+import guru.springframework.domain.Category;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Service
+public class CategoryServiceImpl implements CategoryService {
+
+    private final ReferenceDataCache<Category> categoryCache;
+    private final CategoryToCategoryCommand categoryToCategoryCommand;
+
+    public CategoryServiceImpl(ReferenceDataCache<Category> categoryCache, CategoryToCategoryCommand categoryToCategoryCommand) {
+        this.categoryCache = categoryCache;
+        this.categoryToCategoryCommand = categoryToCategoryCommand;
+    }
+
+    @Override
+    public Flux<CategoryCommand> listAllCategories() {
+        return categoryCache.findAll().map(categoryToCategoryCommand::convert);
+    }
+
+    @Override
+    public Mono<Category> findCategoryById(String id) {
+        return categoryCache.findById(id);
+    }
+
+    @Override
+    public Flux<Category> findCategoriesByIds(List<String> ids) {
+        return Flux.fromIterable(ids).concatMap(categoryCache::findById);
+    }
+}
@@ -0,0 +1,109 @@
+package guru.springframework.services;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Decodes, downscales and encodes images with Java2D. Everything here is CPU bound, so callers
+ * must run it on a worker pool rather than an event loop thread.
+ */
+public final class ImageResizer {
+
+    static {
+        //keep ImageIO from spooling streams to temp files
+        ImageIO.setUseCache(false);
+    }
+
+    private ImageResizer() {
+    }
+
+    public static BufferedImage decode(byte[] bytes) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+
+        if (image == null) {
+            throw new IOException("Unsupported image format");
+        }
+        return image;
+    }
+
+    /**
+     * The content type of the image in the bytes, told from the bytes themselves and only once the whole
+     * image has decoded, whatever type the bytes were sent as.
+     */
+    public static String detectContentType(byte[] bytes) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                reader.read(0);
+                return reader.getOriginatingProvider().getMIMETypes()[0];
+            } catch (RuntimeException e) {
+                //corrupt data surfaces from some readers as unchecked exceptions
+                throw new IOException("Undecodable image", e);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales the image down to fit a maxSize x maxSize box, halving in steps so large photos
+     * keep their detail under bilinear filtering. Images are never scaled up.
+     */
+    public static BufferedImage scaleToFit(BufferedImage source, int maxSize) {
+        double scale = Math.min(1d, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    /**
+     * Images with transparency are written as PNG, everything else as JPEG.
+     */
+    public static String contentType(BufferedImage image) {
+        return image.getColorModel().hasAlpha() ? "image/png" : "image/jpeg";
+    }
+
+    public static byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        if (!ImageIO.write(image, image.getColorModel().hasAlpha() ? "png" : "jpeg", out)) {
+            throw new IOException("No image writer available");
+        }
+        return out.toByteArray();
+    }
+}
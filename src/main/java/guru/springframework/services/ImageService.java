@@ -1,6 +1,10 @@
 package guru.springframework.services;
 
-import org.springframework.web.multipart.MultipartFile;
+import guru.springframework.domain.ImageVariant;
+import guru.springframework.domain.RecipeImage;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.codec.multipart.FilePart;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -8,5 +12,12 @@ import reactor.core.publisher.Mono;
  */
 public interface ImageService {
 
-    Mono<Void> saveImageFile(String recipeId, MultipartFile file);
+    Mono<Void> saveImageFile(String recipeId, FilePart file);
+
+    Mono<RecipeImage> findImageByRecipeId(String recipeId, ImageVariant variant);
+
+    /**
+     * Resolves the stored file behind the image; empty when it is missing. The content is read on subscription.
+     */
+    Mono<Flux<DataBuffer>> openImageContent(RecipeImage image);
 }
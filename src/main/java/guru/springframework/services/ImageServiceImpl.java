@@ -1,12 +1,23 @@
 package guru.springframework.services;
 
+import guru.springframework.domain.ImageVariant;
 import guru.springframework.domain.Recipe;
-import guru.springframework.repositories.RecipeRepository;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.exceptions.InvalidImageException;
+import guru.springframework.exceptions.NotFoundException;
+import guru.springframework.repositories.reactive.RecipeImageStore;
 import guru.springframework.repositories.reactive.RecipeReactiveRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.io.IOException;
@@ -18,38 +29,95 @@ import java.io.IOException;
 @Service
 public class ImageServiceImpl implements ImageService {
 
-
     private final RecipeReactiveRepository recipeReactiveRepository;
+    private final RecipeImageStore recipeImageStore;
+    private final ImageVariantGenerator imageVariantGenerator;
+    private final DataSize maxUploadSize;
 
-    public ImageServiceImpl( RecipeReactiveRepository recipeReactiveRepository) {
-
+    public ImageServiceImpl(RecipeReactiveRepository recipeReactiveRepository, RecipeImageStore recipeImageStore,
+                            ImageVariantGenerator imageVariantGenerator,
+                            @Value("${recipe.images.max-upload-size:10MB}") DataSize maxUploadSize) {
         this.recipeReactiveRepository = recipeReactiveRepository;
+        this.recipeImageStore = recipeImageStore;
+        this.imageVariantGenerator = imageVariantGenerator;
+        this.maxUploadSize = maxUploadSize;
     }
 
+    /**
+     * Only uploads sent as one of the {@link RecipeImage#IMAGE_CONTENT_TYPES} that also decode as one are stored,
+     * with the type told from the bytes. The upload is held in memory until it has decoded, so nothing is
+     * written for a rejected one.
+     */
     @Override
-    @Transactional
-    public Mono<Void> saveImageFile(String recipeId, MultipartFile file) {
+    public Mono<Void> saveImageFile(String recipeId, FilePart file) {
 
-        try {
-            Recipe recipe = recipeReactiveRepository.findById(recipeId).block();
+        MediaType declaredType = file.headers().getContentType();
+        if (declaredType == null || !RecipeImage.IMAGE_CONTENT_TYPES.contains(declaredType.getType() + "/" + declaredType.getSubtype())) {
+            return Mono.error(new InvalidImageException("Not an image upload: " + declaredType));
+        }
 
-            Byte[] byteObjects = new Byte[file.getBytes().length];
+        return recipeReactiveRepository.existsById(recipeId)
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(new NotFoundException("Recipe Not Found. For ID value: " + recipeId)))
+                .flatMap(exists -> readUpload(file))
+                .flatMap(upload -> imageVariantGenerator.detectContentType(upload)
+                        .onErrorMap(IOException.class, e -> new InvalidImageException("Not a readable image", e))
+                        .filter(RecipeImage.IMAGE_CONTENT_TYPES::contains)
+                        .switchIfEmpty(Mono.error(() -> new InvalidImageException("Unsupported image type")))
+                        .flatMap(contentType -> recipeImageStore.store(recipeId,
+                                Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(upload)), contentType)))
+                .flatMap(image -> recipeReactiveRepository.replaceImage(recipeId, image)
+                        .flatMap(replaced -> deleteFiles(recipeId, replaced))
+                        .then(Mono.fromRunnable(() -> generateVariantsInBackground(recipeId, image))))
+                .doOnError(e -> log.error("Error saving image for recipe id: " + recipeId, e))
+                .then();
+    }
 
-            int i = 0;
+    @Override
+    public Mono<RecipeImage> findImageByRecipeId(String recipeId, ImageVariant variant) {
+        return recipeReactiveRepository.findById(recipeId)
+                .mapNotNull(Recipe::getImage)
+                .map(image -> image.forVariant(variant));
+    }
 
-            for (byte b : file.getBytes()){
-                byteObjects[i++] = b;
-            }
+    @Override
+    public Mono<Flux<DataBuffer>> openImageContent(RecipeImage image) {
+        return recipeImageStore.open(image.getFileId());
+    }
 
-            recipe.setImage(byteObjects);
+    /**
+     * Variants are rendered after the upload has been answered. Until they are attached the original
+     * is served for every variant; if the image was replaced meanwhile the renditions are discarded.
+     */
+    private void generateVariantsInBackground(String recipeId, RecipeImage original) {
+        imageVariantGenerator.generateVariants(recipeId, original)
+                .filter(variants -> !variants.isEmpty())
+                .flatMap(variants -> recipeReactiveRepository.attachImageVariants(recipeId, original.getFileId(), variants)
+                        .filter(attached -> !attached)
+                        .flatMap(attached -> Flux.fromIterable(variants.values())
+                                .flatMap(variant -> recipeImageStore.delete(recipeId, variant.getFileId()))
+                                .then()))
+                .subscribe(null, e -> log.error("Error generating image variants for recipe id: " + recipeId, e));
+    }
 
-            recipeReactiveRepository.save(recipe).block();
-        } catch (IOException e) {
-            //todo handle better
-            log.error("Error occurred", e);
+    private Mono<byte[]> readUpload(FilePart file) {
+        return DataBufferUtils.join(file.content(), Math.toIntExact(maxUploadSize.toBytes()))
+                .onErrorMap(DataBufferLimitException.class,
+                        e -> new InvalidImageException("Image is larger than " + maxUploadSize, e))
+                .map(dataBuffer -> {
+                    try {
+                        byte[] bytes = new byte[dataBuffer.readableByteCount()];
+                        dataBuffer.read(bytes);
+                        return bytes;
+                    } finally {
+                        DataBufferUtils.release(dataBuffer);
+                    }
+                });
+    }
 
-            e.printStackTrace();
-        }
-        return Mono.empty();
+    private Mono<Void> deleteFiles(String recipeId, RecipeImage image) {
+        return Flux.fromIterable(image.fileIds())
+                .flatMap(fileId -> recipeImageStore.delete(recipeId, fileId))
+                .then();
     }
 }
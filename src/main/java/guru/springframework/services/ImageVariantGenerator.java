@@ -0,0 +1,81 @@
+package guru.springframework.services;
+
+import guru.springframework.domain.ImageVariant;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.repositories.reactive.RecipeImageStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.awt.image.BufferedImage;
+import java.util.Map;
+
+/**
+ * Renders the {@link ImageVariant}s of an uploaded image on a bounded worker pool and stores them
+ * next to the original.
+ */
+@Slf4j
+@Component
+public class ImageVariantGenerator {
+
+    private static final int QUEUED_TASKS_PER_WORKER = 16;
+
+    private final RecipeImageStore recipeImageStore;
+    private final Scheduler scheduler;
+
+    public ImageVariantGenerator(RecipeImageStore recipeImageStore,
+                                 @Value("${recipe.images.variant-workers:0}") int workers) {
+        this.recipeImageStore = recipeImageStore;
+
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.scheduler = Schedulers.newBoundedElastic(threads, threads * QUEUED_TASKS_PER_WORKER, "image-variants");
+    }
+
+    /**
+     * Decodes an upload on the worker pool, emitting its content type as told from the bytes, or an IOException.
+     */
+    public Mono<String> detectContentType(byte[] upload) {
+        return Mono.fromCallable(() -> ImageResizer.detectContentType(upload)).subscribeOn(scheduler);
+    }
+
+    public Mono<Map<ImageVariant, RecipeImage>> generateVariants(String recipeId, RecipeImage original) {
+
+        return DataBufferUtils.join(recipeImageStore.read(original.getFileId()))
+                .map(dataBuffer -> {
+                    try {
+                        byte[] bytes = new byte[dataBuffer.readableByteCount()];
+                        dataBuffer.read(bytes);
+                        return bytes;
+                    } finally {
+                        DataBufferUtils.release(dataBuffer);
+                    }
+                })
+                .flatMap(bytes -> Mono.fromCallable(() -> ImageResizer.decode(bytes)).subscribeOn(scheduler))
+                .flatMapMany(image -> Flux.fromArray(ImageVariant.values())
+                        .flatMap(variant -> Mono.fromCallable(() -> render(variant, image)).subscribeOn(scheduler)))
+                .flatMap(rendition -> recipeImageStore.store(recipeId,
+                                Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(rendition.bytes())), rendition.contentType())
+                        .map(stored -> Map.entry(rendition.variant(), stored)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+    private static Rendition render(ImageVariant variant, BufferedImage image) throws Exception {
+        BufferedImage scaled = ImageResizer.scaleToFit(image, variant.getMaxSize());
+        return new Rendition(variant, ImageResizer.encode(scaled), ImageResizer.contentType(scaled));
+    }
+
+    private record Rendition(ImageVariant variant, byte[] bytes, String contentType) {
+    }
+}
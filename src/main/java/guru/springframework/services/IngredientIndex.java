@@ -0,0 +1,285 @@
+package guru.springframework.services;
+
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Recipe;
+import lombok.Getter;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index from normalized ingredient terms to the recipes using them. Every recipe gets a
+ * dense int id so a term's recipes are a compressed bitmap, and ingredient queries are bitmap operations.
+ * An ingredient given as several words ("lime juice") matches recipes having all of those terms.
+ */
+@Component
+public class IngredientIndex {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "or", "of", "the", "to", "for", "with", "into", "in", "about", "plus", "more",
+            "fresh", "freshly", "ripe", "dried", "minced", "chopped", "sliced", "diced", "grated", "halved",
+            "thinly", "finely", "roughly", "packed", "large", "small", "medium", "removed", "cut", "taste",
+            "garnish", "serve");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private final List<String> recipeIds = new ArrayList<>();
+    private final List<String[]> docTerms = new ArrayList<>();
+    private final Map<String, RoaringBitmap> postings = new HashMap<>();
+    private final RoaringBitmap live = new RoaringBitmap();
+
+    public void index(Recipe recipe) {
+        index(recipe.getId(), recipe.getIngredients().stream()
+                .map(Ingredient::getDescription)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Adds the recipe, or replaces what was indexed for it before.
+     */
+    public void index(String recipeId, Collection<String> ingredientDescriptions) {
+        Set<String> terms = new LinkedHashSet<>();
+        ingredientDescriptions.forEach(description -> terms.addAll(terms(description)));
+
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIds.get(recipeId);
+            if (docId == null) {
+                docId = recipeIds.size();
+                docIds.put(recipeId, docId);
+                recipeIds.add(recipeId);
+                docTerms.add(null);
+            } else {
+                unpost(docId);
+            }
+
+            int doc = docId;
+            terms.forEach(term -> postings.computeIfAbsent(term, t -> new RoaringBitmap()).add(doc));
+            docTerms.set(doc, terms.toArray(new String[0]));
+            live.add(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the recipe. Its int id is not reused until the index is rebuilt.
+     */
+    public void remove(String recipeId) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIds.remove(recipeId);
+            if (docId != null) {
+                unpost(docId);
+                recipeIds.set(docId, null);
+                docTerms.set(docId, null);
+                live.remove(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            docIds.clear();
+            recipeIds.clear();
+            docTerms.clear();
+            postings.clear();
+            live.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recipes with every ingredient in allOf, at least one in anyOf (when not empty) and none in noneOf.
+     */
+    public List<String> find(Collection<String> allOf, Collection<String> anyOf, Collection<String> noneOf, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = candidates(anyOf, noneOf);
+            withTerms(allOf).forEach(ingredient -> result.and(matching(ingredient)));
+
+            List<String> found = new ArrayList<>();
+            IntIterator docs = result.getIntIterator();
+            while (docs.hasNext() && found.size() < limit) {
+                found.add(recipeIds.get(docs.next()));
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recipes having at least one of the ingredients and lacking at most maxMissing of them, the fewest missing first.
+     */
+    public List<Match> findMissingAtMost(Collection<String> ingredients, int maxMissing, int limit) {
+        return findMissingAtMost(ingredients, maxMissing, List.of(), List.of(), limit);
+    }
+
+    /**
+     * Like {@link #findMissingAtMost(Collection, int, int)}, only recipes with at least one ingredient in anyOf
+     * (when not empty) and none in noneOf.
+     */
+    public List<Match> findMissingAtMost(Collection<String> ingredients, int maxMissing,
+                                         Collection<String> anyOf, Collection<String> noneOf, int limit) {
+        List<String> wanted = withTerms(ingredients);
+        int count = wanted.size();
+
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> matches = wanted.stream().map(this::matching).collect(Collectors.toList());
+
+            //atLeast[n] holds the recipes having at least n of the ingredients seen so far
+            RoaringBitmap[] atLeast = new RoaringBitmap[count + 2];
+            atLeast[0] = candidates(anyOf, noneOf);
+            for (int n = 1; n < atLeast.length; n++) {
+                atLeast[n] = new RoaringBitmap();
+            }
+            for (int i = 0; i < count; i++) {
+                for (int n = i + 1; n >= 1; n--) {
+                    atLeast[n].or(RoaringBitmap.and(atLeast[n - 1], matches.get(i)));
+                }
+            }
+
+            List<Match> found = new ArrayList<>();
+            for (int n = count; n >= Math.max(1, count - maxMissing) && found.size() < limit; n--) {
+                IntIterator docs = RoaringBitmap.andNot(atLeast[n], atLeast[n + 1]).getIntIterator();
+                while (docs.hasNext() && found.size() < limit) {
+                    int doc = docs.next();
+                    List<String> missing = new ArrayList<>();
+                    for (int i = 0; i < count; i++) {
+                        if (!matches.get(i).contains(doc)) {
+                            missing.add(wanted.get(i));
+                        }
+                    }
+                    found.add(new Match(recipeIds.get(doc), missing));
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The live recipes with at least one ingredient in anyOf (when not empty) and none in noneOf.
+     */
+    private RoaringBitmap candidates(Collection<String> anyOf, Collection<String> noneOf) {
+        RoaringBitmap result = live.clone();
+
+        List<String> any = withTerms(anyOf);
+        if (!any.isEmpty()) {
+            RoaringBitmap matchingAny = new RoaringBitmap();
+            any.forEach(ingredient -> matchingAny.or(matching(ingredient)));
+            result.and(matchingAny);
+        }
+
+        withTerms(noneOf).forEach(ingredient -> result.andNot(matching(ingredient)));
+        return result;
+    }
+
+    /**
+     * The distinct ingredients that have any terms left after normalizing, the others cannot match anything.
+     */
+    private static List<String> withTerms(Collection<String> ingredients) {
+        return ingredients.stream()
+                .filter(ingredient -> !terms(ingredient).isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Recipes having every term of the ingredient.
+     */
+    private RoaringBitmap matching(String ingredient) {
+        RoaringBitmap result = null;
+        for (String term : terms(ingredient)) {
+            RoaringBitmap posting = postings.get(term);
+            if (posting == null) {
+                return new RoaringBitmap();
+            }
+            result = result == null ? posting.clone() : RoaringBitmap.and(result, posting);
+        }
+        return result;
+    }
+
+    private void unpost(int docId) {
+        String[] terms = docTerms.get(docId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            RoaringBitmap posting = postings.get(term);
+            posting.remove(docId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    /**
+     * Lower cased words of an ingredient description, without preparation words and with plurals made singular.
+     */
+    static Set<String> terms(String text) {
+        if (text == null) {
+            return Collections.emptySet();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}]+"))
+                .filter(word -> word.length() > 1 && !STOP_WORDS.contains(word))
+                .map(IngredientIndex::singular)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static String singular(String word) {
+        if (word.length() > 4 && word.endsWith("ies")) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.length() > 4 && (word.endsWith("oes") || word.endsWith("shes") || word.endsWith("ches") || word.endsWith("xes"))) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is")) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    @Getter
+    public static final class Match {
+
+        private final String recipeId;
+        private final List<String> missing;
+
+        Match(String recipeId, List<String> missing) {
+            this.recipeId = recipeId;
+            this.missing = missing;
+        }
+    }
+}
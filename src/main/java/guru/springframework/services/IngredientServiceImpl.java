@@ -4,9 +4,8 @@ import guru.springframework.commands.IngredientCommand;
 import guru.springframework.converters.IngredientCommandToIngredient;
 import guru.springframework.converters.IngredientToIngredientCommand;
 import guru.springframework.domain.Ingredient;
-import guru.springframework.domain.Recipe;
+import guru.springframework.exceptions.NotFoundException;
 import guru.springframework.repositories.reactive.RecipeReactiveRepository;
-import guru.springframework.repositories.reactive.UnitOfMeasureReactiveRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
@@ -23,16 +22,19 @@ public class IngredientServiceImpl implements IngredientService {
     private final IngredientToIngredientCommand ingredientToIngredientCommand;
     private final IngredientCommandToIngredient ingredientCommandToIngredient;
     private final RecipeReactiveRepository recipeReactiveRepository;
-    private final UnitOfMeasureReactiveRepository unitOfMeasureReactiveRepository;
+    private final UnitOfMeasureService unitOfMeasureService;
+    private final IngredientIndex ingredientIndex;
 
     public IngredientServiceImpl(IngredientToIngredientCommand ingredientToIngredientCommand,
                                  IngredientCommandToIngredient ingredientCommandToIngredient,
                                  RecipeReactiveRepository recipeReactiveRepository,
-                                 UnitOfMeasureReactiveRepository unitOfMeasureReactiveRepository) {
+                                 UnitOfMeasureService unitOfMeasureService,
+                                 IngredientIndex ingredientIndex) {
         this.ingredientToIngredientCommand = ingredientToIngredientCommand;
         this.ingredientCommandToIngredient = ingredientCommandToIngredient;
         this.recipeReactiveRepository = recipeReactiveRepository;
-        this.unitOfMeasureReactiveRepository = unitOfMeasureReactiveRepository;
+        this.unitOfMeasureService = unitOfMeasureService;
+        this.ingredientIndex = ingredientIndex;
     }
 
     @Override
@@ -54,61 +56,52 @@ public class IngredientServiceImpl implements IngredientService {
     @Override
     public Mono<IngredientCommand> saveIngredientCommand(IngredientCommand command) {
 
-        return recipeReactiveRepository
-            .findById(command.getRecipeId())
-                .flatMap(
-                    recipe -> {
-                        Optional<Ingredient> ingredientOptional =
-                        recipe.getIngredients().stream()
-                            .filter(ingredient -> ingredient.getId().equals(command.getId())).findFirst();
-
-                        if(ingredientOptional.isPresent()){
-                            Ingredient ingredientFound = ingredientOptional.get();
-                            ingredientFound.setDescription(command.getDescription());
-                            ingredientFound.setAmount(command.getAmount());
-                            unitOfMeasureReactiveRepository.findById(command.getUom().getId())
-                                    .map(unitOfMeasure -> {
-                                        ingredientFound.setUom(unitOfMeasure);
-                                        return unitOfMeasure;
-                                    });
-                        } else {
-                            //add new Ingredient
-                            Ingredient ingredient = ingredientCommandToIngredient.convert(command);
-                            unitOfMeasureReactiveRepository.findById(command.getUom().getId())
-                                    .map(unitOfMeasure -> {
-                                        ingredient.setUom(unitOfMeasure);
-                                        recipe.addIngredient(ingredient);
-                                        return unitOfMeasure;
-                                    });
-                            recipe.getIngredients().add(ingredient);
-                        }
-                        return recipeReactiveRepository.save(recipe);
+        Ingredient ingredient = ingredientCommandToIngredient.convert(command);
+        boolean existing = command.getId() != null && !command.getId().isEmpty();
+
+        return unitOfMeasureService.findUomById(command.getUom().getId())
+                .switchIfEmpty(Mono.error(new NotFoundException("Unit Of Measure Not Found. For ID value: " + command.getUom().getId())))
+                .flatMap(unitOfMeasure -> {
+                    ingredient.setUom(unitOfMeasure);
+
+                    //only the ingredient subdocument is written, never the whole recipe; an ingredient
+                    //deleted while it was being edited stays deleted rather than being added back
+                    if (existing) {
+                        return recipeReactiveRepository.updateIngredient(command.getRecipeId(), ingredient)
+                                .filter(Boolean::booleanValue)
+                                .switchIfEmpty(Mono.error(new NotFoundException("Ingredient Not Found. For ID value: "
+                                        + command.getId())));
                     }
-                ).map(savedRecipe ->
-                        savedRecipe.getIngredients().stream().filter(
-                                ingredient -> ingredient.getId().equals(command.getId())
-                        ).findFirst().get())
-                .map(ingredientToIngredientCommand::convert);
-    }
 
+                    return recipeReactiveRepository.addIngredient(command.getRecipeId(), ingredient)
+                            .filter(Boolean::booleanValue)
+                            .switchIfEmpty(Mono.error(new NotFoundException("Recipe Not Found. For ID value: "
+                                    + command.getRecipeId())));
+                })
+                .flatMap(saved -> reindex(command.getRecipeId()).thenReturn(ingredient))
+                .map(savedIngredient -> {
+                    IngredientCommand savedCommand = ingredientToIngredientCommand.convert(savedIngredient);
+                    savedCommand.setRecipeId(command.getRecipeId());
+                    return savedCommand;
+                });
+    }
 
     @Override
     public Mono<Void> deleteById(String recipeId, String idToDelete) {
 
         log.debug("Deleting ingredient: " + recipeId + ":" + idToDelete);
 
-        recipeReactiveRepository.findById(recipeId).map(recipe -> {
-            recipe
-                .getIngredients()
-                .stream()
-                .filter(ingredient -> ingredient.getId().equals(idToDelete))
-                .findFirst()
-                .ifPresent(ingredientToDelete -> {
-                    recipe.getIngredients().remove(ingredientToDelete);
-                    recipeReactiveRepository.save(recipe).block();
-               });
-            return recipe;
-        }).block();
-        return Mono.empty();
+        return recipeReactiveRepository.removeIngredient(recipeId, idToDelete)
+                .filter(Boolean::booleanValue)
+                .flatMap(removed -> reindex(recipeId));
+    }
+
+    /**
+     * Re-reads the ingredients of the recipe just written, so the ingredient index matches what was stored.
+     */
+    private Mono<Void> reindex(String recipeId) {
+        return recipeReactiveRepository.findById(recipeId)
+                .doOnNext(ingredientIndex::index)
+                .then();
     }
 }
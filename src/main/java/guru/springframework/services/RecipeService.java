@@ -2,9 +2,13 @@ package guru.springframework.services;
 
 import guru.springframework.commands.RecipeCommand;
 import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeIngredientMatch;
+import guru.springframework.domain.RecipeSearchResult;
+import guru.springframework.domain.RecipeSummary;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -14,6 +18,28 @@ public interface RecipeService {
 
     Flux<Recipe> getRecipes();
 
+    /**
+     * Recipe summaries in id order, starting after the given id (or from the first recipe when null).
+     */
+    Flux<RecipeSummary> listRecipes(String after, int size);
+
+    /**
+     * Like {@link #listRecipes(String, int)}, only recipes in the given category.
+     */
+    Flux<RecipeSummary> listRecipesInCategory(String categoryId, String after, int size);
+
+    /**
+     * Recipes matching the search text, best match first, skipping the first offset matches.
+     */
+    Flux<RecipeSearchResult> searchRecipes(String text, long offset, int limit);
+
+    /**
+     * Recipes with all of, one of and none of the given ingredients, as found by the {@link IngredientIndex}.
+     * With maxMissing above 0 a recipe may lack up to that many of the allOf ingredients, the fewest missing first.
+     */
+    Flux<RecipeIngredientMatch> findByIngredients(List<String> allOf, List<String> anyOf, List<String> noneOf,
+                                                  int maxMissing, int limit);
+
     Mono<Recipe> findById(String id);
 
     Mono<RecipeCommand> findCommandById(String id);
@@ -4,15 +4,27 @@ import guru.springframework.commands.RecipeCommand;
 import guru.springframework.converters.RecipeCommandToRecipe;
 import guru.springframework.converters.RecipeToRecipeCommand;
 import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeIngredientMatch;
+import guru.springframework.domain.RecipeSearchResult;
+import guru.springframework.domain.RecipeSummary;
 import guru.springframework.exceptions.NotFoundException;
+import guru.springframework.repositories.reactive.RecipeImageStore;
 import guru.springframework.repositories.reactive.RecipeReactiveRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 
@@ -23,14 +35,23 @@ import java.util.Set;
 @Service
 public class RecipeServiceImpl implements RecipeService {
 
+    private static final int MAX_SAVE_RETRIES = 3;
+    private static final Duration SAVE_RETRY_BACKOFF = Duration.ofMillis(20);
+
     private final RecipeReactiveRepository recipeReactiveRepository;
     private final RecipeCommandToRecipe recipeCommandToRecipe;
     private final RecipeToRecipeCommand recipeToRecipeCommand;
+    private final RecipeImageStore recipeImageStore;
+    private final IngredientIndex ingredientIndex;
 
-    public RecipeServiceImpl(RecipeReactiveRepository recipeReactiveRepository, RecipeCommandToRecipe recipeCommandToRecipe, RecipeToRecipeCommand recipeToRecipeCommand) {
+    public RecipeServiceImpl(RecipeReactiveRepository recipeReactiveRepository, RecipeCommandToRecipe recipeCommandToRecipe,
+                             RecipeToRecipeCommand recipeToRecipeCommand, RecipeImageStore recipeImageStore,
+                             IngredientIndex ingredientIndex) {
         this.recipeReactiveRepository = recipeReactiveRepository;
         this.recipeCommandToRecipe = recipeCommandToRecipe;
         this.recipeToRecipeCommand = recipeToRecipeCommand;
+        this.recipeImageStore = recipeImageStore;
+        this.ingredientIndex = ingredientIndex;
     }
 
     @Override
@@ -39,6 +60,54 @@ public class RecipeServiceImpl implements RecipeService {
         return recipeReactiveRepository.findAll();
     }
 
+    @Override
+    public Flux<RecipeSummary> listRecipes(String after, int size) {
+        return after == null
+                ? recipeReactiveRepository.findAllByOrderByIdAsc(Limit.of(size))
+                : recipeReactiveRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(size));
+    }
+
+    @Override
+    public Flux<RecipeSummary> listRecipesInCategory(String categoryId, String after, int size) {
+        return after == null
+                ? recipeReactiveRepository.findByCategoryIdsOrderByIdAsc(categoryId, Limit.of(size))
+                : recipeReactiveRepository.findByCategoryIdsAndIdGreaterThanOrderByIdAsc(categoryId, after, Limit.of(size));
+    }
+
+    @Override
+    public Flux<RecipeSearchResult> searchRecipes(String text, long offset, int limit) {
+        if (text == null || text.isBlank()) {
+            return Flux.empty();
+        }
+        return recipeReactiveRepository.search(text.trim(), offset, limit);
+    }
+
+    /**
+     * The index answers from memory, then the summaries of the found recipes are fetched in one query.
+     */
+    @Override
+    public Flux<RecipeIngredientMatch> findByIngredients(List<String> allOf, List<String> anyOf, List<String> noneOf,
+                                                         int maxMissing, int limit) {
+        if (allOf.isEmpty() && anyOf.isEmpty() && noneOf.isEmpty()) {
+            return Flux.empty();
+        }
+
+        return Mono.fromCallable(() -> maxMissing > 0 && !allOf.isEmpty()
+                        ? ingredientIndex.findMissingAtMost(allOf, maxMissing, anyOf, noneOf, limit)
+                        : ingredientIndex.find(allOf, anyOf, noneOf, limit).stream()
+                                .map(recipeId -> new IngredientIndex.Match(recipeId, List.of()))
+                                .toList())
+                .filter(matches -> !matches.isEmpty())
+                .flatMapMany(matches -> recipeReactiveRepository
+                        .findByIdIn(matches.stream().map(IngredientIndex.Match::getRecipeId).toList())
+                        .collectMap(RecipeSummary::getId)
+                        //in the order the index found them
+                        .flatMapIterable(summaries -> matches.stream()
+                                .filter(match -> summaries.containsKey(match.getRecipeId()))
+                                .map(match -> new RecipeIngredientMatch(summaries.get(match.getRecipeId()), match.getMissing()))
+                                .toList()));
+    }
+
     @Override
     public Mono<Recipe> findById(String id) {
         return recipeReactiveRepository.findById(id);
@@ -52,14 +121,112 @@ public class RecipeServiceImpl implements RecipeService {
 
     @Override
     public Mono<RecipeCommand> saveRecipeCommand(RecipeCommand command) {
-        return recipeReactiveRepository
-                .save(recipeCommandToRecipe.convert(command))
+
+        if (command.getId() == null || command.getId().isEmpty()) {
+            Recipe recipe = recipeCommandToRecipe.convert(command);
+            recipe.setId(null);
+
+            return recipeReactiveRepository.save(recipe)
+                    .doOnNext(ingredientIndex::index)
+                    .map(recipeToRecipeCommand::convert);
+        }
+
+        return Mono.defer(() -> updateRecipe(command))
+                .retryWhen(Retry.backoff(MAX_SAVE_RETRIES, SAVE_RETRY_BACKOFF)
+                        .filter(ConcurrentWriteException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> new OptimisticLockingFailureException(
+                                "Recipe " + command.getId() + " kept changing while saving", signal.failure())))
                 .map(recipeToRecipeCommand::convert);
     }
 
+    /**
+     * Writes only the properties the form changed, conditional on the version the form was opened at, where
+     * another edit landing first is a real conflict. A command without a version expects the one just read, so
+     * losing that race is retried against a fresh read. Ingredients and the image have their own unversioned
+     * updates and are never written from here.
+     */
+    private Mono<Recipe> updateRecipe(RecipeCommand command) {
+        Recipe edited = recipeCommandToRecipe.convert(command);
+
+        return recipeReactiveRepository.findById(command.getId())
+                .switchIfEmpty(Mono.error(new NotFoundException("Recipe Not Found. For ID value: " + command.getId())))
+                .flatMap(current -> {
+                    if (command.getVersion() != null && !command.getVersion().equals(current.getVersion())) {
+                        return Mono.error(new OptimisticLockingFailureException(
+                                "Recipe " + current.getId() + " was changed since version " + command.getVersion()));
+                    }
+
+                    Map<String, Object> changes = changedFields(current, edited);
+                    if (changes.isEmpty()) {
+                        return Mono.just(current);
+                    }
+
+                    Long expectedVersion = command.getVersion() != null ? command.getVersion() : current.getVersion();
+                    return recipeReactiveRepository.updateFields(current.getId(), expectedVersion, changes)
+                            .flatMap(updated -> {
+                                if (updated) {
+                                    return recipeReactiveRepository.findById(current.getId());
+                                }
+                                return Mono.error(command.getVersion() != null
+                                        ? new OptimisticLockingFailureException(
+                                                "Recipe " + current.getId() + " was changed while saving")
+                                        : new ConcurrentWriteException());
+                            });
+                });
+    }
+
+    private Map<String, Object> changedFields(Recipe current, Recipe edited) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+
+        putIfChanged(changes, "description", current.getDescription(), edited.getDescription());
+        putIfChanged(changes, "prepTime", current.getPrepTime(), edited.getPrepTime());
+        putIfChanged(changes, "cookTime", current.getCookTime(), edited.getCookTime());
+        putIfChanged(changes, "servings", current.getServings(), edited.getServings());
+        putIfChanged(changes, "source", current.getSource(), edited.getSource());
+        putIfChanged(changes, "url", current.getUrl(), edited.getUrl());
+        putIfChanged(changes, "directions", current.getDirections(), edited.getDirections());
+        putIfChanged(changes, "difficulty", current.getDifficulty(), edited.getDifficulty());
+
+        if (!Objects.equals(recipeNotes(current), recipeNotes(edited))) {
+            changes.put("notes", edited.getNotes());
+        }
+        putIfChanged(changes, "categoryIds", current.getCategoryIds(), edited.getCategoryIds());
+        return changes;
+    }
+
+    private static void putIfChanged(Map<String, Object> changes, String property, Object current, Object edited) {
+        if (!Objects.equals(current, edited)) {
+            changes.put(property, edited);
+        }
+    }
+
+    private static String recipeNotes(Recipe recipe) {
+        return recipe.getNotes() != null ? recipe.getNotes().getRecipeNotes() : null;
+    }
+
     @Override
     public Mono<Void> deleteById(String idToDelete) {
-        recipeReactiveRepository.deleteById(idToDelete).block();
-        return Mono.empty();
+        //nothing to clean up when the recipe was already gone
+        return recipeReactiveRepository.removeRecipe(idToDelete)
+                .filter(Boolean::booleanValue)
+                .doOnNext(deleted -> {
+                    ingredientIndex.remove(idToDelete);
+                    deleteImagesInBackground(idToDelete);
+                })
+                .then();
+    }
+
+    /**
+     * Image files are tagged with their recipe id, so they can be removed after the delete has been answered.
+     */
+    private void deleteImagesInBackground(String recipeId) {
+        recipeImageStore.deleteByRecipeId(recipeId)
+                .subscribe(null, e -> log.error("Error deleting images for recipe id: " + recipeId, e));
+    }
+
+    /**
+     * Another write got in between reading the recipe and the conditional update.
+     */
+    private static class ConcurrentWriteException extends RuntimeException {
     }
 }
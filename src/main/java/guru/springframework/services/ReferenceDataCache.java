@@ -0,0 +1,135 @@
+package guru.springframework.services;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a whole small, rarely written collection in memory. The snapshot is loaded once, shared by
+ * concurrent subscribers, and reloaded after the TTL or an explicit {@link #invalidate()}. A collection
+ * larger than maxSize is not held completely, so lookups outside the snapshot go to the loaders.
+ */
+@Slf4j
+public class ReferenceDataCache<T> {
+
+    private final String name;
+    private final Supplier<Flux<T>> loadAll;
+    private final Function<String, Mono<T>> loadOne;
+    private final Clock clock;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Mono<Snapshot<T>> snapshot;
+
+    public ReferenceDataCache(String name, Supplier<Flux<T>> loadAll, Function<String, Mono<T>> loadOne,
+                              Function<T, String> idOf, int maxSize, Duration ttl) {
+        this(name, loadAll, loadOne, idOf, maxSize, ttl, Clock.systemUTC());
+    }
+
+    ReferenceDataCache(String name, Supplier<Flux<T>> loadAll, Function<String, Mono<T>> loadOne,
+                       Function<T, String> idOf, int maxSize, Duration ttl, Clock clock) {
+        this.name = name;
+        this.loadAll = loadAll;
+        this.loadOne = loadOne;
+        this.clock = clock;
+
+        this.snapshot = Mono.defer(() -> {
+                    long loadedGeneration = generation.get();
+                    return loadAll.get()
+                            .take(maxSize + 1L)
+                            .collectList()
+                            .map(entries -> new Snapshot<>(entries, idOf, maxSize, loadedGeneration, clock.instant().plus(ttl)));
+                })
+                .doOnNext(loaded -> log.debug("Loaded " + loaded.values.size() + " " + name + " entries"
+                        + (loaded.complete ? "" : ", more than the cache holds")))
+                .cacheInvalidateIf(this::isStale);
+    }
+
+    public Flux<T> findAll() {
+        return snapshot.flatMapMany(current -> {
+            if (current.complete) {
+                hits.incrementAndGet();
+                return Flux.fromIterable(current.values);
+            }
+            misses.incrementAndGet();
+            return loadAll.get();
+        });
+    }
+
+    public Mono<T> findById(String id) {
+        return snapshot.flatMap(current -> {
+            T value = current.byId.get(id);
+            if (value != null) {
+                hits.incrementAndGet();
+                return Mono.just(value);
+            }
+            misses.incrementAndGet();
+            //a complete snapshot already knows the id does not exist
+            return current.complete ? Mono.empty() : loadOne.apply(id);
+        });
+    }
+
+    /**
+     * Drops the snapshot, the next read loads a new one.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Replaces the snapshot now, e.g. to warm the cache at startup.
+     */
+    public Mono<Void> refresh() {
+        invalidate();
+        return snapshot.then();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    private boolean isStale(Snapshot<T> current) {
+        return current.generation != generation.get() || !clock.instant().isBefore(current.expiresAt);
+    }
+
+    private static final class Snapshot<T> {
+
+        private final List<T> values;
+        private final Map<String, T> byId = new LinkedHashMap<>();
+        private final boolean complete;
+        private final long generation;
+        private final Instant expiresAt;
+
+        private Snapshot(List<T> entries, Function<T, String> idOf, int maxSize, long generation, Instant expiresAt) {
+            this.complete = entries.size() <= maxSize;
+            this.values = complete ? entries : entries.subList(0, maxSize);
+            this.values.forEach(value -> byId.put(idOf.apply(value), value));
+            this.generation = generation;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
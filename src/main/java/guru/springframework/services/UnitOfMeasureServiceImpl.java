@@ -2,14 +2,10 @@ package guru.springframework.services;
 
 import guru.springframework.commands.UnitOfMeasureCommand;
 import guru.springframework.converters.UnitOfMeasureToUnitOfMeasureCommand;
-import guru.springframework.repositories.UnitOfMeasureRepository;
-import guru.springframework.repositories.reactive.UnitOfMeasureReactiveRepository;
+import guru.springframework.domain.UnitOfMeasure;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
-
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import reactor.core.publisher.Mono;
 
 /**
  * Created by jt on 6/28/17.
@@ -17,16 +13,21 @@ import java.util.stream.StreamSupport;
 @Service
 public class UnitOfMeasureServiceImpl implements UnitOfMeasureService {
 
-    private final UnitOfMeasureReactiveRepository unitOfMeasureReactiveRepository;
+    private final ReferenceDataCache<UnitOfMeasure> unitOfMeasureCache;
     private final UnitOfMeasureToUnitOfMeasureCommand unitOfMeasureToUnitOfMeasureCommand;
 
-    public UnitOfMeasureServiceImpl(UnitOfMeasureReactiveRepository unitOfMeasureReactiveRepository, UnitOfMeasureToUnitOfMeasureCommand unitOfMeasureToUnitOfMeasureCommand) {
-        this.unitOfMeasureReactiveRepository = unitOfMeasureReactiveRepository;
+    public UnitOfMeasureServiceImpl(ReferenceDataCache<UnitOfMeasure> unitOfMeasureCache, UnitOfMeasureToUnitOfMeasureCommand unitOfMeasureToUnitOfMeasureCommand) {
+        this.unitOfMeasureCache = unitOfMeasureCache;
         this.unitOfMeasureToUnitOfMeasureCommand = unitOfMeasureToUnitOfMeasureCommand;
     }
 
     @Override
     public Flux<UnitOfMeasureCommand> listAllUoms() {
-        return unitOfMeasureReactiveRepository.findAll().map(unitOfMeasureToUnitOfMeasureCommand::convert);
+        return unitOfMeasureCache.findAll().map(unitOfMeasureToUnitOfMeasureCommand::convert);
+    }
+
+    @Override
+    public Mono<UnitOfMeasure> findUomById(String id) {
+        return unitOfMeasureCache.findById(id);
     }
 }
@@ -0,0 +1,69 @@
+package guru.springframework.bootstrap;
+
+import guru.springframework.domain.UnitOfMeasure;
+import guru.springframework.repositories.reactive.CategoryReactiveRepository;
+import guru.springframework.repositories.reactive.RecipeReactiveRepository;
+import guru.springframework.repositories.reactive.UnitOfMeasureReactiveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Created by jt on 6/17/17.
+ */
+@ExtendWith(SpringExtension.class)
+@DataMongoTest
+public class RecipeBootstrapIT {
+
+    @Autowired
+    CategoryReactiveRepository categoryReactiveRepository;
+
+    @Autowired
+    RecipeReactiveRepository recipeReactiveRepository;
+
+    @Autowired
+    UnitOfMeasureReactiveRepository unitOfMeasureReactiveRepository;
+
+    @Autowired
+    ReactiveMongoTemplate mongoOperations;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        categoryReactiveRepository.deleteAll()
+                .then(recipeReactiveRepository.deleteAll())
+                .then(unitOfMeasureReactiveRepository.deleteAll())
+                .then(new RecipeBootstrap(mongoOperations).load())
+                .block();
+    }
+
+    @Test
+    public void findByDescription() throws Exception {
+
+        UnitOfMeasure uom = unitOfMeasureReactiveRepository.findByDescription("Teaspoon").block();
+
+        assertEquals("Teaspoon", uom.getDescription());
+    }
+
+    @Test
+    public void findByDescriptionCup() throws Exception {
+
+        UnitOfMeasure uom = unitOfMeasureReactiveRepository.findByDescription("Cup").block();
+
+        assertEquals("Cup", uom.getDescription());
+    }
+
+    @Test
+    public void loadIsIdempotent() throws Exception {
+        assertEquals(Long.valueOf(0L), new RecipeBootstrap(mongoOperations).load().block());
+
+        assertEquals(Long.valueOf(8L), unitOfMeasureReactiveRepository.count().block());
+        assertEquals(Long.valueOf(4L), categoryReactiveRepository.count().block());
+        assertEquals(Long.valueOf(2L), recipeReactiveRepository.count().block());
+    }
+}
@@ -0,0 +1,160 @@
+package guru.springframework.bootstrap;
+
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.UnitOfMeasure;
+import guru.springframework.services.ImageResizer;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecipeDataGeneratorTest {
+
+    List<UnitOfMeasure> unitsOfMeasure;
+    List<Category> categories;
+    MappingMongoConverter mongoConverter;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        unitsOfMeasure = IntStream.range(0, 8).mapToObj(i -> {
+            UnitOfMeasure unitOfMeasure = new UnitOfMeasure();
+            unitOfMeasure.setId("uom" + i);
+            unitOfMeasure.setDescription("Unit " + i);
+            return unitOfMeasure;
+        }).collect(Collectors.toList());
+
+        categories = IntStream.range(0, 4).mapToObj(i -> {
+            Category category = new Category();
+            category.setId("category" + i);
+            category.setDescription("Category " + i);
+            return category;
+        }).collect(Collectors.toList());
+
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mongoConverter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        mongoConverter.setCustomConversions(conversions);
+        mongoConverter.afterPropertiesSet();
+    }
+
+    @Test
+    public void sameSeedGivesSameRecipes() throws Exception {
+        List<Document> first = documents(new RecipeDataGenerator(7, unitsOfMeasure, categories), 200);
+        //reference data in another order must not matter
+        List<UnitOfMeasure> reversed = new ArrayList<>(unitsOfMeasure);
+        Collections.reverse(reversed);
+        List<Document> second = documents(new RecipeDataGenerator(7, reversed, categories), 200);
+
+        assertEquals(first, second);
+        assertEquals(RecipeDataGenerator.idOf(0), first.get(0).get("_id").toString());
+        //nothing process specific in the ids, a restarted application finds the recipes it loaded
+        assertEquals("59682f000000000000000000", RecipeDataGenerator.idOf(0));
+    }
+
+    @Test
+    public void anyRecipeCanBeGeneratedAlone() throws Exception {
+        RecipeDataGenerator generator = new RecipeDataGenerator(7, unitsOfMeasure, categories);
+
+        assertEquals(documents(generator, 100).get(99), document(generator.recipe(99)));
+    }
+
+    @Test
+    public void differentSeedGivesDifferentRecipes() throws Exception {
+        assertNotEquals(documents(new RecipeDataGenerator(7, unitsOfMeasure, categories), 20),
+                documents(new RecipeDataGenerator(8, unitsOfMeasure, categories), 20));
+    }
+
+    @Test
+    public void distributions() throws Exception {
+        List<Recipe> recipes = new RecipeDataGenerator(7, unitsOfMeasure, categories).recipes(10_000).collectList().block();
+
+        double ingredients = recipes.stream().mapToInt(recipe -> recipe.getIngredients().size()).average().getAsDouble();
+        long withImage = recipes.stream().filter(recipe -> recipe.getImage() != null).count();
+        long salted = recipes.stream().filter(recipe -> recipe.getIngredients().stream()
+                .map(Ingredient::getDescription).anyMatch("salt"::equals)).count();
+        long saffron = recipes.stream().filter(recipe -> recipe.getIngredients().stream()
+                .map(Ingredient::getDescription).anyMatch("saffron"::equals)).count();
+
+        assertTrue(ingredients > 8 && ingredients < 12, "mean ingredients " + ingredients);
+        assertTrue(withImage > 4000 && withImage < 5000, "with image " + withImage);
+        assertTrue(salted > 10 * saffron, "salt " + salted + ", saffron " + saffron);
+        assertTrue(recipes.stream().allMatch(recipe -> !recipe.getCategoryIds().isEmpty()
+                && recipe.getNotes() != null && !recipe.getDirections().isEmpty()));
+    }
+
+    @Test
+    public void imagesAreSharedAndBackedByContent() throws Exception {
+        List<RecipeDataGenerator.SharedImage> sharedImages = RecipeDataGenerator.sharedImages();
+        Set<String> fileIds = sharedImages.stream().map(shared -> shared.image().getFileId()).collect(Collectors.toSet());
+
+        assertTrue(new RecipeDataGenerator(7, unitsOfMeasure, categories).recipes(200).collectList().block().stream()
+                .filter(recipe -> recipe.getImage() != null)
+                .allMatch(recipe -> fileIds.contains(recipe.getImage().getFileId())));
+
+        for (RecipeDataGenerator.SharedImage shared : sharedImages) {
+            assertEquals(shared.content().length, shared.image().getLength().intValue());
+            assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(shared.content())),
+                    shared.image().getContentHash());
+            assertEquals(shared.image().getContentType(), ImageResizer.contentType(ImageResizer.decode(shared.content())));
+        }
+        assertTrue(sharedImages.stream().anyMatch(shared -> shared.image().getContentType().equals("image/png")));
+    }
+
+    @Test
+    public void replaysWrittenFileAgainstOtherReferenceIds(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("recipes.jsonl");
+        RecipeDataFile recipeDataFile = new RecipeDataFile(mongoConverter);
+
+        assertEquals(50L, recipeDataFile.write(new RecipeDataGenerator(7, unitsOfMeasure, categories).recipes(50),
+                file, categories).count().block());
+
+        //the replaying database has the same reference data under other ids
+        unitsOfMeasure.forEach(unitOfMeasure -> unitOfMeasure.setId("other-" + unitOfMeasure.getId()));
+        categories.forEach(category -> category.setId("other-" + category.getId()));
+        List<Recipe> replayed = recipeDataFile.read(file, unitsOfMeasure, categories).collectList().block();
+
+        assertEquals(documents(new RecipeDataGenerator(7, unitsOfMeasure, categories), 50),
+                replayed.stream().map(this::document).collect(Collectors.toList()));
+        assertTrue(replayed.get(0).getCategoryIds().get(0).startsWith("other-"));
+    }
+
+    @Test
+    public void replayFailsOnUnknownReferenceData(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("recipes.jsonl");
+        RecipeDataFile recipeDataFile = new RecipeDataFile(mongoConverter);
+        recipeDataFile.write(new RecipeDataGenerator(7, unitsOfMeasure, categories).recipes(5), file, categories)
+                .blockLast();
+
+        assertThrows(IllegalStateException.class,
+                () -> recipeDataFile.read(file, unitsOfMeasure, List.of()).blockLast());
+    }
+
+    private List<Document> documents(RecipeDataGenerator generator, int count) {
+        return generator.recipes(count).map(this::document).collectList().block();
+    }
+
+    private Document document(Recipe recipe) {
+        Document document = new Document();
+        mongoConverter.write(recipe, document);
+        return document;
+    }
+}
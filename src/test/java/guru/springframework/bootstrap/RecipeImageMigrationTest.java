@@ -0,0 +1,106 @@
+package guru.springframework.bootstrap;
+
+import com.mongodb.client.result.UpdateResult;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.repositories.reactive.RecipeImageStore;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RecipeImageMigrationTest {
+
+    static final byte[] IMAGE_BYTES = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 16, 'J', 'F', 'I', 'F'};
+
+    @Mock
+    ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    RecipeImageStore recipeImageStore;
+
+    RecipeImageMigration recipeImageMigration;
+
+    Map<String, byte[]> stored = new HashMap<>();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        recipeImageMigration = new RecipeImageMigration(mongoTemplate, recipeImageStore);
+
+        when(mongoTemplate.getCollectionName(Recipe.class)).thenReturn("recipe");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Recipe.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+        when(recipeImageStore.store(anyString(), any(), anyString())).thenAnswer(invocation -> {
+            Flux<DataBuffer> content = invocation.getArgument(1);
+            return DataBufferUtils.join(content).map(dataBuffer -> {
+                byte[] bytes = new byte[dataBuffer.readableByteCount()];
+                dataBuffer.read(bytes);
+                stored.put(invocation.getArgument(0), bytes);
+
+                RecipeImage image = new RecipeImage();
+                image.setFileId("file-" + invocation.getArgument(0));
+                image.setContentType(invocation.getArgument(2));
+                image.setLength((long) bytes.length);
+                return image;
+            });
+        });
+    }
+
+    @Test
+    public void migratesBoxedArraysAndBinaryData() throws Exception {
+        List<Integer> boxed = new ArrayList<>();
+        for (byte b : IMAGE_BYTES) {
+            boxed.add((int) b);
+        }
+
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("recipe"))).thenReturn(Flux.just(
+                new Document("_id", "1").append("image", boxed),
+                new Document("_id", "2").append("image", new Binary(IMAGE_BYTES)),
+                new Document("_id", "3").append("image", IMAGE_BYTES)));
+
+        Long migrated = recipeImageMigration.migrate().block();
+
+        assertEquals(Long.valueOf(3), migrated);
+        assertArrayEquals(IMAGE_BYTES, stored.get("1"));
+        assertArrayEquals(IMAGE_BYTES, stored.get("2"));
+        assertArrayEquals(IMAGE_BYTES, stored.get("3"));
+        verify(recipeImageStore, times(3)).store(anyString(), any(), eq("image/jpeg"));
+        verify(mongoTemplate, times(3)).updateFirst(any(Query.class), any(Update.class), eq(Recipe.class));
+    }
+
+    @Test
+    public void queryMatchesArraysAndBinaryData() throws Exception {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("recipe"))).thenReturn(Flux.empty());
+
+        recipeImageMigration.migrate().block();
+
+        verify(mongoTemplate).find(argThat((Query query) -> query.getQueryObject().get("image", Document.class)
+                .get("$type", List.class).containsAll(List.of("array", "binData"))), eq(Document.class), eq("recipe"));
+    }
+
+    @Test
+    public void unboxesSignedValues() throws Exception {
+        assertArrayEquals(new byte[]{-1, 0, 127}, RecipeImageMigration.bytes(List.of(-1, 0, 127)));
+    }
+}
@@ -0,0 +1,114 @@
+package guru.springframework.config;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadPreference;
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionId;
+import com.mongodb.connection.ConnectionPoolSettings;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MongoClientConfigTest {
+
+    MongoClientConfig mongoClientConfig;
+    MongoClientProperties properties;
+    SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        mongoClientConfig = new MongoClientConfig();
+        properties = new MongoClientProperties();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void appliesTheConfiguredSettings() throws Exception {
+        properties.setCompressors(List.of("zstd", " Snappy"));
+        properties.setReadPreference("secondaryPreferred");
+        properties.setServerSelectionTimeout(Duration.ofSeconds(3));
+        properties.getPool().setMaxSize(20);
+        properties.getPool().setMinSize(2);
+        properties.getPool().setMaxConnecting(4);
+        properties.getPool().setMaxWaitTime(Duration.ofMillis(1500));
+        properties.getSocket().setConnectTimeout(Duration.ofSeconds(2));
+        properties.getSocket().setReadTimeout(Duration.ofSeconds(20));
+
+        MongoClientSettings settings = customize(properties);
+
+        assertEquals(List.of("zstd", "snappy"), settings.getCompressorList().stream().map(MongoCompressor::getName).toList());
+        assertEquals(ReadPreference.secondaryPreferred(), settings.getReadPreference());
+        assertEquals(3000, settings.getClusterSettings().getServerSelectionTimeout(TimeUnit.MILLISECONDS));
+        ConnectionPoolSettings pool = settings.getConnectionPoolSettings();
+        assertEquals(20, pool.getMaxSize());
+        assertEquals(2, pool.getMinSize());
+        assertEquals(4, pool.getMaxConnecting());
+        assertEquals(1500, pool.getMaxWaitTime(TimeUnit.MILLISECONDS));
+        assertEquals(2000, settings.getSocketSettings().getConnectTimeout(TimeUnit.MILLISECONDS));
+        assertEquals(20000, settings.getSocketSettings().getReadTimeout(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void keepsTheDriverDefaultsWhenUnset() throws Exception {
+        MongoClientSettings defaults = MongoClientSettings.builder().build();
+
+        MongoClientSettings settings = customize(properties);
+
+        assertEquals(defaults.getCompressorList(), settings.getCompressorList());
+        assertEquals(defaults.getReadPreference(), settings.getReadPreference());
+        assertEquals(defaults.getConnectionPoolSettings(), settings.getConnectionPoolSettings());
+        assertEquals(defaults.getSocketSettings(), settings.getSocketSettings());
+    }
+
+    @Test
+    public void rejectsUnknownCompressors() throws Exception {
+        properties.setCompressors(List.of("lz4"));
+
+        assertThrows(IllegalArgumentException.class, () -> customize(properties));
+    }
+
+    @Test
+    public void timesConnectionCheckouts() throws Exception {
+        MongoClientSettings.Builder builder = MongoClientSettings.builder();
+        mongoClientConfig.mongoConnectionCheckoutMetrics(meterRegistry).customize(builder);
+        ConnectionPoolSettings pool = builder.build().getConnectionPoolSettings();
+        assertEquals(1, pool.getConnectionPoolListeners().size());
+
+        ServerId serverId = new ServerId(new ClusterId(), new ServerAddress("localhost", 27018));
+        pool.getConnectionPoolListeners().get(0)
+                .connectionCheckedOut(new ConnectionCheckedOutEvent(new ConnectionId(serverId), 1L, TimeUnit.MILLISECONDS.toNanos(3)));
+        pool.getConnectionPoolListeners().get(0)
+                .connectionCheckOutFailed(new ConnectionCheckOutFailedEvent(serverId, 2L,
+                        ConnectionCheckOutFailedEvent.Reason.TIMEOUT, TimeUnit.SECONDS.toNanos(5)));
+
+        Timer success = timer("success");
+        assertEquals(1, success.count());
+        assertEquals(3, success.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals("localhost:27018", success.getId().getTag("server.address"));
+        assertEquals(5, timer("timeout").totalTime(TimeUnit.SECONDS), 0.001);
+    }
+
+    private MongoClientSettings customize(MongoClientProperties properties) {
+        MongoClientSettings.Builder builder = MongoClientSettings.builder();
+        mongoClientConfig.mongoClientPropertiesCustomizer(properties).customize(builder);
+        return builder.build();
+    }
+
+    private Timer timer(String outcome) {
+        Timer timer = meterRegistry.find(MongoConnectionCheckoutListener.CHECKOUT_TIMER).tag("outcome", outcome).timer();
+        assertNotNull(timer, outcome);
+        return timer;
+    }
+}
@@ -0,0 +1,203 @@
+package guru.springframework.config;
+
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.UnitOfMeasure;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeospatialIndex;
+import org.springframework.data.mongodb.core.index.HashedIndex;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class MongoIndexManagerTest {
+
+    @Mock
+    ReactiveMongoOperations mongoOperations;
+
+    @Mock
+    ReactiveIndexOperations recipeIndexOps;
+
+    @Mock
+    ReactiveIndexOperations categoryIndexOps;
+
+    @Mock
+    ReactiveIndexOperations unitOfMeasureIndexOps;
+
+    MongoIndexManager mongoIndexManager;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setInitialEntitySet(Set.of(Recipe.class, Category.class, UnitOfMeasure.class));
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+
+        when(mongoOperations.indexOps("recipe")).thenReturn(recipeIndexOps);
+        when(mongoOperations.indexOps("category")).thenReturn(categoryIndexOps);
+        when(mongoOperations.indexOps("unitOfMeasure")).thenReturn(unitOfMeasureIndexOps);
+        when(mongoOperations.aggregate(any(Aggregation.class), anyString(), eq(Document.class)))
+                .thenReturn(Flux.error(new UnsupportedOperationException("no $indexStats")));
+
+        mongoIndexManager = new MongoIndexManager(mongoOperations, mappingContext);
+    }
+
+    @Test
+    public void resolvesDeclaredIndexes() throws Exception {
+        Map<String, List<IndexDefinition>> declared = mongoIndexManager.declaredIndexes();
+
+        assertEquals(Set.of("recipe", "category", "unitOfMeasure"), declared.keySet());
+        assertEquals(Set.of("categoryIds:1,_id:1", "text(description,directions,ingredients.description,notes.recipeNotes)"),
+                declared.get("recipe").stream().map(MongoIndexManager::keyOf).collect(Collectors.toSet()));
+        assertEquals(List.of("description:1"),
+                declared.get("category").stream().map(MongoIndexManager::keyOf).collect(Collectors.toList()));
+        assertEquals(List.of(), declared.get("unitOfMeasure"));
+    }
+
+    @Test
+    public void createsOnlyMissingIndexes() throws Exception {
+        //a text index created by hand under another name still counts
+        List<IndexInfo> recipeIndexes = List.of(idIndex(), textIndex("recipe_text"));
+        when(recipeIndexOps.getIndexInfo()).thenReturn(Flux.fromIterable(recipeIndexes),
+                Flux.fromIterable(recipeIndexes).concatWithValues(categoryIndex()));
+        when(recipeIndexOps.ensureIndex(any(IndexDefinition.class))).thenReturn(Mono.just("recipe_category"));
+        when(categoryIndexOps.getIndexInfo()).thenReturn(Flux.just(idIndex(), descriptionIndex("category_description")));
+        when(unitOfMeasureIndexOps.getIndexInfo()).thenReturn(Flux.just(idIndex()));
+
+        MongoIndexReport report = mongoIndexManager.ensureIndexes().block();
+
+        verify(recipeIndexOps, times(1)).ensureIndex(any(IndexDefinition.class));
+        verify(categoryIndexOps, never()).ensureIndex(any(IndexDefinition.class));
+        verify(unitOfMeasureIndexOps, never()).ensureIndex(any(IndexDefinition.class));
+        assertTrue(report.isComplete());
+    }
+
+    @Test
+    public void reportsMissingAndUndeclaredIndexes() throws Exception {
+        when(recipeIndexOps.getIndexInfo()).thenReturn(Flux.just(idIndex(), categoryIndex(),
+                IndexInfo.indexInfoOf(new Document("name", "source_1").append("key", new Document("source", 1)))));
+        when(categoryIndexOps.getIndexInfo()).thenReturn(Flux.just(idIndex()));
+        when(unitOfMeasureIndexOps.getIndexInfo()).thenReturn(Flux.just(idIndex()));
+
+        MongoIndexReport report = mongoIndexManager.verify().block();
+        Map<String, MongoIndexReport.CollectionIndexes> collections = report.getCollections().stream()
+                .collect(Collectors.toMap(MongoIndexReport.CollectionIndexes::getCollection, collection -> collection));
+
+        assertFalse(report.isComplete());
+        assertEquals(1, collections.get("recipe").getMissing().size());
+        assertEquals(List.of("source_1"), collections.get("recipe").getUndeclared());
+        assertEquals(List.of("category_description"), collections.get("category").getMissing());
+        assertTrue(collections.get("unitOfMeasure").getMissing().isEmpty());
+        assertTrue(collections.get("unitOfMeasure").getUndeclared().isEmpty());
+    }
+
+    @Test
+    public void reportsUnusedIndexes() throws Exception {
+        when(recipeIndexOps.getIndexInfo()).thenReturn(Flux.just(idIndex(), categoryIndex(), textIndex("recipe_text")));
+        when(categoryIndexOps.getIndexInfo()).thenReturn(Flux.just(idIndex(), descriptionIndex("category_description")));
+        when(unitOfMeasureIndexOps.getIndexInfo()).thenReturn(Flux.just(idIndex()));
+        when(mongoOperations.aggregate(any(Aggregation.class), eq("recipe"), eq(Document.class))).thenReturn(Flux.just(
+                indexStats("_id_", 0), indexStats("recipe_category", 12), indexStats("recipe_text", 0)));
+
+        MongoIndexReport report = mongoIndexManager.verify().block();
+
+        assertEquals(List.of("recipe_text"), report.getCollections().stream()
+                .filter(collection -> collection.getCollection().equals("recipe"))
+                .findFirst().get().getUnused());
+    }
+
+    @Test
+    public void healthIsDownWhileIndexesAreMissing() throws Exception {
+        when(recipeIndexOps.getIndexInfo()).thenReturn(Flux.just(idIndex()));
+        when(categoryIndexOps.getIndexInfo()).thenReturn(Flux.just(idIndex(), descriptionIndex("category_description")));
+        when(unitOfMeasureIndexOps.getIndexInfo()).thenReturn(Flux.just(idIndex()));
+
+        MongoIndexHealthIndicator healthIndicator = new MongoIndexHealthIndicator(mongoIndexManager, Duration.ofMinutes(5));
+        Health health = healthIndicator.health().block();
+
+        assertEquals(Status.DOWN, health.getStatus());
+        assertTrue(health.getDetails().containsKey("recipe"));
+
+        //an incomplete report is not kept, the indexes may have been created since
+        when(recipeIndexOps.getIndexInfo()).thenReturn(Flux.just(idIndex(), categoryIndex(), textIndex("recipe_text")));
+        assertEquals(Status.UP, healthIndicator.health().block().getStatus());
+    }
+
+    @Test
+    public void healthKeepsACompleteReport() throws Exception {
+        when(recipeIndexOps.getIndexInfo()).thenReturn(Flux.just(idIndex(), categoryIndex(), textIndex("recipe_text")));
+        when(categoryIndexOps.getIndexInfo()).thenReturn(Flux.just(idIndex(), descriptionIndex("category_description")));
+        when(unitOfMeasureIndexOps.getIndexInfo()).thenReturn(Flux.just(idIndex()));
+
+        MongoIndexHealthIndicator healthIndicator = new MongoIndexHealthIndicator(mongoIndexManager, Duration.ofMinutes(5));
+
+        assertEquals(Status.UP, healthIndicator.health().block().getStatus());
+        assertEquals(Status.UP, healthIndicator.health().block().getStatus());
+        verify(recipeIndexOps, times(1)).getIndexInfo();
+        verify(mongoOperations, times(1)).aggregate(any(Aggregation.class), eq("recipe"), eq(Document.class));
+    }
+
+    @Test
+    public void comparesHashedAndGeoIndexesByType() throws Exception {
+        IndexDefinition hashed = HashedIndex.hashed("categoryIds");
+        IndexDefinition geo = new GeospatialIndex("location").typed(GeoSpatialIndexType.GEO_2DSPHERE);
+
+        assertEquals("categoryIds:hashed", MongoIndexManager.keyOf(hashed));
+        assertEquals("location:geo", MongoIndexManager.keyOf(geo));
+        assertEquals(MongoIndexManager.keyOf(hashed), MongoIndexManager.keyOf(IndexInfo.indexInfoOf(
+                new Document("name", "categoryIds_hashed").append("key", new Document("categoryIds", "hashed")))));
+        assertEquals(MongoIndexManager.keyOf(geo), MongoIndexManager.keyOf(IndexInfo.indexInfoOf(
+                new Document("name", "location_2dsphere").append("key", new Document("location", "2dsphere")))));
+    }
+
+    private static IndexInfo idIndex() {
+        return IndexInfo.indexInfoOf(new Document("name", "_id_").append("key", new Document("_id", 1)));
+    }
+
+    private static IndexInfo categoryIndex() {
+        return IndexInfo.indexInfoOf(new Document("name", "recipe_category")
+                .append("key", new Document("categoryIds", 1).append("_id", 1)));
+    }
+
+    private static IndexInfo descriptionIndex(String name) {
+        return IndexInfo.indexInfoOf(new Document("name", name).append("key", new Document("description", 1)));
+    }
+
+    private static IndexInfo textIndex(String name) {
+        return IndexInfo.indexInfoOf(new Document("name", name)
+                .append("key", new Document("_fts", "text").append("_ftsx", 1))
+                .append("weights", new Document("description", 10).append("ingredients.description", 5)
+                        .append("notes.recipeNotes", 2).append("directions", 1)));
+    }
+
+    private static Document indexStats(String name, long ops) {
+        return new Document("name", name).append("accesses", new Document("ops", ops));
+    }
+}
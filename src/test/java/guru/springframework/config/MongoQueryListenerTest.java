@@ -0,0 +1,155 @@
+package guru.springframework.config;
+
+import com.mongodb.RequestContext;
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.reactivestreams.client.MongoClient;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(OutputCaptureExtension.class)
+public class MongoQueryListenerTest {
+
+    static final String FIND = "{\"find\": \"recipes\", \"filter\": {\"categoryIds\": \"7\", \"_id\": {\"$gt\": \"abc\"}}, "
+            + "\"sort\": {\"_id\": 1}, \"limit\": 11, \"$db\": \"app1\"}";
+
+    @Mock
+    ObjectProvider<MongoClient> mongoClient;
+
+    MongoClientProperties.Queries properties;
+    MongoQueryListener listener;
+    ConnectionDescription connection;
+    int requestId;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        properties = new MongoClientProperties.Queries();
+        properties.setSlowThreshold(Duration.ofMillis(50));
+        listener = new MongoQueryListener(properties, mongoClient);
+        connection = new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+    }
+
+    @Test
+    public void shapeLeavesTheValuesOut() throws Exception {
+        assertEquals("find recipes {\"filter\": {\"categoryIds\": \"?\", \"_id\": {\"$gt\": \"?\"}}} {\"sort\": {\"_id\": 1}}",
+                MongoQueryListener.shape("find", BsonDocument.parse(FIND)));
+
+        assertEquals("aggregate recipes {\"pipeline\": [{\"$match\": {\"$text\": {\"$search\": \"?\"}}}, {\"$sort\": {\"score\": -1}}]}",
+                MongoQueryListener.shape("aggregate", BsonDocument.parse("{\"aggregate\": \"recipes\", \"pipeline\": ["
+                        + "{\"$match\": {\"$text\": {\"$search\": \"guacamole\"}}}, {\"$sort\": {\"score\": -1}}]}")));
+
+        assertEquals("update recipes {\"q\": {\"_id\": \"?\"}}", MongoQueryListener.shape("update",
+                BsonDocument.parse("{\"update\": \"recipes\", \"updates\": [{\"q\": {\"_id\": \"1\"}, \"u\": {\"a\": 1}}]}")));
+    }
+
+    @Test
+    public void aggregatesByShapeWithTheRoute() throws Exception {
+        run(FIND, route("/category/{id}/recipes", "/category/7/recipes"), 10, "{\"cursor\": {\"firstBatch\": [{}, {}, {}], \"id\": 0}, \"ok\": 1}");
+        run(FIND.replace("\"7\"", "\"8\""), null, 30, "{\"cursor\": {\"firstBatch\": [{}], \"id\": 0}, \"ok\": 1}");
+        run("{\"count\": \"recipes\", \"query\": {}}", null, 1, "{\"n\": 2, \"ok\": 1}");
+
+        List<Map<String, Object>> stats = listener.getStats();
+        assertEquals(2, stats.size());
+
+        Map<String, Object> find = stats.get(0);
+        assertEquals(2L, find.get("count"));
+        assertEquals(4L, find.get("returned"));
+        assertEquals(40.0, find.get("totalMs"));
+        assertEquals(30.0, find.get("maxMs"));
+        assertEquals(0L, find.get("slow"));
+        assertEquals("GET /category/{id}/recipes (/category/7/recipes)", find.get("lastRoute"));
+
+        assertEquals(2L, stats.get(1).get("returned"));
+    }
+
+    @Test
+    public void logsSlowQueriesWithTheRoute(CapturedOutput output) throws Exception {
+        run(FIND, route("/", "/"), 120, "{\"cursor\": {\"firstBatch\": [], \"id\": 0}, \"ok\": 1}");
+
+        listener.commandStarted(new CommandStartedEvent(null, 1L, ++requestId, connection, "app1", "find", BsonDocument.parse(FIND)));
+        listener.commandFailed(new CommandFailedEvent(null, 1L, requestId, connection, "app1", "find",
+                TimeUnit.MILLISECONDS.toNanos(70), new IllegalStateException()));
+
+        assertEquals(2L, listener.getStats().get(0).get("slow"));
+        assertEquals(1L, listener.getStats().get(0).get("failures"));
+        assertTrue(output.getOut().contains("Slow Mongo query took 120 ms in GET / (/): find recipes"));
+        assertTrue(output.getOut().contains("Slow Mongo query took 70 ms and failed in no request"));
+    }
+
+    @Test
+    public void countsShapesBeyondTheLimitTogether() throws Exception {
+        properties.setMaxShapes(1);
+
+        run(FIND, null, 5, "{\"ok\": 1}");
+        run("{\"count\": \"recipes\", \"query\": {}}", null, 1, "{\"n\": 2, \"ok\": 1}");
+        run("{\"count\": \"categories\", \"query\": {}}", null, 1, "{\"n\": 4, \"ok\": 1}");
+
+        assertEquals(2, listener.getStats().size());
+        assertEquals(MongoQueryListener.OTHER_SHAPES, listener.getStats().get(1).get("shape"));
+        assertEquals(2L, listener.getStats().get(1).get("count"));
+    }
+
+    @Test
+    public void recordsTheSampledPlan() throws Exception {
+        MongoQueryStats stats = new MongoQueryStats("find recipes");
+
+        MongoQueryListener.explained(BsonDocument.parse("{\"queryPlanner\": {\"winningPlan\": {\"stage\": \"LIMIT\", "
+                + "\"inputStage\": {\"stage\": \"FETCH\", \"inputStage\": {\"stage\": \"IXSCAN\", \"indexName\": \"categoryIds_1__id_1\"}}}}, "
+                + "\"executionStats\": {\"nReturned\": 10, \"totalKeysExamined\": 10, \"totalDocsExamined\": 10}}"), stats);
+
+        assertEquals("LIMIT <- FETCH <- IXSCAN(categoryIds_1__id_1)", stats.getPlan());
+        assertEquals(10L, stats.snapshot().get("docsExamined"));
+
+        //an aggregation explains its query in a $cursor stage
+        MongoQueryListener.explained(BsonDocument.parse("{\"stages\": [{\"$cursor\": {\"queryPlanner\": {\"winningPlan\": "
+                + "{\"stage\": \"COLLSCAN\"}}, \"executionStats\": {\"nReturned\": 2, \"totalKeysExamined\": 0, "
+                + "\"totalDocsExamined\": 1000}}}, {\"$group\": {}}]}"), stats);
+
+        assertEquals("COLLSCAN", stats.getPlan());
+        assertEquals(1000L, stats.snapshot().get("docsExamined"));
+        assertEquals(2L, stats.snapshot().get("explainReturned"));
+    }
+
+    private void run(String command, RequestContext context, long millis, String response) {
+        BsonDocument document = BsonDocument.parse(command);
+        String commandName = document.getFirstKey();
+
+        listener.commandStarted(new CommandStartedEvent(context, 1L, ++requestId, connection, "app1", commandName, document));
+        listener.commandSucceeded(new CommandSucceededEvent(context, 1L, requestId, connection, "app1", commandName,
+                BsonDocument.parse(response), TimeUnit.MILLISECONDS.toNanos(millis)));
+    }
+
+    private RequestContext route(String pattern, String path) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+        exchange.getAttributes().put(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+
+        RequestContext context = new MongoQueryListener.ExchangeRequestContext();
+        context.put(ServerWebExchange.class, exchange);
+        return context;
+    }
+}
@@ -0,0 +1,109 @@
+package guru.springframework.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReactiveTimingAspectTest {
+
+    SimpleMeterRegistry meterRegistry;
+    GreetingService greetingService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new GreetingServiceImpl());
+        proxyFactory.addAspect(new ReactiveTimingAspect(meterRegistry));
+        greetingService = proxyFactory.getProxy();
+    }
+
+    @Test
+    public void timesMonoFromSubscription() throws Exception {
+        Mono<String> greeting = greetingService.greet("world");
+
+        //nothing is recorded until the mono runs
+        assertNull(meterRegistry.find(ReactiveTimingAspect.SERVICE_TIMER).timer());
+
+        StepVerifier.create(greeting).expectNext("hello world").verifyComplete();
+
+        Timer timer = timer("greet", "success");
+        assertEquals(1, timer.count());
+        assertTrue(timer.totalTime(TimeUnit.MILLISECONDS) >= 10);
+        assertEquals("GreetingService", timer.getId().getTag("type"));
+        assertEquals("none", timer.getId().getTag("exception"));
+    }
+
+    @Test
+    public void recordsErrorsWithTheException() throws Exception {
+        StepVerifier.create(greetingService.greet(null)).verifyError(IllegalArgumentException.class);
+
+        Timer timer = timer("greet", "error");
+        assertEquals(1, timer.count());
+        assertEquals("IllegalArgumentException", timer.getId().getTag("exception"));
+    }
+
+    @Test
+    public void timesFluxUntilCancelled() throws Exception {
+        StepVerifier.create(greetingService.count()).expectNext(0L, 1L).thenCancel().verify();
+
+        assertEquals(1, timer("count", "cancelled").count());
+    }
+
+    @Test
+    public void timesPlainMethodsAroundTheCall() throws Exception {
+        assertEquals(5, greetingService.length("hello"));
+
+        assertEquals(1, timer("length", "success").count());
+        assertThrows(NullPointerException.class, () -> greetingService.length(null));
+        assertEquals(1, timer("length", "error").count());
+    }
+
+    private Timer timer(String method, String outcome) {
+        Timer timer = meterRegistry.find(ReactiveTimingAspect.SERVICE_TIMER).tag("method", method).tag("outcome", outcome).timer();
+        assertNotNull(timer, method + " " + outcome);
+        return timer;
+    }
+
+    public interface GreetingService {
+
+        Mono<String> greet(String name);
+
+        Flux<Long> count();
+
+        int length(String text);
+    }
+
+    @Service
+    static class GreetingServiceImpl implements GreetingService {
+
+        @Override
+        public Mono<String> greet(String name) {
+            if (name == null) {
+                return Mono.error(new IllegalArgumentException("name"));
+            }
+            return Mono.delay(Duration.ofMillis(10)).thenReturn("hello " + name);
+        }
+
+        @Override
+        public Flux<Long> count() {
+            return Flux.interval(Duration.ofMillis(1));
+        }
+
+        @Override
+        public int length(String text) {
+            return text.length();
+        }
+    }
+}
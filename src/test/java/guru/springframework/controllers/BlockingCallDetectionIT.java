@@ -0,0 +1,172 @@
+package guru.springframework.controllers;
+
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Recipe;
+import guru.springframework.repositories.reactive.CategoryReactiveRepository;
+import guru.springframework.repositories.reactive.RecipeReactiveRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * The endpoints of {@link BlockingCallDetectionTest} against the whole application under the blockhound profile:
+ * a Netty server on a random port, the embedded MongoDB with the bootstrap recipes, and the real services, so the
+ * repositories, GridFS and the image processing are on the way. Requests are handled on Netty's event loops, where
+ * a blocking call fails the request; one in work the requests start in the background only shows in the log.
+ */
+@Tag("blockhound")
+@ExtendWith({SpringExtension.class, OutputCaptureExtension.class})
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("blockhound")
+public class BlockingCallDetectionIT {
+
+    static final String BOUNDARY = "recipe-image-boundary";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    RecipeReactiveRepository recipeReactiveRepository;
+
+    @Autowired
+    CategoryReactiveRepository categoryReactiveRepository;
+
+    Recipe recipe;
+    Ingredient ingredient;
+    Category category;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        //the instrumented JVM compiles slowly, the first render of a page can take longer than the default
+        webTestClient = webTestClient.mutate().responseTimeout(Duration.ofSeconds(30)).build();
+
+        recipe = recipeReactiveRepository.findAll()
+                .filter(recipe -> recipe.getDescription().equals("Perfect Guacamole"))
+                .blockFirst();
+        ingredient = recipe.getIngredients().get(0);
+        category = categoryReactiveRepository.findByDescription("Mexican").block();
+    }
+
+    @AfterEach
+    public void noBlockingCalls(CapturedOutput output) throws Exception {
+        assertFalse(output.getOut().contains("BlockingOperationError"));
+    }
+
+    @Test
+    public void indexPages() throws Exception {
+        for (String uri : List.of("/", "/index", "/?after=" + recipe.getId(), "/category/" + category.getId() + "/recipes",
+                "/category/" + category.getId() + "/recipes?after=" + recipe.getId())) {
+            webTestClient.get().uri(uri).exchange().expectStatus().isOk();
+        }
+    }
+
+    @Test
+    public void recipePages() throws Exception {
+        for (String uri : List.of("/recipe/" + recipe.getId() + "/show", "/recipe/search?q=guacamole",
+                "/recipe/ingredients?all=lime&missing=1", "/recipe/new", "/recipe/" + recipe.getId() + "/update")) {
+            webTestClient.get().uri(uri).exchange().expectStatus().isOk();
+        }
+
+        String created = createRecipe();
+
+        //a validation error renders the form again
+        webTestClient.post().uri("/recipe")
+                .body(BodyInserters.fromFormData("id", "").with("cookTime", "3000"))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/recipe/" + created + "/delete").exchange().expectStatus().is3xxRedirection();
+    }
+
+    @Test
+    public void ingredientPages() throws Exception {
+        String recipePath = "/recipe/" + recipe.getId();
+        for (String uri : List.of(recipePath + "/ingredients", recipePath + "/ingredient/" + ingredient.getId() + "/show",
+                recipePath + "/ingredient/new", recipePath + "/ingredient/" + ingredient.getId() + "/update")) {
+            webTestClient.get().uri(uri).exchange().expectStatus().isOk();
+        }
+
+        String created = createRecipe();
+
+        String location = webTestClient.post().uri("/recipe/" + created + "/ingredient")
+                .body(BodyInserters.fromFormData("id", "")
+                        .with("recipeId", created)
+                        .with("description", "some string")
+                        .with("amount", "1")
+                        .with("uom.id", ingredient.getUom().getId()))
+                .exchange()
+                .expectStatus().is3xxRedirection()
+                .returnResult(Void.class).getResponseHeaders().getLocation().getPath();
+
+        //redirected to /recipe/{recipeId}/ingredient/{id}/show
+        String ingredientId = location.split("/")[4];
+        webTestClient.get().uri("/recipe/" + created + "/ingredient/" + ingredientId + "/delete").exchange()
+                .expectStatus().is3xxRedirection();
+
+        webTestClient.get().uri("/recipe/" + created + "/delete").exchange().expectStatus().is3xxRedirection();
+    }
+
+    @Test
+    public void imagePages() throws Exception {
+        String created = createRecipe();
+        String recipePath = "/recipe/" + created;
+
+        webTestClient.get().uri(recipePath + "/image").exchange().expectStatus().isOk();
+
+        //encoded by hand, the client's multipart writer would draw the boundary from SecureRandom on an event loop
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"imagefile\"; filename=\"image.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        ImageIO.write(new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB), "png", body);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        webTestClient.post().uri(recipePath + "/image")
+                .contentType(MediaType.parseMediaType("multipart/form-data; boundary=" + BOUNDARY))
+                .bodyValue(body.toByteArray())
+                .exchange()
+                .expectStatus().is3xxRedirection();
+
+        webTestClient.get().uri(recipePath + "/recipeimage").exchange().expectStatus().isOk();
+        webTestClient.get().uri(recipePath + "/recipeimage?variant=thumbnail").exchange().expectStatus().isOk();
+        webTestClient.get().uri(recipePath + "/recipeimage").header("Range", "bytes=1-2").exchange()
+                .expectStatus().isEqualTo(206);
+
+        webTestClient.get().uri(recipePath + "/delete").exchange().expectStatus().is3xxRedirection();
+    }
+
+    //a recipe of its own, so the bootstrap recipes stay as they are for the other tests
+    private String createRecipe() {
+        String location = webTestClient.post().uri("/recipe")
+                .body(BodyInserters.fromFormData("id", "")
+                        .with("description", "some string")
+                        .with("directions", "some directions"))
+                .exchange()
+                .expectStatus().is3xxRedirection()
+                .returnResult(Void.class).getResponseHeaders().getLocation().getPath();
+
+        //redirected to /recipe/{id}/show
+        return location.split("/")[2];
+    }
+}
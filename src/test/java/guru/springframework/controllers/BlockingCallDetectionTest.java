@@ -0,0 +1,244 @@
+package guru.springframework.controllers;
+
+import guru.springframework.commands.IngredientCommand;
+import guru.springframework.commands.RecipeCommand;
+import guru.springframework.commands.UnitOfMeasureCommand;
+import guru.springframework.config.BlockHoundConfig;
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Notes;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.domain.RecipeIngredientMatch;
+import guru.springframework.domain.RecipeSearchResult;
+import guru.springframework.domain.RecipeSummary;
+import guru.springframework.services.CategoryService;
+import guru.springframework.services.ImageService;
+import guru.springframework.services.IngredientService;
+import guru.springframework.services.RecipeService;
+import guru.springframework.services.UnitOfMeasureService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Every controller endpoint under the blockhound profile, with the requests handled on Reactor's non-blocking
+ * parallel threads the way Netty's event loops would. A blocking call anywhere on the way fails the request.
+ * Tagged so it runs in the blockHoundTest task's own JVM, the detector cannot be uninstalled.
+ */
+@Tag("blockhound")
+@ExtendWith({SpringExtension.class, OutputCaptureExtension.class})
+@WebFluxTest
+@ActiveProfiles("blockhound")
+@Import({BlockHoundConfig.class, BlockingCallDetectionTest.NonBlockingThreads.class})
+public class BlockingCallDetectionTest {
+
+    static final String BOUNDARY = "recipe-image-boundary";
+
+    @MockBean
+    RecipeService recipeService;
+
+    @MockBean
+    CategoryService categoryService;
+
+    @MockBean
+    IngredientService ingredientService;
+
+    @MockBean
+    UnitOfMeasureService unitOfMeasureService;
+
+    @MockBean
+    ImageService imageService;
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @TestConfiguration
+    static class NonBlockingThreads {
+
+        @Bean
+        @Order(Ordered.HIGHEST_PRECEDENCE)
+        public WebFilter nonBlockingThreads() {
+            return (exchange, chain) -> chain.filter(exchange).subscribeOn(Schedulers.parallel());
+        }
+    }
+
+    Recipe recipe;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        //the instrumented JVM compiles slowly, the first render of a page can take longer than the default
+        webTestClient = webTestClient.mutate().responseTimeout(Duration.ofSeconds(30)).build();
+
+        recipe = new Recipe();
+        recipe.setId("1");
+        recipe.setDescription("Perfect Guacamole");
+        recipe.setNotes(new Notes());
+        recipe.getCategoryIds().add("7");
+
+        Category category = new Category();
+        category.setId("7");
+        category.setDescription("Mexican");
+
+        UnitOfMeasureCommand unitOfMeasure = new UnitOfMeasureCommand();
+        unitOfMeasure.setId("3");
+        unitOfMeasure.setDescription("Teaspoon");
+
+        IngredientCommand ingredient = new IngredientCommand();
+        ingredient.setId("2");
+        ingredient.setRecipeId("1");
+        ingredient.setDescription("salt");
+        ingredient.setUom(unitOfMeasure);
+
+        RecipeCommand recipeCommand = new RecipeCommand();
+        recipeCommand.setId("1");
+        recipeCommand.setDescription("Perfect Guacamole");
+        recipeCommand.getIngredients().add(ingredient);
+
+        RecipeSummary summary = new RecipeSummary();
+        summary.setId("1");
+        summary.setDescription("Perfect Guacamole");
+
+        RecipeSearchResult searchResult = new RecipeSearchResult();
+        searchResult.setId("1");
+        searchResult.setDescription("Perfect Guacamole");
+        searchResult.setScore(1.5F);
+
+        RecipeImage image = new RecipeImage();
+        image.setFileId("f1");
+        image.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        image.setLength(4L);
+        image.setContentHash("abc123");
+        image.setUploadDate(new Date());
+
+        when(recipeService.findById(anyString())).thenReturn(Mono.just(recipe));
+        when(recipeService.findCommandById(anyString())).thenReturn(Mono.just(recipeCommand));
+        when(recipeService.listRecipes(any(), anyInt())).thenReturn(Flux.just(summary));
+        when(recipeService.listRecipesInCategory(anyString(), any(), anyInt())).thenReturn(Flux.just(summary));
+        when(recipeService.searchRecipes(any(), anyLong(), anyInt())).thenReturn(Flux.just(searchResult));
+        when(recipeService.findByIngredients(anyList(), anyList(), anyList(), anyInt(), anyInt()))
+                .thenReturn(Flux.just(new RecipeIngredientMatch(summary, List.of("lime"))));
+        when(recipeService.saveRecipeCommand(any())).thenReturn(Mono.just(recipeCommand));
+        when(recipeService.deleteById(anyString())).thenReturn(Mono.empty());
+        when(categoryService.findCategoryById(anyString())).thenReturn(Mono.just(category));
+        when(categoryService.findCategoriesByIds(anyList())).thenReturn(Flux.just(category));
+        when(unitOfMeasureService.listAllUoms()).thenReturn(Flux.just(unitOfMeasure));
+        when(ingredientService.findByRecipeIdAndIngredientId(anyString(), anyString())).thenReturn(Mono.just(ingredient));
+        when(ingredientService.saveIngredientCommand(any())).thenReturn(Mono.just(ingredient));
+        when(ingredientService.deleteById(anyString(), anyString())).thenReturn(Mono.empty());
+        when(imageService.saveImageFile(anyString(), any())).thenReturn(Mono.empty());
+        when(imageService.findImageByRecipeId(anyString(), any())).thenReturn(Mono.just(image));
+        when(imageService.openImageContent(any())).thenReturn(Mono.just(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(new byte[]{1, 2, 3, 4}))));
+    }
+
+    @Test
+    public void indexPages() throws Exception {
+        for (String uri : List.of("/", "/index", "/?after=1", "/category/7/recipes", "/category/7/recipes?after=1")) {
+            webTestClient.get().uri(uri).exchange().expectStatus().isOk();
+        }
+    }
+
+    @Test
+    public void recipePages() throws Exception {
+        for (String uri : List.of("/recipe/1/show", "/recipe/search?q=guacamole",
+                "/recipe/ingredients?all=lime&missing=1", "/recipe/new", "/recipe/1/update")) {
+            webTestClient.get().uri(uri).exchange().expectStatus().isOk();
+        }
+
+        webTestClient.post().uri("/recipe")
+                .body(BodyInserters.fromFormData("id", "")
+                        .with("description", "some string")
+                        .with("directions", "some directions"))
+                .exchange()
+                .expectStatus().is3xxRedirection();
+
+        //a validation error renders the form again
+        webTestClient.post().uri("/recipe")
+                .body(BodyInserters.fromFormData("id", "").with("cookTime", "3000"))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/recipe/1/delete").exchange().expectStatus().is3xxRedirection();
+    }
+
+    @Test
+    public void ingredientPages() throws Exception {
+        for (String uri : List.of("/recipe/1/ingredients", "/recipe/1/ingredient/2/show", "/recipe/1/ingredient/new",
+                "/recipe/1/ingredient/2/update")) {
+            webTestClient.get().uri(uri).exchange().expectStatus().isOk();
+        }
+
+        webTestClient.post().uri("/recipe/1/ingredient")
+                .body(BodyInserters.fromFormData("id", "")
+                        .with("recipeId", "1")
+                        .with("description", "some string")
+                        .with("amount", "1")
+                        .with("uom.id", "3"))
+                .exchange()
+                .expectStatus().is3xxRedirection();
+
+        webTestClient.get().uri("/recipe/1/ingredient/2/delete").exchange().expectStatus().is3xxRedirection();
+    }
+
+    @Test
+    public void imagePages() throws Exception {
+        webTestClient.get().uri("/recipe/1/image").exchange().expectStatus().isOk();
+
+        //encoded by hand, the client's multipart writer would draw the boundary from SecureRandom on this thread
+        webTestClient.post().uri("/recipe/1/image")
+                .contentType(MediaType.parseMediaType("multipart/form-data; boundary=" + BOUNDARY))
+                .bodyValue("--" + BOUNDARY + "\r\n"
+                        + "Content-Disposition: form-data; name=\"imagefile\"; filename=\"testing.txt\"\r\n"
+                        + "Content-Type: text/plain\r\n\r\n"
+                        + "Spring Framework Guru\r\n"
+                        + "--" + BOUNDARY + "--\r\n")
+                .exchange()
+                .expectStatus().is3xxRedirection();
+
+        webTestClient.get().uri("/recipe/1/recipeimage").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/recipe/1/recipeimage?variant=thumbnail").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/recipe/1/recipeimage").header("Range", "bytes=1-2").exchange()
+                .expectStatus().isEqualTo(206);
+    }
+
+    @Test
+    public void blockingCallFailsTheRequestAndIsReportedWithTheRoute(CapturedOutput output) throws Exception {
+        when(recipeService.findById(anyString())).thenReturn(Mono.fromCallable(() -> {
+            Thread.sleep(1);
+            return recipe;
+        }));
+
+        webTestClient.get().uri("/recipe/1/show").exchange().expectStatus().is5xxServerError();
+
+        assertTrue(output.getOut().contains("Blocking call in GET /recipe/{id}/show (/recipe/1/show)"));
+        assertTrue(output.getOut().contains("java.lang.Thread.sleep"));
+    }
+}
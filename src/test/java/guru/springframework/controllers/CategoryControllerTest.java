@@ -0,0 +1,73 @@
+package guru.springframework.controllers;
+
+import guru.springframework.domain.Category;
+import guru.springframework.domain.RecipeSummary;
+import guru.springframework.services.CategoryService;
+import guru.springframework.services.RecipeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@WebFluxTest(controllers = CategoryController.class)
+public class CategoryControllerTest {
+
+    @MockBean
+    CategoryService categoryService;
+
+    @MockBean
+    RecipeService recipeService;
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Test
+    public void listRecipesInCategory() throws Exception {
+        Category category = new Category();
+        category.setId("3");
+        category.setDescription("Mexican");
+
+        when(categoryService.findCategoryById("3")).thenReturn(Mono.just(category));
+        when(recipeService.listRecipesInCategory(eq("3"), eq("7"), anyInt()))
+                .thenReturn(Flux.range(8, CategoryController.PAGE_SIZE + 1).map(String::valueOf).map(this::summary));
+
+        String html = webTestClient.get().uri("/category/3/recipes?after=7")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        assertTrue(html.contains("Mexican Recipes"));
+        assertTrue(html.contains("/recipe/8/show"));
+        assertTrue(html.contains("/category/3/recipes?after=27"));
+        assertFalse(html.contains("/recipe/28/show"));
+        verify(recipeService).listRecipesInCategory("3", "7", CategoryController.PAGE_SIZE + 1);
+    }
+
+    @Test
+    public void listRecipesInUnknownCategory() throws Exception {
+        when(categoryService.findCategoryById(anyString())).thenReturn(Mono.empty());
+        when(recipeService.listRecipesInCategory(anyString(), any(), anyInt())).thenReturn(Flux.empty());
+
+        webTestClient.get().uri("/category/3/recipes")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private RecipeSummary summary(String id) {
+        RecipeSummary summary = new RecipeSummary();
+        summary.setId(id);
+        summary.setDescription("Recipe " + id);
+        return summary;
+    }
+}
@@ -1,47 +1,56 @@
 package guru.springframework.controllers;
 
 import guru.springframework.commands.RecipeCommand;
+import guru.springframework.domain.ImageVariant;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.exceptions.InvalidImageException;
 import guru.springframework.services.ImageService;
 import guru.springframework.services.RecipeService;
-import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
-import org.springframework.mock.web.MockHttpServletResponse;
-import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@Disabled
+@ExtendWith(SpringExtension.class)
+@WebFluxTest(controllers = ImageController.class)
 public class ImageControllerTest {
 
-    @Mock
+    static final byte[] IMAGE_BYTES = "fake image text".getBytes();
+    static final String ETAG = "\"abc123\"";
+
+    @MockBean
     ImageService imageService;
 
-    @Mock
+    @MockBean
     RecipeService recipeService;
 
-    ImageController controller;
-
-    MockMvc mockMvc;
+    @Autowired
+    WebTestClient webTestClient;
 
-    @BeforeEach
-    public void setUp() throws Exception {
-        MockitoAnnotations.initMocks(this);
-
-        controller = new ImageController(imageService, recipeService);
-        mockMvc = MockMvcBuilders.standaloneSetup(controller)
-                .setControllerAdvice(new ControllerExceptionHandler())
-                .build();
-    }
+    AtomicBoolean contentRead = new AtomicBoolean();
 
     @Test
     public void getImageForm() throws Exception {
@@ -52,9 +61,9 @@ public class ImageControllerTest {
         when(recipeService.findCommandById(anyString())).thenReturn(Mono.just(command));
 
         //when
-        mockMvc.perform(get("/recipe/1/image"))
-                .andExpect(status().isOk())
-                .andExpect(model().attributeExists("recipe"));
+        webTestClient.get().uri("/recipe/1/image")
+                .exchange()
+                .expectStatus().isOk();
 
         verify(recipeService, times(1)).findCommandById(anyString());
 
@@ -62,46 +71,173 @@ public class ImageControllerTest {
 
     @Test
     public void handleImagePost() throws Exception {
-        MockMultipartFile multipartFile =
-                new MockMultipartFile("imagefile", "testing.txt", "text/plain",
-                        "Spring Framework Guru".getBytes());
+        MultipartBodyBuilder builder = new MultipartBodyBuilder();
+        builder.part("imagefile", new ByteArrayResource("Spring Framework Guru".getBytes()))
+                .filename("testing.txt");
 
-        mockMvc.perform(multipart("/recipe/1/image").file(multipartFile))
-                .andExpect(status().is3xxRedirection())
-                .andExpect(header().string("Location", "/recipe/1/show"));
+        when(imageService.saveImageFile(anyString(), any())).thenReturn(Mono.empty());
+
+        webTestClient.post().uri("/recipe/1/image")
+                .body(BodyInserters.fromMultipartData(builder.build()))
+                .exchange()
+                .expectStatus().is3xxRedirection()
+                .expectHeader().valueEquals("Location", "/recipe/1/show");
 
         verify(imageService, times(1)).saveImageFile(anyString(), any());
     }
 
+    @Test
+    public void handleImagePostRejectsNonImages() throws Exception {
+        MultipartBodyBuilder builder = new MultipartBodyBuilder();
+        builder.part("imagefile", new ByteArrayResource("<html></html>".getBytes()))
+                .filename("page.html")
+                .contentType(MediaType.TEXT_HTML);
+
+        when(imageService.saveImageFile(anyString(), any())).thenReturn(Mono.error(new InvalidImageException("Not an image upload: text/html")));
+
+        webTestClient.post().uri("/recipe/1/image")
+                .body(BodyInserters.fromMultipartData(builder.build()))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
 
-    /*@Test
+    @Test
     public void renderImageFromDB() throws Exception {
+        givenStoredImage();
+
+        byte[] responseBytes = webTestClient.get().uri("/recipe/1/recipeimage")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.IMAGE_JPEG)
+                .expectHeader().valueEquals("X-Content-Type-Options", "nosniff")
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_DISPOSITION)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, ETAG)
+                .expectHeader().valueEquals(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .expectHeader().contentLength(IMAGE_BYTES.length)
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+
+        assertArrayEquals(IMAGE_BYTES, responseBytes);
+        verify(imageService).findImageByRecipeId(eq("1"), isNull());
+    }
 
-        //given
-        RecipeCommand command = new RecipeCommand();
-        command.setId("1");
+    @Test
+    public void renderImageFromDBActiveContentAsDownload() throws Exception {
+        givenStoredImage().setContentType("text/html");
+
+        webTestClient.get().uri("/recipe/1/recipeimage")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_DISPOSITION, "attachment")
+                .expectHeader().valueEquals("X-Content-Type-Options", "nosniff");
+    }
 
-        String s = "fake image text";
-        Byte[] bytesBoxed = new Byte[s.getBytes().length];
+    @Test
+    public void renderImageFromDBVariant() throws Exception {
+        givenStoredImage();
 
-        int i = 0;
+        webTestClient.get().uri("/recipe/1/recipeimage?variant=Thumbnail")
+                .exchange()
+                .expectStatus().isOk();
 
-        for (byte primByte : s.getBytes()){
-            bytesBoxed[i++] = primByte;
-        }
+        verify(imageService).findImageByRecipeId(eq("1"), eq(ImageVariant.THUMBNAIL));
+    }
 
-        command.setImage(bytesBoxed);
+    @Test
+    public void renderImageFromDBUnknownVariant() throws Exception {
+        webTestClient.get().uri("/recipe/1/recipeimage?variant=huge")
+                .exchange()
+                .expectStatus().isBadRequest();
 
-        when(recipeService.findCommandById(anyString())).thenReturn(command);
+        verify(imageService, never()).findImageByRecipeId(anyString(), any());
+    }
 
-        //when
-        MockHttpServletResponse response = mockMvc.perform(get("/recipe/1/recipeimage"))
-                .andExpect(status().isOk())
-                .andReturn().getResponse();
+    @Test
+    public void renderImageFromDBNotModified() throws Exception {
+        givenStoredImage();
+
+        webTestClient.get().uri("/recipe/1/recipeimage")
+                .header(HttpHeaders.IF_NONE_MATCH, ETAG)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
 
-        byte[] reponseBytes = response.getContentAsByteArray();
+        assertFalse(contentRead.get(), "image content should not be read for a 304");
+    }
+
+    @Test
+    public void renderImageFromDBRange() throws Exception {
+        givenStoredImage();
+
+        byte[] responseBytes = webTestClient.get().uri("/recipe/1/recipeimage")
+                .header(HttpHeaders.RANGE, "bytes=5-9")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 5-9/" + IMAGE_BYTES.length)
+                .expectHeader().contentLength(5)
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+
+        assertArrayEquals("image".getBytes(), responseBytes);
+    }
 
-        assertEquals(s.getBytes().length, reponseBytes.length);
-    }*/
+    @Test
+    public void renderImageFromDBStaleIfRangeSendsFullImage() throws Exception {
+        givenStoredImage();
+
+        webTestClient.get().uri("/recipe/1/recipeimage")
+                .header(HttpHeaders.RANGE, "bytes=5-9")
+                .header(HttpHeaders.IF_RANGE, "\"stale\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentLength(IMAGE_BYTES.length);
+    }
 
-}
\ No newline at end of file
+    @Test
+    public void renderImageFromDBRangeNotSatisfiable() throws Exception {
+        givenStoredImage();
+
+        webTestClient.get().uri("/recipe/1/recipeimage")
+                .header(HttpHeaders.RANGE, "bytes=500-")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes */" + IMAGE_BYTES.length);
+    }
+
+    @Test
+    public void renderImageFromDBNoImage() throws Exception {
+        when(imageService.findImageByRecipeId(anyString(), any())).thenReturn(Mono.empty());
+
+        webTestClient.get().uri("/recipe/1/recipeimage")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void renderImageFromDBMissingFile() throws Exception {
+        givenStoredImage();
+        when(imageService.openImageContent(any())).thenReturn(Mono.empty());
+
+        webTestClient.get().uri("/recipe/1/recipeimage")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectHeader().doesNotExist(HttpHeaders.ETAG)
+                .expectBody().isEmpty();
+    }
+
+    private RecipeImage givenStoredImage() {
+        RecipeImage image = new RecipeImage();
+        image.setFileId("f1");
+        image.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        image.setLength((long) IMAGE_BYTES.length);
+        image.setContentHash("abc123");
+        image.setUploadDate(new Date());
+
+        when(imageService.findImageByRecipeId(anyString(), any())).thenReturn(Mono.just(image));
+        when(imageService.openImageContent(any())).thenAnswer(invocation ->
+                Mono.just(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(IMAGE_BYTES.clone()))
+                        .doOnSubscribe(subscription -> contentRead.set(true))));
+        return image;
+    }
+}
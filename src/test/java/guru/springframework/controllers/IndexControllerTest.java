@@ -1,86 +1,100 @@
 package guru.springframework.controllers;
 
-import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeSummary;
 import guru.springframework.services.RecipeService;
-import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
-import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.ui.Model;
 import reactor.core.publisher.Flux;
 
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
 /**
  * Created by jt on 6/17/17.
  */
-@Disabled
+@ExtendWith(SpringExtension.class)
+@WebFluxTest(controllers = IndexController.class)
 public class IndexControllerTest {
 
-    @Mock
+    @MockBean
     RecipeService recipeService;
 
-    @Mock
-    Model model;
-
+    @Autowired
     IndexController controller;
 
-    @BeforeEach
-    public void setUp() throws Exception {
-        MockitoAnnotations.initMocks(this);
-
-        controller = new IndexController(recipeService);
-    }
-
-    @Test
-    public void testMockMVC() throws Exception {
-        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
-
-        when(recipeService.getRecipes()).thenReturn(Flux.empty());
-
-        mockMvc.perform(get("/"))
-                .andExpect(status().isOk())
-                .andExpect(view().name("index"));
-    }
+    @Autowired
+    WebTestClient webTestClient;
 
     @Test
     public void getIndexPage() throws Exception {
 
         //given
-        Set<Recipe> recipes = new HashSet<>();
-        recipes.add(new Recipe());
-
-        Recipe recipe = new Recipe();
-        recipe.setId("1");
-
-        recipes.add(recipe);
+        Model model = mock(Model.class);
+        Flux<RecipeSummary> recipes = Flux.just(summary(1), summary(2));
 
-        when(recipeService.getRecipes()).thenReturn(Flux.fromIterable(recipes));
+        when(recipeService.listRecipes(isNull(), anyInt())).thenReturn(recipes);
 
-        ArgumentCaptor<List<Recipe>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<RecipeSummary>> argumentCaptor = ArgumentCaptor.forClass(List.class);
 
         //when
-        String viewName = controller.getIndexPage(model);
-
+        String viewName = controller.getIndexPage(null, model).block();
 
         //then
         assertEquals("index", viewName);
-        verify(recipeService, times(1)).getRecipes();
+        verify(recipeService, times(1)).listRecipes(null, IndexController.PAGE_SIZE + 1);
         verify(model, times(1)).addAttribute(eq("recipes"), argumentCaptor.capture());
-        List<Recipe> setInController = argumentCaptor.getValue();
-        assertEquals(2, setInController.size());
+        verify(model, times(1)).addAttribute("nextCursor", null);
+        assertEquals(2, argumentCaptor.getValue().size());
+    }
+
+    @Test
+    public void renderIndexPageWithNextLink() throws Exception {
+        //a full page and the first row of the next one, from the one listing
+        when(recipeService.listRecipes(eq("7"), anyInt()))
+                .thenReturn(Flux.range(8, IndexController.PAGE_SIZE + 1).map(this::summary));
+
+        String html = webTestClient.get().uri("/?after=7")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        assertTrue(html.contains("/recipe/8/show"));
+        assertTrue(html.contains("/recipe/9/show"));
+        assertTrue(html.contains("?after=27"));
+        assertFalse(html.contains("/recipe/28/show"));
+        verify(recipeService, times(1)).listRecipes("7", IndexController.PAGE_SIZE + 1);
+    }
+
+    @Test
+    public void renderLastIndexPageWithoutNextLink() throws Exception {
+        when(recipeService.listRecipes(eq("7"), anyInt())).thenReturn(Flux.range(8, 3).map(this::summary));
+
+        String html = webTestClient.get().uri("/?after=7")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        assertTrue(html.contains("/recipe/10/show"));
+        assertFalse(html.contains("?after="));
     }
 
-}
\ No newline at end of file
+    private RecipeSummary summary(int id) {
+        RecipeSummary summary = new RecipeSummary();
+        summary.setId(String.valueOf(id));
+        summary.setDescription("Recipe " + id);
+        return summary;
+    }
+}
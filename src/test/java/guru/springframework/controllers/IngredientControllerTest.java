@@ -3,7 +3,7 @@ package guru.springframework.controllers;
 import guru.springframework.commands.IngredientCommand;
 import guru.springframework.commands.RecipeCommand;
 import guru.springframework.commands.UnitOfMeasureCommand;
-import guru.springframework.services.ImageService;
+import guru.springframework.exceptions.NotFoundException;
 import guru.springframework.services.IngredientService;
 import guru.springframework.services.RecipeService;
 import guru.springframework.services.UnitOfMeasureService;
@@ -15,7 +15,6 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -38,8 +37,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
-@WebFluxTest
-@Import(IngredientController.class)
+@WebFluxTest(controllers = IngredientController.class)
 public class IngredientControllerTest {
 
     @MockBean
@@ -51,9 +49,6 @@ public class IngredientControllerTest {
     @MockBean
     RecipeService recipeService;
 
-    @MockBean
-    ImageService imageService;
-
     @Autowired
     WebTestClient webTestClient;
 
@@ -61,6 +56,12 @@ public class IngredientControllerTest {
     public void testListIngredients() throws Exception {
         //given
         RecipeCommand recipeCommand = new RecipeCommand();
+        recipeCommand.setId("1");
+        IngredientCommand ingredientCommand = new IngredientCommand();
+        ingredientCommand.setId("2");
+        ingredientCommand.setDescription("sea salt");
+        ingredientCommand.setUom(new UnitOfMeasureCommand());
+        recipeCommand.getIngredients().add(ingredientCommand);
 
         //when
         when(recipeService.findCommandById(anyString())).thenReturn(Mono.just(recipeCommand));
@@ -76,6 +77,7 @@ public class IngredientControllerTest {
                 .block();
         verify(recipeService, times(1)).findCommandById(anyString());
         assertNotNull(html);
+        assertTrue(String.join("", html).contains("/recipe/1/ingredient/2/show"));
     }
 
     @Test
@@ -185,8 +187,26 @@ public class IngredientControllerTest {
 
     }
 
+    @Test
+    public void testSaveDeletedIngredient() throws Exception {
+        when(ingredientService.saveIngredientCommand(any()))
+                .thenReturn(Mono.error(new NotFoundException("Ingredient Not Found. For ID value: 3")));
+
+        webTestClient.post().uri("/recipe/2/ingredient")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(BodyInserters.fromFormData("id", "3")
+                    .with("recipeId", "2")
+                    .with("description", "some string")
+                    .with("amount", "1")
+                    .with("uom.id", "1"))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
     @Test
     public void testDeleteIngredient() throws Exception {
+        //given
+        when(ingredientService.deleteById(anyString(), anyString())).thenReturn(Mono.empty());
 
         //then
         List<String> html = webTestClient.get().uri("/recipe/2/ingredient/3/delete")
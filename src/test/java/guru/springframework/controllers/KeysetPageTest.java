@@ -0,0 +1,42 @@
+package guru.springframework.controllers;
+
+import guru.springframework.domain.RecipeSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeysetPageTest {
+
+    @Test
+    public void extraRowGivesTheNextCursor() throws Exception {
+        KeysetPage page = new KeysetPage(List.of(summary("1"), summary("2"), summary("3")), 2);
+
+        assertEquals("2", page.nextCursor());
+        assertEquals(List.of("1", "2"), page.rows().stream().map(RecipeSummary::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void nextCursorOnLastPage() throws Exception {
+        KeysetPage page = new KeysetPage(List.of(summary("1"), summary("2")), 2);
+
+        assertNull(page.nextCursor());
+        assertEquals(2, page.rows().size());
+    }
+
+    @Test
+    public void emptyPage() throws Exception {
+        KeysetPage page = new KeysetPage(List.of(), 2);
+
+        assertNull(page.nextCursor());
+        assertTrue(page.rows().isEmpty());
+    }
+
+    private RecipeSummary summary(String id) {
+        RecipeSummary summary = new RecipeSummary();
+        summary.setId(id);
+        return summary;
+    }
+}
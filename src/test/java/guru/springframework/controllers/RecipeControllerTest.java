@@ -1,61 +1,77 @@
 package guru.springframework.controllers;
 
 import guru.springframework.commands.RecipeCommand;
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Notes;
 import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeIngredientMatch;
+import guru.springframework.domain.RecipeSearchResult;
+import guru.springframework.domain.RecipeSummary;
 import guru.springframework.exceptions.NotFoundException;
+import guru.springframework.services.CategoryService;
 import guru.springframework.services.RecipeService;
-import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
-import org.springframework.http.MediaType;
-import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 /**
  * Created by jt on 6/19/17.
  */
-@Disabled
+@ExtendWith(SpringExtension.class)
+@WebFluxTest(controllers = RecipeController.class)
 public class RecipeControllerTest {
 
-    @Mock
+    @MockBean
     RecipeService recipeService;
 
-    RecipeController controller;
-
-    MockMvc mockMvc;
+    @MockBean
+    CategoryService categoryService;
 
-    @BeforeEach
-    public void setUp() throws Exception {
-        MockitoAnnotations.initMocks(this);
-
-        controller = new RecipeController(recipeService);
-        mockMvc = MockMvcBuilders.standaloneSetup(controller)
-                .setControllerAdvice(new ControllerExceptionHandler())
-                .build();
-    }
+    @Autowired
+    WebTestClient webTestClient;
 
     @Test
     public void testGetRecipe() throws Exception {
 
         Recipe recipe = new Recipe();
         recipe.setId("1");
+        recipe.setNotes(new Notes());
+        recipe.getCategoryIds().add("7");
 
-        when(recipeService.findById(anyString())).thenReturn(Mono.just(recipe));
+        Category category = new Category();
+        category.setId("7");
+        category.setDescription("Mexican");
 
-        mockMvc.perform(get("/recipe/1/show"))
-                .andExpect(status().isOk())
-                .andExpect(view().name("recipe/show"))
-                .andExpect(model().attributeExists("recipe"));
+        when(recipeService.findById(anyString())).thenReturn(Mono.just(recipe));
+        when(categoryService.findCategoriesByIds(anyList())).thenReturn(Flux.just(category));
+
+        String body = webTestClient.get().uri("/recipe/1/show")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        assertTrue(body.contains("/category/7/recipes"));
+        assertTrue(body.contains("Mexican"));
+        verify(recipeService, times(1)).findById("1");
+        verify(categoryService).findCategoriesByIds(List.of("7"));
     }
 
     @Test
@@ -63,19 +79,80 @@ public class RecipeControllerTest {
 
         when(recipeService.findById(anyString())).thenThrow(NotFoundException.class);
 
-        mockMvc.perform(get("/recipe/1/show"))
-                .andExpect(status().isNotFound())
-                .andExpect(view().name("404error"));
+        webTestClient.get().uri("/recipe/1/show")
+                .exchange()
+                .expectStatus().isNotFound();
     }
 
     @Test
-    public void testGetNewRecipeForm() throws Exception {
-        RecipeCommand command = new RecipeCommand();
+    public void testSearch() throws Exception {
+        RecipeSearchResult[] matches = IntStream.rangeClosed(0, RecipeController.SEARCH_PAGE_SIZE).mapToObj(i -> {
+            RecipeSearchResult result = new RecipeSearchResult();
+            result.setId(String.valueOf(i));
+            result.setDescription("Taco " + i);
+            result.setScore(1.5F);
+            return result;
+        }).toArray(RecipeSearchResult[]::new);
+
+        when(recipeService.searchRecipes(anyString(), anyLong(), anyInt())).thenReturn(Flux.just(matches));
+
+        String body = webTestClient.get().uri("/recipe/search?q=taco&page=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        verify(recipeService).searchRecipes("taco", RecipeController.SEARCH_PAGE_SIZE, RecipeController.SEARCH_PAGE_SIZE + 1);
+        assertTrue(body.contains("Taco 19"));
+        assertFalse(body.contains("Taco 20"), "the extra match only tells there is a next page");
+        assertTrue(body.contains("page=2"));
+        assertTrue(body.contains("page=0"));
+    }
+
+    @Test
+    public void testSearchWithoutQuery() throws Exception {
+        when(recipeService.searchRecipes(any(), anyLong(), anyInt())).thenReturn(Flux.empty());
+
+        webTestClient.get().uri("/recipe/search")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    public void testSearchByIngredients() throws Exception {
+        RecipeSummary tacos = new RecipeSummary();
+        tacos.setId("1");
+        tacos.setDescription("Chicken Tacos");
+
+        when(recipeService.findByIngredients(anyList(), anyList(), anyList(), anyInt(), anyInt()))
+                .thenReturn(Flux.just(new RecipeIngredientMatch(tacos, List.of("onion"))));
+
+        String body = webTestClient.get().uri("/recipe/ingredients?all=lime, onion,&none=cilantro&missing=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        verify(recipeService).findByIngredients(List.of("lime", "onion"), List.of(), List.of("cilantro"), 1,
+                RecipeController.SEARCH_PAGE_SIZE);
+        assertTrue(body.contains("Chicken Tacos"));
+        assertTrue(body.contains("<td>onion</td>"));
+    }
+
+    @Test
+    public void testSearchByIngredientsForm() throws Exception {
+        webTestClient.get().uri("/recipe/ingredients")
+                .exchange()
+                .expectStatus().isOk();
+
+        verify(recipeService, never()).findByIngredients(anyList(), anyList(), anyList(), anyInt(), anyInt());
+    }
 
-        mockMvc.perform(get("/recipe/new"))
-                .andExpect(status().isOk())
-                .andExpect(view().name("recipe/recipeform"))
-                .andExpect(model().attributeExists("recipe"));
+    @Test
+    public void testGetNewRecipeForm() throws Exception {
+        webTestClient.get().uri("/recipe/new")
+                .exchange()
+                .expectStatus().isOk();
     }
 
     @Test
@@ -85,53 +162,71 @@ public class RecipeControllerTest {
 
         when(recipeService.saveRecipeCommand(any())).thenReturn(Mono.just(command));
 
-        mockMvc.perform(post("/recipe")
-                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                .param("id", "")
-                .param("description", "some string")
-                .param("directions", "some directions")
-        )
-                .andExpect(status().is3xxRedirection())
-                .andExpect(view().name("redirect:/recipe/2/show"));
+        webTestClient.post().uri("/recipe")
+                .body(BodyInserters.fromFormData("id", "")
+                        .with("description", "some string")
+                        .with("directions", "some directions"))
+                .exchange()
+                .expectStatus().is3xxRedirection()
+                .expectHeader().valueEquals("Location", "/recipe/2/show");
     }
 
     @Test
     public void testPostNewRecipeFormValidationFail() throws Exception {
-        RecipeCommand command = new RecipeCommand();
-        command.setId("2");
-
-        when(recipeService.saveRecipeCommand(any())).thenReturn(Mono.just(command));
+        webTestClient.post().uri("/recipe")
+                .body(BodyInserters.fromFormData("id", "")
+                        .with("cookTime", "3000"))
+                .exchange()
+                .expectStatus().isOk();
 
-        mockMvc.perform(post("/recipe")
-                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                .param("id", "")
-                .param("cookTime", "3000")
+        verify(recipeService, never()).saveRecipeCommand(any());
+    }
 
-        )
-                .andExpect(status().isOk())
-                .andExpect(model().attributeExists("recipe"))
-                .andExpect(view().name("recipe/recipeform"));
+    @Test
+    public void testPostRecipeFormConflict() throws Exception {
+        when(recipeService.saveRecipeCommand(any()))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("changed")));
+
+        String html = webTestClient.post().uri("/recipe")
+                .body(BodyInserters.fromFormData("id", "2")
+                        .with("version", "1")
+                        .with("description", "some string")
+                        .with("directions", "some directions"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        assertTrue(html.contains("changed by someone else"));
+        assertTrue(html.contains("some string"));
     }
 
     @Test
     public void testGetUpdateView() throws Exception {
         RecipeCommand command = new RecipeCommand();
         command.setId("2");
+        command.setVersion(4L);
 
         when(recipeService.findCommandById(anyString())).thenReturn(Mono.just(command));
 
-        mockMvc.perform(get("/recipe/1/update"))
-                .andExpect(status().isOk())
-                .andExpect(view().name("recipe/recipeform"))
-                .andExpect(model().attributeExists("recipe"));
+        String html = webTestClient.get().uri("/recipe/1/update")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        assertTrue(html.contains("name=\"version\" value=\"4\""));
     }
 
     @Test
     public void testDeleteAction() throws Exception {
-        mockMvc.perform(get("/recipe/1/delete"))
-                .andExpect(status().is3xxRedirection())
-                .andExpect(view().name("redirect:/"));
+        when(recipeService.deleteById(anyString())).thenReturn(Mono.empty());
+
+        webTestClient.get().uri("/recipe/1/delete")
+                .exchange()
+                .expectStatus().is3xxRedirection()
+                .expectHeader().valueEquals("Location", "/");
 
         verify(recipeService, times(1)).deleteById(anyString());
     }
-}
\ No newline at end of file
+}
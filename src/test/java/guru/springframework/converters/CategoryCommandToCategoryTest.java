@@ -15,7 +15,7 @@ public class CategoryCommandToCategoryTest {
 
     @BeforeEach
     public void setUp() throws Exception {
-        conveter = new CategoryCommandToCategory();
+        conveter = new CategoryCommandToCategoryImpl();
     }
 
     @Test
@@ -18,7 +18,7 @@ public class CategoryToCategoryCommandTest {
 
     @BeforeEach
     public void setUp() throws Exception {
-        convter = new CategoryToCategoryCommand();
+        convter = new CategoryToCategoryCommandImpl();
     }
 
     @Test
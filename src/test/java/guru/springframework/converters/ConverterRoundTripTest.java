@@ -0,0 +1,83 @@
+package guru.springframework.converters;
+
+import guru.springframework.bootstrap.RecipeDataGenerator;
+import guru.springframework.commands.RecipeCommand;
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.UnitOfMeasure;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Every stored field except the image, which the form does not carry, survives a trip through the command.
+ */
+public class ConverterRoundTripTest {
+
+    RecipeToRecipeCommand recipeToRecipeCommand;
+    RecipeCommandToRecipe recipeCommandToRecipe;
+    MappingMongoConverter mongoConverter;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        recipeToRecipeCommand = new RecipeToRecipeCommandImpl(
+                new IngredientToIngredientCommandImpl(new UnitOfMeasureToUnitOfMeasureCommandImpl()), new NotesToNotesCommandImpl());
+        recipeCommandToRecipe = new RecipeCommandToRecipeImpl(
+                new IngredientCommandToIngredientImpl(new UnitOfMeasureCommandToUnitOfMeasureImpl()), new NotesCommandToNotesImpl());
+
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mongoConverter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        mongoConverter.setCustomConversions(conversions);
+        mongoConverter.afterPropertiesSet();
+    }
+
+    @Test
+    public void generatedRecipesSurviveRoundTrip() throws Exception {
+        List<UnitOfMeasure> unitsOfMeasure = IntStream.range(0, 8).mapToObj(i -> {
+            UnitOfMeasure unitOfMeasure = new UnitOfMeasure();
+            unitOfMeasure.setId("uom" + i);
+            unitOfMeasure.setDescription("Unit " + i);
+            return unitOfMeasure;
+        }).collect(Collectors.toList());
+        List<Category> categories = IntStream.range(0, 4).mapToObj(i -> {
+            Category category = new Category();
+            category.setId("category" + i);
+            category.setDescription("Category " + i);
+            return category;
+        }).collect(Collectors.toList());
+
+        for (long seed = 0; seed < 20; seed++) {
+            RecipeDataGenerator generator = new RecipeDataGenerator(seed, unitsOfMeasure, categories);
+
+            for (int number = 0; number < 50; number++) {
+                Recipe recipe = generator.recipe(number);
+                recipe.setVersion(seed);
+                recipe.getNotes().setId("notes" + number);
+
+                RecipeCommand command = recipeToRecipeCommand.convert(recipe);
+                Recipe roundTripped = recipeCommandToRecipe.convert(command);
+
+                recipe.setImage(null);
+                assertEquals(document(recipe), document(roundTripped), "seed " + seed + ", recipe " + number);
+            }
+        }
+    }
+
+    private Document document(Recipe recipe) {
+        Document document = new Document();
+        mongoConverter.write(recipe, document);
+        return document;
+    }
+}
@@ -23,7 +23,7 @@ public class IngredientCommandToIngredientTest {
 
     @BeforeEach
     public void setUp() throws Exception {
-        converter = new IngredientCommandToIngredient(new UnitOfMeasureCommandToUnitOfMeasure());
+        converter = new IngredientCommandToIngredientImpl(new UnitOfMeasureCommandToUnitOfMeasureImpl());
     }
 
     @Test
@@ -27,7 +27,7 @@ public class IngredientToIngredientCommandTest {
 
     @BeforeEach
     public void setUp() throws Exception {
-        converter = new IngredientToIngredientCommand(new UnitOfMeasureToUnitOfMeasureCommand());
+        converter = new IngredientToIngredientCommandImpl(new UnitOfMeasureToUnitOfMeasureCommandImpl());
     }
 
     @Test
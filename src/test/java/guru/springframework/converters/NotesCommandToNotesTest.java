@@ -15,7 +15,7 @@ public class NotesCommandToNotesTest {
 
     @BeforeEach
     public void setUp() throws Exception {
-        converter = new NotesCommandToNotes();
+        converter = new NotesCommandToNotesImpl();
 
     }
 
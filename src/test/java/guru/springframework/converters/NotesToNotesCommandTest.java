@@ -18,7 +18,7 @@ public class NotesToNotesCommandTest {
 
     @BeforeEach
     public void setUp() throws Exception {
-        converter = new NotesToNotesCommand();
+        converter = new NotesToNotesCommandImpl();
     }
 
     @Test
@@ -9,10 +9,13 @@ import guru.springframework.domain.Recipe;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class RecipeCommandToRecipeTest {
     public static final String RECIPE_ID = "1";
+    public static final Long VERSION = 3L;
     public static final Integer COOK_TIME = Integer.valueOf("5");
     public static final Integer PREP_TIME = Integer.valueOf("7");
     public static final String DESCRIPTION = "My Recipe";
@@ -32,9 +35,9 @@ public class RecipeCommandToRecipeTest {
 
     @BeforeEach
     public void setUp() throws Exception {
-        converter = new RecipeCommandToRecipe(new CategoryCommandToCategory(),
-                new IngredientCommandToIngredient(new UnitOfMeasureCommandToUnitOfMeasure()),
-                new NotesCommandToNotes());
+        converter = new RecipeCommandToRecipeImpl(
+                new IngredientCommandToIngredientImpl(new UnitOfMeasureCommandToUnitOfMeasureImpl()),
+                new NotesCommandToNotesImpl());
     }
 
     @Test
@@ -52,6 +55,7 @@ public class RecipeCommandToRecipeTest {
         //given
         RecipeCommand recipeCommand = new RecipeCommand();
         recipeCommand.setId(RECIPE_ID);
+        recipeCommand.setVersion(VERSION);
         recipeCommand.setCookTime(COOK_TIME);
         recipeCommand.setPrepTime(PREP_TIME);
         recipeCommand.setDescription(DESCRIPTION);
@@ -89,6 +93,7 @@ public class RecipeCommandToRecipeTest {
 
         assertNotNull(recipe);
         assertEquals(RECIPE_ID, recipe.getId());
+        assertEquals(VERSION, recipe.getVersion());
         assertEquals(COOK_TIME, recipe.getCookTime());
         assertEquals(PREP_TIME, recipe.getPrepTime());
         assertEquals(DESCRIPTION, recipe.getDescription());
@@ -98,7 +103,7 @@ public class RecipeCommandToRecipeTest {
         assertEquals(SOURCE, recipe.getSource());
         assertEquals(URL, recipe.getUrl());
         assertEquals(NOTES_ID, recipe.getNotes().getId());
-        assertEquals(2, recipe.getCategories().size());
+        assertEquals(List.of(CAT_ID_1, CAT_ID2), recipe.getCategoryIds());
         assertEquals(2, recipe.getIngredients().size());
     }
 
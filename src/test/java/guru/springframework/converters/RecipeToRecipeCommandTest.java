@@ -10,6 +10,7 @@ import static org.junit.jupiter.api.Assertions.*;
 public class RecipeToRecipeCommandTest {
 
     public static final String RECIPE_ID = "1";
+    public static final Long VERSION = 3L;
     public static final Integer COOK_TIME = Integer.valueOf("5");
     public static final Integer PREP_TIME = Integer.valueOf("7");
     public static final String DESCRIPTION = "My Recipe";
@@ -27,10 +28,9 @@ public class RecipeToRecipeCommandTest {
 
     @BeforeEach
     public void setUp() throws Exception {
-        converter = new RecipeToRecipeCommand(
-                new CategoryToCategoryCommand(),
-                new IngredientToIngredientCommand(new UnitOfMeasureToUnitOfMeasureCommand()),
-                new NotesToNotesCommand());
+        converter = new RecipeToRecipeCommandImpl(
+                new IngredientToIngredientCommandImpl(new UnitOfMeasureToUnitOfMeasureCommandImpl()),
+                new NotesToNotesCommandImpl());
     }
 
     @Test
@@ -48,6 +48,7 @@ public class RecipeToRecipeCommandTest {
         //given
         Recipe recipe = new Recipe();
         recipe.setId(RECIPE_ID);
+        recipe.setVersion(VERSION);
         recipe.setCookTime(COOK_TIME);
         recipe.setPrepTime(PREP_TIME);
         recipe.setDescription(DESCRIPTION);
@@ -62,14 +63,8 @@ public class RecipeToRecipeCommandTest {
 
         recipe.setNotes(notes);
 
-        Category category = new Category();
-        category.setId(CAT_ID_1);
-
-        Category category2 = new Category();
-        category2.setId(CAT_ID2);
-
-        recipe.getCategories().add(category);
-        recipe.getCategories().add(category2);
+        recipe.getCategoryIds().add(CAT_ID_1);
+        recipe.getCategoryIds().add(CAT_ID2);
 
         Ingredient ingredient = new Ingredient();
         ingredient.setId(INGRED_ID_1);
@@ -86,6 +81,7 @@ public class RecipeToRecipeCommandTest {
         //then
         assertNotNull(command);
         assertEquals(RECIPE_ID, command.getId());
+        assertEquals(VERSION, command.getVersion());
         assertEquals(COOK_TIME, command.getCookTime());
         assertEquals(PREP_TIME, command.getPrepTime());
         assertEquals(DESCRIPTION, command.getDescription());
@@ -96,6 +92,7 @@ public class RecipeToRecipeCommandTest {
         assertEquals(URL, command.getUrl());
         assertEquals(NOTES_ID, command.getNotes().getId());
         assertEquals(2, command.getCategories().size());
+        assertEquals(CAT_ID2, command.getCategories().get(1).getId());
         assertEquals(2, command.getIngredients().size());
 
     }
@@ -16,7 +16,7 @@ public class UnitOfMeasureCommandToUnitOfMeasureTest {
 
     @BeforeEach
     public void setUp() throws Exception {
-        converter = new UnitOfMeasureCommandToUnitOfMeasure();
+        converter = new UnitOfMeasureCommandToUnitOfMeasureImpl();
 
     }
 
@@ -19,7 +19,7 @@ public class UnitOfMeasureToUnitOfMeasureCommandTest {
 
     @BeforeEach
     public void setUp() throws Exception {
-        converter = new UnitOfMeasureToUnitOfMeasureCommand();
+        converter = new UnitOfMeasureToUnitOfMeasureCommandImpl();
     }
 
     @Test
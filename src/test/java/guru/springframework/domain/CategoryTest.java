@@ -31,8 +31,4 @@ public class CategoryTest {
     public void getDescription() throws Exception {
     }
 
-    @Test
-    public void getRecipes() throws Exception {
-    }
-
 }
\ No newline at end of file
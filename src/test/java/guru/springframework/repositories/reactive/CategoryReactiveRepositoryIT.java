@@ -1,7 +1,6 @@
 package guru.springframework.repositories.reactive;
 
 import guru.springframework.domain.Category;
-import guru.springframework.repositories.CategoryRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
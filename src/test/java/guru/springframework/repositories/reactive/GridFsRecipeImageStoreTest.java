@@ -0,0 +1,139 @@
+package guru.springframework.repositories.reactive;
+
+import guru.springframework.domain.RecipeImage;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsObject;
+import org.springframework.data.mongodb.gridfs.ReactiveGridFsOperations;
+import org.springframework.data.mongodb.gridfs.ReactiveGridFsResource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class GridFsRecipeImageStoreTest {
+
+    @Mock
+    ReactiveGridFsOperations gridFsOperations;
+
+    RecipeImageStore recipeImageStore;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        recipeImageStore = new GridFsRecipeImageStore(gridFsOperations);
+    }
+
+    @Test
+    public void storeHashesStreamedContent() throws Exception {
+        //given
+        ObjectId fileId = new ObjectId();
+        byte[] first = "Spring Framework".getBytes();
+        byte[] second = " Guru".getBytes();
+
+        when(gridFsOperations.store(any(), anyString(), anyString(), any(Document.class))).thenAnswer(invocation -> {
+            Publisher<DataBuffer> content = invocation.getArgument(0);
+            return Flux.from(content).then(Mono.just(fileId));
+        });
+
+        DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+        //when
+        RecipeImage image = recipeImageStore.store("1",
+                Flux.just(bufferFactory.wrap(first), bufferFactory.wrap(second)), "image/jpeg").block();
+
+        //then
+        String expectedHash = HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest("Spring Framework Guru".getBytes()));
+
+        assertEquals(fileId.toHexString(), image.getFileId());
+        assertEquals(Long.valueOf(first.length + second.length), image.getLength());
+        assertEquals(expectedHash, image.getContentHash());
+        assertEquals("image/jpeg", image.getContentType());
+
+        ArgumentCaptor<Document> metadata = ArgumentCaptor.forClass(Document.class);
+        verify(gridFsOperations).store(any(), anyString(), anyString(), metadata.capture());
+        assertEquals("1", metadata.getValue().get("recipeId"));
+    }
+
+    @Test
+    public void deleteOnlyTheRecipesOwnFile() throws Exception {
+        ObjectId fileId = new ObjectId();
+        when(gridFsOperations.delete(any(Query.class))).thenReturn(Mono.empty());
+
+        recipeImageStore.delete("1", fileId.toHexString()).block();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(gridFsOperations).delete(query.capture());
+        assertEquals(fileId, query.getValue().getQueryObject().get("_id"));
+        assertEquals("1", query.getValue().getQueryObject().get("metadata.recipeId"));
+    }
+
+    @Test
+    public void storeSharedOnlyOnce() throws Exception {
+        ObjectId fileId = new ObjectId();
+        GridFSFile file = mock(GridFSFile.class);
+
+        when(gridFsOperations.findOne(any(Query.class))).thenReturn(Mono.empty(), Mono.just(file));
+        when(gridFsOperations.store(any(GridFsObject.class))).thenReturn(Mono.just(fileId));
+
+        recipeImageStore.storeShared(fileId.toHexString(), new byte[]{1, 2}, "image/png").block();
+        recipeImageStore.storeShared(fileId.toHexString(), new byte[]{1, 2}, "image/png").block();
+
+        ArgumentCaptor<GridFsObject<ObjectId, Publisher<DataBuffer>>> upload = ArgumentCaptor.forClass(GridFsObject.class);
+        verify(gridFsOperations, times(1)).store(upload.capture());
+        assertEquals(fileId, upload.getValue().getFileId());
+        assertEquals(fileId.toHexString(), upload.getValue().getFilename());
+        assertNull(upload.getValue().getOptions().getMetadata().get("recipeId"));
+    }
+
+    @Test
+    public void deleteByRecipeId() throws Exception {
+        when(gridFsOperations.delete(any(Query.class))).thenReturn(Mono.empty());
+
+        recipeImageStore.deleteByRecipeId("1").block();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(gridFsOperations).delete(query.capture());
+        assertEquals("1", query.getValue().getQueryObject().get("metadata.recipeId"));
+    }
+
+    @Test
+    public void readStreamsDownload() throws Exception {
+        GridFSFile file = mock(GridFSFile.class);
+        ReactiveGridFsResource resource = mock(ReactiveGridFsResource.class);
+        DataBuffer chunk = DefaultDataBufferFactory.sharedInstance.wrap("chunk".getBytes());
+
+        when(gridFsOperations.findOne(any(Query.class))).thenReturn(Mono.just(file));
+        when(gridFsOperations.getResource(file)).thenReturn(Mono.just(resource));
+        when(resource.getDownloadStream()).thenReturn(Flux.just(chunk));
+
+        assertEquals(1, recipeImageStore.read(new ObjectId().toHexString()).collectList().block().size());
+    }
+
+    @Test
+    public void openMissingFileIsEmpty() throws Exception {
+        when(gridFsOperations.findOne(any(Query.class))).thenReturn(Mono.empty());
+
+        assertNull(recipeImageStore.open(new ObjectId().toHexString()).block());
+        verify(gridFsOperations, never()).getResource(any(GridFSFile.class));
+    }
+}
@@ -0,0 +1,219 @@
+package guru.springframework.repositories.reactive;
+
+import com.mongodb.client.result.UpdateResult;
+import guru.springframework.domain.ImageVariant;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.domain.RecipeSearchResult;
+import guru.springframework.domain.UnitOfMeasure;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the documents the recipe operations send to Mongo, after Spring Data's field mapping.
+ */
+public class RecipeReactiveRepositoryCustomImplTest {
+
+    @Mock
+    ReactiveMongoOperations mongoOperations;
+
+    RecipeReactiveRepositoryCustomImpl repository;
+
+    MongoMappingContext mappingContext;
+    MappingMongoConverter converter;
+
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<UpdateDefinition> updateCaptor = ArgumentCaptor.forClass(UpdateDefinition.class);
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        MongoCustomConversions conversions = new MongoCustomConversions(Collections.emptyList());
+        mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        when(mongoOperations.getConverter()).thenReturn(converter);
+        when(mongoOperations.getCollectionName(Recipe.class)).thenReturn("recipe");
+        repository = new RecipeReactiveRepositoryCustomImpl(mongoOperations);
+
+        when(mongoOperations.updateFirst(any(Query.class), any(UpdateDefinition.class), anyString()))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1L, 1L, null)));
+        when(mongoOperations.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Recipe.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1L, 1L, null)));
+    }
+
+    @Test
+    public void addIngredientPushesSubdocument() throws Exception {
+        StepVerifier.create(repository.addIngredient("r1", ingredient("i1"))).expectNext(true).verifyComplete();
+
+        verify(mongoOperations).updateFirst(queryCaptor.capture(), updateCaptor.capture(), eq("recipe"));
+        assertEquals(new Document("_id", "r1"), mappedQuery());
+
+        Document pushed = (Document) mappedUpdate().get("$push", Document.class).get("ingredients");
+        assertEquals("i1", pushed.get("_id"));
+        assertEquals("salt", pushed.get("description"));
+        //sent to the collection, so Spring Data leaves the version alone
+        assertNull(mappedUpdate().get("$inc"));
+        verify(mongoOperations, never()).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Recipe.class));
+    }
+
+    @Test
+    public void updateIngredientSetsMatchedElementOnly() throws Exception {
+        StepVerifier.create(repository.updateIngredient("r1", ingredient("i1"))).expectNext(true).verifyComplete();
+
+        verify(mongoOperations).updateFirst(queryCaptor.capture(), updateCaptor.capture(), eq("recipe"));
+        assertEquals(new Document("_id", "r1").append("ingredients._id", "i1"), mappedQuery());
+
+        Document set = mappedUpdate().get("$set", Document.class);
+        assertEquals(List.of("ingredients.$"), List.copyOf(set.keySet()));
+        assertEquals("i1", ((Document) set.get("ingredients.$")).get("_id"));
+    }
+
+    @Test
+    public void removeIngredientPullsById() throws Exception {
+        StepVerifier.create(repository.removeIngredient("r1", "i1")).expectNext(true).verifyComplete();
+
+        verify(mongoOperations).updateFirst(queryCaptor.capture(), updateCaptor.capture(), eq("recipe"));
+        assertEquals(new Document("_id", "r1").append("ingredients._id", "i1"), mappedQuery());
+        assertEquals(new Document("ingredients", new Document("_id", "i1")),
+                mappedUpdate().get("$pull", Document.class));
+    }
+
+    @Test
+    public void updateFieldsIsConditionalOnVersion() throws Exception {
+        StepVerifier.create(repository.updateFields("r1", 4L, Map.of("description", "new")))
+                .expectNext(true).verifyComplete();
+
+        verify(mongoOperations).updateFirst(queryCaptor.capture(), updateCaptor.capture(), eq(Recipe.class));
+        assertEquals(new Document("_id", "r1").append("version", 4L), mappedQuery());
+        assertEquals(new Document("description", "new"), mappedUpdate().get("$set", Document.class));
+        assertEquals(new Document("version", 1), mappedUpdate().get("$inc", Document.class));
+    }
+
+    @Test
+    public void replaceImageEmitsPreviousImage() throws Exception {
+        RecipeImage previous = new RecipeImage();
+        previous.setFileId("old");
+        Recipe before = new Recipe();
+        before.setImage(previous);
+
+        Document stored = new Document();
+        converter.write(before, stored);
+        when(mongoOperations.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("recipe")))
+                .thenReturn(Mono.just(stored));
+
+        RecipeImage image = new RecipeImage();
+        image.setFileId("new");
+
+        StepVerifier.create(repository.replaceImage("r1", image))
+                .assertNext(replaced -> assertEquals("old", replaced.getFileId()))
+                .verifyComplete();
+
+        verify(mongoOperations).findAndModify(queryCaptor.capture(), updateCaptor.capture(), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("recipe"));
+        assertEquals(new Document("image", 1), queryCaptor.getValue().getFieldsObject());
+        assertEquals("new", ((Document) mappedUpdate().get("$set", Document.class).get("image")).get("fileId"));
+        assertNull(mappedUpdate().get("$inc"));
+    }
+
+    @Test
+    public void attachImageVariantsOnlyToSameImage() throws Exception {
+        RecipeImage thumbnail = new RecipeImage();
+        thumbnail.setFileId("thumb");
+
+        StepVerifier.create(repository.attachImageVariants("r1", "f1", Map.of(ImageVariant.THUMBNAIL, thumbnail)))
+                .expectNext(true).verifyComplete();
+
+        verify(mongoOperations).updateFirst(queryCaptor.capture(), updateCaptor.capture(), eq("recipe"));
+        assertEquals(new Document("_id", "r1").append("image.fileId", "f1"), mappedQuery());
+        Map<?, ?> variants = (Map<?, ?>) mappedUpdate().get("$set", Document.class).get("image.variants");
+        assertEquals("thumb", ((Map<?, ?>) variants.get("THUMBNAIL")).get("fileId"));
+    }
+
+    @Test
+    public void unmatchedRecipeReportsFalse() throws Exception {
+        when(mongoOperations.updateFirst(any(Query.class), any(UpdateDefinition.class), anyString()))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(0L, 0L, null)));
+
+        StepVerifier.create(repository.updateIngredient("r1", ingredient("i1"))).expectNext(false).verifyComplete();
+    }
+
+    @Test
+    public void searchSortsByTextScore() throws Exception {
+        when(mongoOperations.getCollectionName(Recipe.class)).thenReturn("recipe");
+        when(mongoOperations.find(any(Query.class), eq(RecipeSearchResult.class), eq("recipe"))).thenReturn(Flux.empty());
+
+        StepVerifier.create(repository.search("tacos", 20, 10)).verifyComplete();
+
+        verify(mongoOperations).find(queryCaptor.capture(), eq(RecipeSearchResult.class), eq("recipe"));
+        Query query = queryCaptor.getValue();
+        MongoPersistentEntity<?> entity = mappingContext.getRequiredPersistentEntity(RecipeSearchResult.class);
+        QueryMapper queryMapper = new QueryMapper(converter);
+
+        assertEquals(new Document("$search", "tacos"), query.getQueryObject().get("$text"));
+        assertEquals(new Document("score", new Document("$meta", "textScore")),
+                queryMapper.getMappedSort(query.getSortObject(), entity));
+        Document fields = queryMapper.getMappedFields(query.getFieldsObject(), entity);
+        assertEquals(new Document("$meta", "textScore"), fields.get("score"));
+        assertEquals(1, fields.get("description"));
+        assertEquals(20, query.getSkip());
+        assertEquals(10, query.getLimit());
+    }
+
+    private Document mappedQuery() {
+        return new QueryMapper(converter).getMappedObject(queryCaptor.getValue().getQueryObject(), recipeEntity());
+    }
+
+    private Document mappedUpdate() {
+        return new UpdateMapper(converter).getMappedObject(updateCaptor.getValue().getUpdateObject(), recipeEntity());
+    }
+
+    private MongoPersistentEntity<?> recipeEntity() {
+        return mappingContext.getRequiredPersistentEntity(Recipe.class);
+    }
+
+    private Ingredient ingredient(String id) {
+        UnitOfMeasure uom = new UnitOfMeasure();
+        uom.setId("u1");
+
+        Ingredient ingredient = new Ingredient("salt", BigDecimal.ONE, uom);
+        ingredient.setId(id);
+        return ingredient;
+    }
+}
@@ -1,13 +1,35 @@
 package guru.springframework.repositories.reactive;
 
+import guru.springframework.bootstrap.RecipeCategoryMigration;
+import guru.springframework.config.MongoIndexManager;
 import guru.springframework.domain.Category;
+import guru.springframework.domain.ImageVariant;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Notes;
 import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.domain.RecipeSearchResult;
+import guru.springframework.domain.RecipeSummary;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,6 +40,12 @@ class RecipeReactiveRepositoryIT {
     @Autowired
     RecipeReactiveRepository recipeReactiveRepository;
 
+    @Autowired
+    ReactiveMongoTemplate mongoOperations;
+
+    @Autowired
+    MongoMappingContext mappingContext;
+
     @BeforeEach
     void setUp() {
         recipeReactiveRepository.deleteAll().block();
@@ -34,4 +62,199 @@ class RecipeReactiveRepositoryIT {
 
         assertEquals(Long.valueOf(1L), count);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testKeysetPages() throws Exception {
+        List<Recipe> recipes = IntStream.range(0, 5).mapToObj(i -> {
+            Recipe recipe = new Recipe();
+            recipe.setDescription("Recipe " + i);
+            recipe.setDirections("not part of the summary");
+            return recipe;
+        }).collect(Collectors.toList());
+        recipeReactiveRepository.saveAll(recipes).blockLast();
+
+        List<RecipeSummary> firstPage = recipeReactiveRepository.findAllByOrderByIdAsc(Limit.of(3)).collectList().block();
+        List<RecipeSummary> secondPage = recipeReactiveRepository
+                .findByIdGreaterThanOrderByIdAsc(firstPage.get(2).getId(), Limit.of(3)).collectList().block();
+
+        assertEquals(3, firstPage.size());
+        assertEquals(2, secondPage.size());
+        assertEquals("Recipe 0", firstPage.get(0).getDescription());
+        assertEquals("Recipe 3", secondPage.get(0).getDescription());
+    }
+
+    @Test
+    public void testFindSummariesByIds() throws Exception {
+        List<Recipe> recipes = IntStream.range(0, 3).mapToObj(i -> {
+            Recipe recipe = new Recipe();
+            recipe.setDescription("Recipe " + i);
+            return recipe;
+        }).collect(Collectors.toList());
+        recipeReactiveRepository.saveAll(recipes).blockLast();
+
+        List<RecipeSummary> found = recipeReactiveRepository
+                .findByIdIn(List.of(recipes.get(0).getId(), recipes.get(2).getId(), "59682f000000000000000000"))
+                .collectList().block();
+
+        assertEquals(Set.of("Recipe 0", "Recipe 2"), found.stream().map(RecipeSummary::getDescription).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testConcurrentIngredientEditsAreNotLost() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setDescription("Recipe");
+        recipe.addIngredient(new Ingredient("salt", BigDecimal.ONE, null));
+        recipe.addIngredient(new Ingredient("pepper", BigDecimal.ONE, null));
+        String recipeId = recipeReactiveRepository.save(recipe).block().getId();
+        Ingredient salt = recipe.getIngredients().get(0);
+        Ingredient pepper = recipe.getIngredients().get(1);
+
+        Ingredient seaSalt = new Ingredient("sea salt", BigDecimal.TEN, null);
+        seaSalt.setId(salt.getId());
+
+        //32 editors adding, one changing salt and one removing pepper, all at once
+        Flux<Boolean> edits = Flux.range(0, 32)
+                .map(i -> recipeReactiveRepository.addIngredient(recipeId, new Ingredient("added " + i, BigDecimal.ONE, null)))
+                .concatWithValues(
+                        recipeReactiveRepository.updateIngredient(recipeId, seaSalt),
+                        recipeReactiveRepository.removeIngredient(recipeId, pepper.getId()))
+                .flatMap(edit -> edit.subscribeOn(Schedulers.parallel()));
+
+        assertEquals(34, edits.filter(Boolean::booleanValue).count().block());
+
+        //an editor still holding the removed pepper matches nothing and must not add it back
+        Ingredient whitePepper = new Ingredient("white pepper", BigDecimal.ONE, null);
+        whitePepper.setId(pepper.getId());
+        assertFalse(recipeReactiveRepository.updateIngredient(recipeId, whitePepper).block());
+
+        List<Ingredient> ingredients = recipeReactiveRepository.findById(recipeId).block().getIngredients();
+        assertEquals(33, ingredients.size());
+        assertEquals("sea salt", ingredients.get(0).getDescription());
+        assertTrue(ingredients.stream().noneMatch(ingredient -> ingredient.getId().equals(pepper.getId())));
+    }
+
+    @Test
+    public void testRemoveRecipeReportsWhetherItDeleted() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setDescription("Recipe");
+        String recipeId = recipeReactiveRepository.save(recipe).block().getId();
+
+        assertTrue(recipeReactiveRepository.removeRecipe(recipeId).block());
+        assertFalse(recipeReactiveRepository.removeRecipe(recipeId).block());
+        assertEquals(0L, recipeReactiveRepository.count().block());
+    }
+
+    @Test
+    public void testIngredientAndImageEditsDoNotConflictWithTheRecipeForm() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setDescription("Recipe");
+        recipe.addIngredient(new Ingredient("salt", BigDecimal.ONE, null));
+        Recipe saved = recipeReactiveRepository.save(recipe).block();
+        Long formVersion = saved.getVersion();
+
+        //while the recipe form is open: an ingredient edit, an image upload and its variants landing later
+        Ingredient seaSalt = new Ingredient("sea salt", BigDecimal.TEN, null);
+        seaSalt.setId(recipe.getIngredients().get(0).getId());
+        assertTrue(recipeReactiveRepository.updateIngredient(saved.getId(), seaSalt).block());
+        assertTrue(recipeReactiveRepository.addIngredient(saved.getId(), new Ingredient("pepper", BigDecimal.ONE, null)).block());
+
+        RecipeImage image = new RecipeImage();
+        image.setFileId("f1");
+        recipeReactiveRepository.replaceImage(saved.getId(), image).block();
+        RecipeImage thumbnail = new RecipeImage();
+        thumbnail.setFileId("f2");
+        assertTrue(recipeReactiveRepository.attachImageVariants(saved.getId(), "f1", Map.of(ImageVariant.THUMBNAIL, thumbnail)).block());
+
+        assertEquals(formVersion, recipeReactiveRepository.findById(saved.getId()).block().getVersion());
+
+        //the form is then saved with the version it was opened at
+        assertTrue(recipeReactiveRepository.updateFields(saved.getId(), formVersion, Map.of("description", "Edited")).block());
+
+        Recipe edited = recipeReactiveRepository.findById(saved.getId()).block();
+        assertEquals("Edited", edited.getDescription());
+        assertEquals(formVersion + 1, edited.getVersion());
+        assertEquals(2, edited.getIngredients().size());
+        assertEquals("f2", edited.getImage().getVariants().get(ImageVariant.THUMBNAIL).getFileId());
+    }
+
+    @Test
+    public void testSearchRanksByWeightedField() throws Exception {
+        new MongoIndexManager(mongoOperations, mappingContext).ensureIndexes().block();
+
+        Recipe inDirections = new Recipe();
+        inDirections.setDescription("Guacamole");
+        inDirections.setDirections("Serve with tacos");
+
+        Notes notes = new Notes();
+        notes.setRecipeNotes("Great in tacos");
+        Recipe inNotes = new Recipe();
+        inNotes.setDescription("Salsa");
+        inNotes.setNotes(notes);
+
+        Recipe inDescription = new Recipe();
+        inDescription.setDescription("Chicken Tacos");
+
+        Recipe noMatch = new Recipe();
+        noMatch.setDescription("Pancakes");
+
+        recipeReactiveRepository.saveAll(List.of(inDirections, inNotes, inDescription, noMatch)).blockLast();
+
+        List<RecipeSearchResult> results = recipeReactiveRepository.search("taco", 0, 10).collectList().block();
+
+        assertEquals(List.of("Chicken Tacos", "Salsa", "Guacamole"),
+                results.stream().map(RecipeSearchResult::getDescription).collect(Collectors.toList()));
+        assertTrue(results.get(0).getScore() > results.get(1).getScore());
+
+        assertEquals(List.of("Salsa"), recipeReactiveRepository.search("taco", 1, 1)
+                .map(RecipeSearchResult::getDescription).collectList().block());
+    }
+
+    @Test
+    public void testCategoryKeysetPages() throws Exception {
+        List<Recipe> recipes = IntStream.range(0, 6).mapToObj(i -> {
+            Recipe recipe = new Recipe();
+            recipe.setDescription("Recipe " + i);
+            recipe.getCategoryIds().add(i % 2 == 0 ? "even" : "odd");
+            return recipe;
+        }).collect(Collectors.toList());
+        recipeReactiveRepository.saveAll(recipes).blockLast();
+
+        List<RecipeSummary> firstPage = recipeReactiveRepository.findByCategoryIdsOrderByIdAsc("even", Limit.of(2))
+                .collectList().block();
+        List<RecipeSummary> secondPage = recipeReactiveRepository
+                .findByCategoryIdsAndIdGreaterThanOrderByIdAsc("even", firstPage.get(1).getId(), Limit.of(2))
+                .collectList().block();
+
+        assertEquals(List.of("Recipe 0", "Recipe 2"),
+                firstPage.stream().map(RecipeSummary::getDescription).collect(Collectors.toList()));
+        assertEquals(List.of("Recipe 4"),
+                secondPage.stream().map(RecipeSummary::getDescription).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testCategoryMigration() throws Exception {
+        ObjectId american = new ObjectId();
+        ObjectId mexican = new ObjectId();
+        Document embedded = new Document("description", "Perfect Guacamole")
+                .append("categories", List.of(
+                        new Document("_id", american).append("description", "American"),
+                        new Document("_id", mexican).append("description", "Mexican")));
+        mongoOperations.insert(embedded, "recipe").block();
+
+        assertEquals(1L, new RecipeCategoryMigration(mongoOperations).migrate().block());
+        assertEquals(0L, new RecipeCategoryMigration(mongoOperations).migrate().block());
+
+        Recipe migrated = recipeReactiveRepository.findAll().blockFirst();
+        assertEquals(List.of(american.toHexString(), mexican.toHexString()), migrated.getCategoryIds());
+        assertEquals(1L, recipeReactiveRepository.findByCategoryIdsOrderByIdAsc(mexican.toHexString(), Limit.of(10))
+                .count().block());
+    }
+
+    @Test
+    public void testEnsureIndexesCreatesDeclaredIndexes() throws Exception {
+        MongoIndexManager mongoIndexManager = new MongoIndexManager(mongoOperations, mappingContext);
+
+        assertTrue(mongoIndexManager.ensureIndexes().block().isComplete());
+        assertTrue(mongoIndexManager.verify().block().isComplete());
+    }
+}
@@ -0,0 +1,73 @@
+package guru.springframework.services;
+
+import guru.springframework.commands.CategoryCommand;
+import guru.springframework.converters.CategoryToCategoryCommandImpl;
+import guru.springframework.domain.Category;
+import guru.springframework.repositories.reactive.CategoryReactiveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.*;
+
+public class CategoryServiceImplTest {
+
+    CategoryService service;
+
+    @Mock
+    CategoryReactiveRepository categoryReactiveRepository;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        ReferenceDataCache<Category> cache = new ReferenceDataCache<>("category", categoryReactiveRepository::findAll,
+                categoryReactiveRepository::findById, Category::getId, 100, Duration.ofMinutes(10));
+        service = new CategoryServiceImpl(cache, new CategoryToCategoryCommandImpl());
+
+        Category american = new Category();
+        american.setId("1");
+        american.setDescription("American");
+
+        Category mexican = new Category();
+        mexican.setId("2");
+        mexican.setDescription("Mexican");
+
+        when(categoryReactiveRepository.findAll()).thenReturn(Flux.just(american, mexican));
+    }
+
+    @Test
+    public void listAllCategories() throws Exception {
+        List<CategoryCommand> commands = service.listAllCategories().collectList().block();
+        service.listAllCategories().blockLast();
+
+        assertEquals(2, commands.size());
+        assertEquals("American", commands.get(0).getDescription());
+        verify(categoryReactiveRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void findCategoryById() throws Exception {
+        assertEquals("Mexican", service.findCategoryById("2").block().getDescription());
+        assertNull(service.findCategoryById("3").block());
+
+        verify(categoryReactiveRepository, never()).findById(anyString());
+    }
+
+    @Test
+    public void findCategoriesByIds() throws Exception {
+        List<Category> categories = service.findCategoriesByIds(List.of("2", "3", "1")).collectList().block();
+
+        assertEquals(List.of("Mexican", "American"),
+                categories.stream().map(Category::getDescription).collect(Collectors.toList()));
+        verify(categoryReactiveRepository, times(1)).findAll();
+    }
+}
@@ -0,0 +1,63 @@
+package guru.springframework.services;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImageResizerTest {
+
+    @Test
+    public void scaleToFitKeepsAspectRatio() throws Exception {
+        BufferedImage scaled = ImageResizer.scaleToFit(new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB), 400);
+
+        assertEquals(400, scaled.getWidth());
+        assertEquals(200, scaled.getHeight());
+    }
+
+    @Test
+    public void scaleToFitNeverUpscales() throws Exception {
+        BufferedImage scaled = ImageResizer.scaleToFit(new BufferedImage(80, 60, BufferedImage.TYPE_INT_RGB), 400);
+
+        assertEquals(80, scaled.getWidth());
+        assertEquals(60, scaled.getHeight());
+    }
+
+    @Test
+    public void encodesJpegUnlessTransparent() throws Exception {
+        BufferedImage opaque = ImageResizer.scaleToFit(ImageResizer.decode(png(BufferedImage.TYPE_INT_RGB)), 10);
+        BufferedImage transparent = ImageResizer.scaleToFit(ImageResizer.decode(png(BufferedImage.TYPE_INT_ARGB)), 10);
+
+        assertEquals("image/jpeg", ImageResizer.contentType(opaque));
+        assertEquals("image/png", ImageResizer.contentType(transparent));
+        assertEquals(10, ImageResizer.decode(ImageResizer.encode(opaque)).getWidth());
+        assertEquals(10, ImageResizer.decode(ImageResizer.encode(transparent)).getWidth());
+    }
+
+    @Test
+    public void detectsTheTypeFromTheBytes() throws Exception {
+        assertEquals("image/png", ImageResizer.detectContentType(png(BufferedImage.TYPE_INT_RGB)));
+        assertEquals("image/jpeg", ImageResizer.detectContentType(ImageResizer.encode(new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB))));
+        assertThrows(IOException.class, () -> ImageResizer.detectContentType("<svg onload=\"alert(1)\"/>".getBytes()));
+
+        //a truncated image does not decode
+        byte[] png = png(BufferedImage.TYPE_INT_RGB);
+        assertThrows(IOException.class, () -> ImageResizer.detectContentType(Arrays.copyOf(png, png.length / 2)));
+    }
+
+    @Test
+    public void decodeRejectsNonImages() throws Exception {
+        assertThrows(IOException.class, () -> ImageResizer.decode("not an image".getBytes()));
+    }
+
+    private byte[] png(int type) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(40, 20, type), "png", out);
+        return out.toByteArray();
+    }
+}
@@ -1,20 +1,36 @@
 package guru.springframework.services;
 
+import guru.springframework.domain.ImageVariant;
 import guru.springframework.domain.Recipe;
-import guru.springframework.repositories.RecipeRepository;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.exceptions.InvalidImageException;
+import guru.springframework.exceptions.NotFoundException;
+import guru.springframework.repositories.reactive.RecipeImageStore;
 import guru.springframework.repositories.reactive.RecipeReactiveRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
 
-import java.util.Optional;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 
@@ -23,37 +39,268 @@ public class ImageServiceImplTest {
     @Mock
     RecipeReactiveRepository recipeReactiveRepository;
 
+    @Mock
+    RecipeImageStore recipeImageStore;
+
+    @Mock
+    ImageVariantGenerator imageVariantGenerator;
+
     ImageService imageService;
 
     @BeforeEach
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
 
-        imageService = new ImageServiceImpl(recipeReactiveRepository);
+        imageService = new ImageServiceImpl(recipeReactiveRepository, recipeImageStore, imageVariantGenerator,
+                DataSize.ofKilobytes(64));
+
+        //drain the upload like the real store does, reporting how many bytes were streamed
+        when(recipeImageStore.store(anyString(), any(), anyString())).thenAnswer(invocation -> {
+            Flux<DataBuffer> content = invocation.getArgument(1);
+            return content.map(dataBuffer -> {
+                        int length = dataBuffer.readableByteCount();
+                        DataBufferUtils.release(dataBuffer);
+                        return (long) length;
+                    })
+                    .reduce(0L, Long::sum)
+                    .map(length -> {
+                        RecipeImage image = new RecipeImage();
+                        image.setFileId("file-" + invocation.getArgument(0));
+                        image.setContentType(invocation.getArgument(2));
+                        image.setLength(length);
+                        return image;
+                    });
+        });
+        when(recipeImageStore.delete(anyString(), anyString())).thenReturn(Mono.empty());
+        when(imageVariantGenerator.generateVariants(anyString(), any())).thenReturn(Mono.empty());
+        when(imageVariantGenerator.detectContentType(any())).thenReturn(Mono.just(MediaType.IMAGE_JPEG_VALUE));
     }
 
     @Test
     public void saveImageFile() throws Exception {
         //given
         String id = "1";
-        MultipartFile multipartFile = new MockMultipartFile("imagefile", "testing.txt", "text/plain",
-                "Spring Framework Guru".getBytes());
+        byte[] bytes = "Spring Framework Guru".getBytes();
+        FilePart filePart = filePart(bytes, 4);
 
-        Recipe recipe = new Recipe();
-        recipe.setId(id);
+        when(recipeReactiveRepository.existsById(anyString())).thenReturn(Mono.just(true));
+        when(recipeReactiveRepository.replaceImage(anyString(), any(RecipeImage.class))).thenReturn(Mono.empty());
 
-        when(recipeReactiveRepository.findById(anyString())).thenReturn(Mono.just(recipe));
-        when(recipeReactiveRepository.save(any(Recipe.class))).thenReturn(Mono.just(recipe));
+        ArgumentCaptor<RecipeImage> argumentCaptor = ArgumentCaptor.forClass(RecipeImage.class);
+
+        //when
+        StepVerifier.create(imageService.saveImageFile(id, filePart)).verifyComplete();
+
+        //then
+        verify(recipeReactiveRepository, times(1)).replaceImage(eq(id), argumentCaptor.capture());
+        RecipeImage savedImage = argumentCaptor.getValue();
+        assertEquals(bytes.length, savedImage.getLength().intValue());
+        assertEquals("file-1", savedImage.getFileId());
+        assertEquals(MediaType.IMAGE_JPEG_VALUE, savedImage.getContentType());
+        verify(recipeReactiveRepository, never()).save(any(Recipe.class));
+        verify(recipeImageStore, never()).delete(anyString(), anyString());
+    }
+
+    @Test
+    public void saveImageFileStoresTheTypeOfTheBytes() throws Exception {
+        when(recipeReactiveRepository.existsById(anyString())).thenReturn(Mono.just(true));
+        when(recipeReactiveRepository.replaceImage(anyString(), any(RecipeImage.class))).thenReturn(Mono.empty());
+        when(imageVariantGenerator.detectContentType(any())).thenReturn(Mono.just(MediaType.IMAGE_PNG_VALUE));
+
+        StepVerifier.create(imageService.saveImageFile("1", filePart("image".getBytes(), 2))).verifyComplete();
+
+        verify(recipeImageStore).store(eq("1"), any(), eq(MediaType.IMAGE_PNG_VALUE));
+    }
+
+    @Test
+    public void saveImageFileRejectsDeclaredNonImages() throws Exception {
+        when(recipeReactiveRepository.existsById(anyString())).thenReturn(Mono.just(true));
+
+        StepVerifier.create(imageService.saveImageFile("1", filePart("<script>".getBytes(), 2, MediaType.TEXT_HTML)))
+                .expectError(InvalidImageException.class)
+                .verify();
+
+        verify(recipeImageStore, never()).store(anyString(), any(), anyString());
+    }
+
+    @Test
+    public void saveImageFileRejectsUndecodableAndUnsupportedImages() throws Exception {
+        when(recipeReactiveRepository.existsById(anyString())).thenReturn(Mono.just(true));
 
-        ArgumentCaptor<Recipe> argumentCaptor = ArgumentCaptor.forClass(Recipe.class);
+        when(imageVariantGenerator.detectContentType(any())).thenReturn(Mono.error(new IOException("Unsupported image format")));
+        StepVerifier.create(imageService.saveImageFile("1", filePart("<svg/>".getBytes(), 2)))
+                .expectError(InvalidImageException.class)
+                .verify();
+
+        when(imageVariantGenerator.detectContentType(any())).thenReturn(Mono.just("image/bmp"));
+        StepVerifier.create(imageService.saveImageFile("1", filePart("BM".getBytes(), 2)))
+                .expectError(InvalidImageException.class)
+                .verify();
+
+        verify(recipeImageStore, never()).store(anyString(), any(), anyString());
+    }
+
+    @Test
+    public void saveImageFileRejectsOversizedUploads() throws Exception {
+        when(recipeReactiveRepository.existsById(anyString())).thenReturn(Mono.just(true));
+
+        StepVerifier.create(imageService.saveImageFile("1", filePart(new byte[65 * 1024], 4096)))
+                .expectError(InvalidImageException.class)
+                .verify();
+
+        verify(imageVariantGenerator, never()).detectContentType(any());
+        verify(recipeImageStore, never()).store(anyString(), any(), anyString());
+    }
+
+    @Test
+    public void saveImageFileReplacesPreviousImage() throws Exception {
+        //given
+        RecipeImage previous = new RecipeImage();
+        previous.setFileId("old");
+        previous.getVariants().put(ImageVariant.THUMBNAIL, image("old-thumbnail"));
+
+        when(recipeReactiveRepository.existsById(anyString())).thenReturn(Mono.just(true));
+        when(recipeReactiveRepository.replaceImage(anyString(), any(RecipeImage.class))).thenReturn(Mono.just(previous));
 
         //when
-        imageService.saveImageFile(id, multipartFile);
+        StepVerifier.create(imageService.saveImageFile("1", filePart("image".getBytes(), 2))).verifyComplete();
 
         //then
-        verify(recipeReactiveRepository, times(1)).save(argumentCaptor.capture());
-        Recipe savedRecipe = argumentCaptor.getValue();
-        assertEquals(multipartFile.getBytes().length, savedRecipe.getImage().length);
+        verify(recipeImageStore, times(1)).delete(eq("1"), eq("old"));
+        verify(recipeImageStore, times(1)).delete(eq("1"), eq("old-thumbnail"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void saveImageFileAttachesGeneratedVariants() throws Exception {
+        //given
+        Map<ImageVariant, RecipeImage> variants = Map.of(ImageVariant.THUMBNAIL, image("thumbnail"));
+
+        when(recipeReactiveRepository.existsById(anyString())).thenReturn(Mono.just(true));
+        when(recipeReactiveRepository.replaceImage(anyString(), any(RecipeImage.class))).thenReturn(Mono.empty());
+        when(recipeReactiveRepository.attachImageVariants(anyString(), anyString(), any())).thenReturn(Mono.just(true));
+        when(imageVariantGenerator.generateVariants(anyString(), any())).thenReturn(Mono.just(variants));
+
+        //when
+        StepVerifier.create(imageService.saveImageFile("1", filePart("image".getBytes(), 2))).verifyComplete();
+
+        //then
+        verify(recipeReactiveRepository, timeout(1000)).attachImageVariants("1", "file-1", variants);
+        verify(recipeImageStore, never()).delete(anyString(), anyString());
+    }
+
+    @Test
+    public void saveImageFileDiscardsVariantsOfReplacedImage() throws Exception {
+        //given
+        when(recipeReactiveRepository.existsById(anyString())).thenReturn(Mono.just(true));
+        when(recipeReactiveRepository.replaceImage(anyString(), any(RecipeImage.class))).thenReturn(Mono.empty());
+        //by the time the variants are ready another upload has replaced the image
+        when(recipeReactiveRepository.attachImageVariants(anyString(), anyString(), any())).thenReturn(Mono.just(false));
+        when(imageVariantGenerator.generateVariants(anyString(), any()))
+                .thenReturn(Mono.just(Map.of(ImageVariant.THUMBNAIL, image("thumbnail"))));
+
+        //when
+        StepVerifier.create(imageService.saveImageFile("1", filePart("image".getBytes(), 2))).verifyComplete();
+
+        //then
+        verify(recipeImageStore, timeout(1000)).delete(eq("1"), eq("thumbnail"));
+    }
+
+    @Test
+    public void saveImageFileRecipeNotFound() throws Exception {
+        when(recipeReactiveRepository.existsById(anyString())).thenReturn(Mono.just(false));
+
+        StepVerifier.create(imageService.saveImageFile("1", filePart("image".getBytes(), 2)))
+                .expectError(NotFoundException.class)
+                .verify();
+
+        verify(recipeReactiveRepository, never()).replaceImage(anyString(), any(RecipeImage.class));
+        verify(recipeImageStore, never()).store(anyString(), any(), anyString());
+    }
+
+    @Test
+    public void saveImageFileConcurrentlyOnNonBlockingThreads() throws Exception {
+        //parallel() threads reject block(), so any blocking call in the pipeline fails the upload
+        when(recipeReactiveRepository.existsById(anyString()))
+                .thenAnswer(invocation -> Mono.just(true).publishOn(Schedulers.parallel()));
+        when(recipeReactiveRepository.replaceImage(anyString(), any(RecipeImage.class)))
+                .thenAnswer(invocation -> Mono.just(image("old")).publishOn(Schedulers.parallel()));
+
+        Flux<Void> uploads = Flux.range(0, 64)
+                .flatMap(i -> imageService.saveImageFile(String.valueOf(i), filePart(new byte[8192], 1024))
+                        .subscribeOn(Schedulers.parallel()));
+
+        StepVerifier.create(uploads).expectComplete().verify(Duration.ofSeconds(10));
+
+        verify(recipeReactiveRepository, times(64)).replaceImage(anyString(), any(RecipeImage.class));
+        verify(recipeImageStore, times(64)).delete(anyString(), eq("old"));
+    }
+
+    @Test
+    public void findImageByRecipeId() throws Exception {
+        RecipeImage image = new RecipeImage();
+        image.setFileId("f1");
+
+        Recipe recipe = new Recipe();
+        recipe.setImage(image);
+
+        when(recipeReactiveRepository.findById(anyString())).thenReturn(Mono.just(recipe));
+
+        StepVerifier.create(imageService.findImageByRecipeId("1", null))
+                .expectNext(image)
+                .verifyComplete();
+    }
+
+    @Test
+    public void findImageByRecipeIdVariant() throws Exception {
+        RecipeImage image = image("f1");
+        RecipeImage medium = image("f1-medium");
+        image.getVariants().put(ImageVariant.MEDIUM, medium);
+
+        Recipe recipe = new Recipe();
+        recipe.setImage(image);
+
+        when(recipeReactiveRepository.findById(anyString())).thenReturn(Mono.just(recipe));
+
+        StepVerifier.create(imageService.findImageByRecipeId("1", ImageVariant.MEDIUM))
+                .expectNext(medium)
+                .verifyComplete();
+
+        //not generated yet, falls back to the original
+        StepVerifier.create(imageService.findImageByRecipeId("1", ImageVariant.THUMBNAIL))
+                .expectNext(image)
+                .verifyComplete();
+    }
+
+    @Test
+    public void findImageByRecipeIdWithoutImage() throws Exception {
+        when(recipeReactiveRepository.findById(anyString())).thenReturn(Mono.just(new Recipe()));
+
+        StepVerifier.create(imageService.findImageByRecipeId("1", null)).verifyComplete();
+    }
+
+    private RecipeImage image(String fileId) {
+        RecipeImage image = new RecipeImage();
+        image.setFileId(fileId);
+        return image;
+    }
+
+    private FilePart filePart(byte[] bytes, int chunkSize) {
+        return filePart(bytes, chunkSize, MediaType.IMAGE_JPEG);
+    }
+
+    private FilePart filePart(byte[] bytes, int chunkSize, MediaType contentType) {
+        DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+        Flux<DataBuffer> content = Flux.range(0, (bytes.length + chunkSize - 1) / chunkSize)
+                .map(chunk -> bufferFactory.wrap(Arrays.copyOfRange(bytes, chunk * chunkSize,
+                        Math.min(bytes.length, (chunk + 1) * chunkSize))));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+
+        FilePart filePart = mock(FilePart.class);
+        when(filePart.content()).thenReturn(content);
+        when(filePart.headers()).thenReturn(headers);
+        return filePart;
+    }
+}
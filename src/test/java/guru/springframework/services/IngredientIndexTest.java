@@ -0,0 +1,114 @@
+package guru.springframework.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IngredientIndexTest {
+
+    IngredientIndex index;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        index = new IngredientIndex();
+        index.index("guacamole", List.of("2 ripe avocados", "fresh lime juice", "minced red onion", "Cilantro", "salt"));
+        index.index("tacos", List.of("boneless chicken thighs", "small corn tortillas", "lime, cut into wedges",
+                "cherry tomatoes, halved", "salt"));
+        index.index("salsa", List.of("ripe tomato, seeds and pulp removed, chopped", "red onion", "salt"));
+    }
+
+    @Test
+    public void termsAreNormalized() throws Exception {
+        assertEquals(Set.of("cherry", "tomato"), IngredientIndex.terms("Cherry Tomatoes, halved"));
+        assertEquals(Set.of("berry"), IngredientIndex.terms("fresh berries"));
+        assertEquals(Set.of(), IngredientIndex.terms("chopped"));
+    }
+
+    @Test
+    public void allOf() throws Exception {
+        assertEquals(List.of("guacamole", "tacos"), index.find(List.of("lime", "salt"), List.of(), List.of(), 10));
+        assertEquals(List.of("guacamole"), index.find(List.of("lime juice"), List.of(), List.of(), 10));
+        assertEquals(List.of(), index.find(List.of("lime", "saffron"), List.of(), List.of(), 10));
+    }
+
+    @Test
+    public void anyOfAndNoneOf() throws Exception {
+        assertEquals(List.of("guacamole", "salsa"), index.find(List.of(), List.of("onion", "avocado"), List.of(), 10));
+        assertEquals(List.of("salsa"), index.find(List.of("tomato"), List.of(), List.of("chicken"), 10));
+        assertEquals(List.of("guacamole"), index.find(List.of(), List.of(), List.of("tomatoes"), 10));
+        assertEquals(List.of("guacamole"), index.find(List.of("salt"), List.of(), List.of(), 1));
+    }
+
+    @Test
+    public void findMissingAtMost() throws Exception {
+        List<IngredientIndex.Match> matches = index.findMissingAtMost(List.of("lime", "tomato", "onion"), 1, 10);
+
+        assertEquals(List.of("guacamole", "tacos", "salsa"),
+                matches.stream().map(IngredientIndex.Match::getRecipeId).collect(Collectors.toList()));
+        assertEquals(List.of("tomato"), matches.get(0).getMissing());
+        assertEquals(List.of("onion"), matches.get(1).getMissing());
+        assertEquals(List.of("lime"), matches.get(2).getMissing());
+
+        assertEquals(List.of("tacos"), index.findMissingAtMost(List.of("lime", "tomato", "chicken"), 0, 10).stream()
+                .map(IngredientIndex.Match::getRecipeId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void findMissingAtMostWithAnyOfAndNoneOf() throws Exception {
+        assertEquals(List.of("guacamole", "salsa"), index.findMissingAtMost(List.of("lime", "tomato", "onion"), 1,
+                List.of(), List.of("chicken"), 10).stream().map(IngredientIndex.Match::getRecipeId).collect(Collectors.toList()));
+        assertEquals(List.of("guacamole"), index.findMissingAtMost(List.of("lime", "tomato", "onion"), 1,
+                List.of("avocado", "saffron"), List.of(), 10).stream().map(IngredientIndex.Match::getRecipeId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void findMissingAtMostRanksFewestMissingFirst() throws Exception {
+        List<IngredientIndex.Match> matches = index.findMissingAtMost(List.of("salt", "avocado", "cilantro", "chicken"), 3, 10);
+
+        assertEquals(List.of("guacamole", "tacos", "salsa"),
+                matches.stream().map(IngredientIndex.Match::getRecipeId).collect(Collectors.toList()));
+        assertEquals(List.of("chicken"), matches.get(0).getMissing());
+        assertEquals(3, matches.get(2).getMissing().size());
+    }
+
+    @Test
+    public void reindexReplacesTerms() throws Exception {
+        index.index("salsa", List.of("tomatillo", "salt"));
+
+        assertEquals(List.of(), index.find(List.of("onion"), List.of("tomato"), List.of("lime"), 10));
+        assertEquals(List.of("salsa"), index.find(List.of("tomatillo"), List.of(), List.of(), 10));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void remove() throws Exception {
+        index.remove("guacamole");
+
+        assertEquals(List.of("tacos"), index.find(List.of("lime"), List.of(), List.of(), 10));
+        assertEquals(List.of("tacos", "salsa"), index.find(List.of(), List.of(), List.of(), 10));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void concurrentWritesAndQueries() throws Exception {
+        Flux.range(0, 2000)
+                .flatMap(i -> Flux.just(i)
+                        .publishOn(Schedulers.parallel())
+                        .doOnNext(n -> {
+                            index.index("recipe-" + n, List.of("salt", n % 2 == 0 ? "pepper" : "sugar"));
+                            index.find(List.of("salt"), List.of(), List.of("sugar"), 10);
+                        }))
+                .blockLast(Duration.ofSeconds(10));
+
+        assertEquals(2003, index.size());
+        assertEquals(1003, index.find(List.of("salt"), List.of(), List.of("pepper"), Integer.MAX_VALUE).size());
+    }
+}
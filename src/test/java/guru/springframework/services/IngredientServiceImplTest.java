@@ -4,26 +4,32 @@ import guru.springframework.commands.IngredientCommand;
 import guru.springframework.commands.RecipeCommand;
 import guru.springframework.commands.UnitOfMeasureCommand;
 import guru.springframework.converters.IngredientCommandToIngredient;
+import guru.springframework.converters.IngredientCommandToIngredientImpl;
 import guru.springframework.converters.IngredientToIngredientCommand;
+import guru.springframework.converters.IngredientToIngredientCommandImpl;
 import guru.springframework.converters.UnitOfMeasureCommandToUnitOfMeasure;
+import guru.springframework.converters.UnitOfMeasureCommandToUnitOfMeasureImpl;
 import guru.springframework.converters.UnitOfMeasureToUnitOfMeasureCommand;
+import guru.springframework.converters.UnitOfMeasureToUnitOfMeasureCommandImpl;
 import guru.springframework.domain.Ingredient;
 import guru.springframework.domain.Recipe;
 import guru.springframework.domain.UnitOfMeasure;
-import guru.springframework.repositories.RecipeRepository;
-import guru.springframework.repositories.UnitOfMeasureRepository;
+import guru.springframework.exceptions.NotFoundException;
 import guru.springframework.repositories.reactive.RecipeReactiveRepository;
-import guru.springframework.repositories.reactive.UnitOfMeasureReactiveRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -36,22 +42,25 @@ public class IngredientServiceImplTest {
     RecipeReactiveRepository recipeReactiveRepository;
 
     @Mock
-    UnitOfMeasureReactiveRepository unitOfMeasureReactiveRepository;
+    UnitOfMeasureService unitOfMeasureService;
+
+    IngredientIndex ingredientIndex;
 
     IngredientService ingredientService;
 
     //init converters
     public IngredientServiceImplTest() {
-        this.ingredientToIngredientCommand = new IngredientToIngredientCommand(new UnitOfMeasureToUnitOfMeasureCommand());
-        this.ingredientCommandToIngredient = new IngredientCommandToIngredient(new UnitOfMeasureCommandToUnitOfMeasure());
+        this.ingredientToIngredientCommand = new IngredientToIngredientCommandImpl(new UnitOfMeasureToUnitOfMeasureCommandImpl());
+        this.ingredientCommandToIngredient = new IngredientCommandToIngredientImpl(new UnitOfMeasureCommandToUnitOfMeasureImpl());
     }
 
     @BeforeEach
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
 
+        ingredientIndex = new IngredientIndex();
         ingredientService = new IngredientServiceImpl(ingredientToIngredientCommand, ingredientCommandToIngredient,
-                recipeReactiveRepository, unitOfMeasureReactiveRepository);
+                recipeReactiveRepository, unitOfMeasureService, ingredientIndex);
     }
 
     @Test
@@ -91,49 +100,113 @@ public class IngredientServiceImplTest {
     @Test
     public void testSaveRecipeCommand() throws Exception {
         //given
-        UnitOfMeasureCommand unitOfMeasure = new UnitOfMeasureCommand();
-        unitOfMeasure.setId("1");
-        IngredientCommand command = new IngredientCommand();
-        command.setRecipeId("2");
-        command.setId("3");
-        command.setDescription("");
-        command.setAmount(BigDecimal.ONE);
-        command.setUom(unitOfMeasure);
-
-        Recipe savedRecipe = new Recipe();
-        savedRecipe.addIngredient(ingredientCommandToIngredient.convert(command));
+        IngredientCommand command = ingredientCommand("3");
 
-        when(unitOfMeasureReactiveRepository.findById(anyString())).thenReturn(Mono.just(new UnitOfMeasure()));
-        when(recipeReactiveRepository.findById(anyString())).thenReturn(Mono.just(new Recipe()));
-        when(recipeReactiveRepository.save(any())).thenReturn(Mono.just(savedRecipe));
+        when(unitOfMeasureService.findUomById(anyString())).thenReturn(Mono.just(new UnitOfMeasure()));
+        when(recipeReactiveRepository.updateIngredient(anyString(), any(Ingredient.class))).thenReturn(Mono.just(true));
+        when(recipeReactiveRepository.findById(anyString())).thenReturn(Mono.just(recipeWithIngredient("2", "sea salt")));
 
         //when
         IngredientCommand savedCommand = ingredientService.saveIngredientCommand(command).block();
 
         //then
         assertEquals("3", savedCommand.getId());
-        verify(recipeReactiveRepository, times(1)).findById(anyString());
-        verify(recipeReactiveRepository, times(1)).save(any(Recipe.class));
+        assertEquals(List.of("2"), ingredientIndex.find(List.of("salt"), List.of(), List.of(), 10));
+        assertEquals("2", savedCommand.getRecipeId());
+        verify(recipeReactiveRepository, times(1)).updateIngredient(eq("2"), any(Ingredient.class));
+        verify(recipeReactiveRepository, never()).addIngredient(anyString(), any(Ingredient.class));
+        verify(recipeReactiveRepository, never()).save(any(Recipe.class));
+    }
 
+    @Test
+    public void testSaveNewIngredientCommand() throws Exception {
+        //given
+        IngredientCommand command = ingredientCommand("");
+        UnitOfMeasure unitOfMeasure = new UnitOfMeasure();
+        unitOfMeasure.setDescription("Teaspoon");
+
+        when(unitOfMeasureService.findUomById(anyString())).thenReturn(Mono.just(unitOfMeasure));
+        when(recipeReactiveRepository.addIngredient(anyString(), any(Ingredient.class))).thenReturn(Mono.just(true));
+        when(recipeReactiveRepository.findById(anyString())).thenReturn(Mono.just(recipeWithIngredient("2", "salt")));
+
+        ArgumentCaptor<Ingredient> argumentCaptor = ArgumentCaptor.forClass(Ingredient.class);
+
+        //when
+        IngredientCommand savedCommand = ingredientService.saveIngredientCommand(command).block();
+
+        //then
+        verify(recipeReactiveRepository, times(1)).addIngredient(eq("2"), argumentCaptor.capture());
+        verify(recipeReactiveRepository, never()).updateIngredient(anyString(), any(Ingredient.class));
+        assertSame(unitOfMeasure, argumentCaptor.getValue().getUom());
+        assertEquals(argumentCaptor.getValue().getId(), savedCommand.getId());
+    }
+
+    @Test
+    public void testSaveNewIngredientCommandRecipeNotFound() throws Exception {
+        when(unitOfMeasureService.findUomById(anyString())).thenReturn(Mono.just(new UnitOfMeasure()));
+        when(recipeReactiveRepository.addIngredient(anyString(), any(Ingredient.class))).thenReturn(Mono.just(false));
+
+        StepVerifier.create(ingredientService.saveIngredientCommand(ingredientCommand("")))
+                .expectErrorMessage("Recipe Not Found. For ID value: 2")
+                .verify();
+    }
+
+    @Test
+    public void testSaveDeletedIngredientCommandIsNotAddedBack() throws Exception {
+        //the ingredient was deleted, or its recipe was, while the form was open
+        when(unitOfMeasureService.findUomById(anyString())).thenReturn(Mono.just(new UnitOfMeasure()));
+        when(recipeReactiveRepository.updateIngredient(anyString(), any(Ingredient.class))).thenReturn(Mono.just(false));
+
+        StepVerifier.create(ingredientService.saveIngredientCommand(ingredientCommand("3")))
+                .expectError(NotFoundException.class)
+                .verify();
+
+        verify(recipeReactiveRepository, never()).addIngredient(anyString(), any(Ingredient.class));
+        verify(recipeReactiveRepository, never()).findById(anyString());
     }
 
     @Test
     public void testDeleteById() throws Exception {
         //given
-        Recipe recipe = new Recipe();
-        Ingredient ingredient = new Ingredient();
-        ingredient.setId("3");
-        recipe.addIngredient(ingredient);
-        Mono<Recipe> recipeMono = Mono.just(recipe);
-
-        when(recipeReactiveRepository.findById(anyString())).thenReturn(recipeMono);
-        when(recipeReactiveRepository.save(any(Recipe.class))).thenReturn(Mono.just(new Recipe()));
+        ingredientIndex.index("1", List.of("salt"));
+        when(recipeReactiveRepository.removeIngredient(anyString(), anyString())).thenReturn(Mono.just(true));
+        when(recipeReactiveRepository.findById(anyString())).thenReturn(Mono.just(recipeWithIngredient("1", "pepper")));
 
         //when
-        ingredientService.deleteById("1", "3");
+        ingredientService.deleteById("1", "3").block();
 
         //then
-        verify(recipeReactiveRepository, times(1)).findById(anyString());
-        verify(recipeReactiveRepository, times(1)).save(any(Recipe.class));
+        verify(recipeReactiveRepository, times(1)).removeIngredient("1", "3");
+        verify(recipeReactiveRepository, never()).save(any(Recipe.class));
+        assertEquals(List.of(), ingredientIndex.find(List.of("salt"), List.of(), List.of(), 10));
+        assertEquals(List.of("1"), ingredientIndex.find(List.of("pepper"), List.of(), List.of(), 10));
+    }
+
+    @Test
+    public void testDeleteByIdIngredientNotFound() throws Exception {
+        when(recipeReactiveRepository.removeIngredient(anyString(), anyString())).thenReturn(Mono.just(false));
+
+        ingredientService.deleteById("1", "3").block();
+
+        verify(recipeReactiveRepository, never()).findById(anyString());
+    }
+
+    private Recipe recipeWithIngredient(String recipeId, String description) {
+        Recipe recipe = new Recipe();
+        recipe.setId(recipeId);
+        recipe.addIngredient(new Ingredient(description, BigDecimal.ONE, new UnitOfMeasure()));
+        return recipe;
+    }
+
+    private IngredientCommand ingredientCommand(String id) {
+        UnitOfMeasureCommand unitOfMeasure = new UnitOfMeasureCommand();
+        unitOfMeasure.setId("1");
+        IngredientCommand command = new IngredientCommand();
+        command.setRecipeId("2");
+        command.setId(id);
+        command.setDescription("");
+        command.setAmount(BigDecimal.ONE);
+        command.setUom(unitOfMeasure);
+        return command;
     }
-}
\ No newline at end of file
+}
@@ -4,25 +4,39 @@ package guru.springframework.services;
 import guru.springframework.commands.RecipeCommand;
 import guru.springframework.converters.RecipeCommandToRecipe;
 import guru.springframework.converters.RecipeToRecipeCommand;
+import guru.springframework.domain.Ingredient;
 import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.domain.RecipeIngredientMatch;
+import guru.springframework.domain.RecipeSearchResult;
+import guru.springframework.domain.RecipeSummary;
 import guru.springframework.exceptions.NotFoundException;
-import guru.springframework.repositories.RecipeRepository;
+import guru.springframework.repositories.reactive.RecipeImageStore;
 import guru.springframework.repositories.reactive.RecipeReactiveRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -42,11 +56,18 @@ public class RecipeServiceImplTest {
     @Mock
     RecipeCommandToRecipe recipeCommandToRecipe;
 
+    @Mock
+    RecipeImageStore recipeImageStore;
+
+    IngredientIndex ingredientIndex;
+
     @BeforeEach
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
 
-        recipeService = new RecipeServiceImpl(recipeReactiveRepository, recipeCommandToRecipe, recipeToRecipeCommand);
+        ingredientIndex = new IngredientIndex();
+        recipeService = new RecipeServiceImpl(recipeReactiveRepository, recipeCommandToRecipe, recipeToRecipeCommand,
+                recipeImageStore, ingredientIndex);
     }
 
     @Test
@@ -96,19 +117,254 @@ public class RecipeServiceImplTest {
         verify(recipeReactiveRepository, never()).findById(anyString());
     }
 
+    @Test
+    public void listRecipesFirstPage() throws Exception {
+        when(recipeReactiveRepository.findAllByOrderByIdAsc(any(Limit.class))).thenReturn(Flux.just(new RecipeSummary()));
+
+        List<RecipeSummary> recipes = recipeService.listRecipes(null, 20).collectList().block();
+
+        assertEquals(1, recipes.size());
+        verify(recipeReactiveRepository, times(1)).findAllByOrderByIdAsc(Limit.of(20));
+        verify(recipeReactiveRepository, never()).findAll();
+    }
+
+    @Test
+    public void listRecipesAfterCursor() throws Exception {
+        when(recipeReactiveRepository.findByIdGreaterThanOrderByIdAsc(anyString(), any(Limit.class)))
+                .thenReturn(Flux.just(new RecipeSummary()));
+
+        List<RecipeSummary> recipes = recipeService.listRecipes("5", 20).collectList().block();
+
+        assertEquals(1, recipes.size());
+        verify(recipeReactiveRepository, times(1)).findByIdGreaterThanOrderByIdAsc("5", Limit.of(20));
+        verify(recipeReactiveRepository, never()).findAllByOrderByIdAsc(any(Limit.class));
+    }
+
+    @Test
+    public void listRecipesInCategory() throws Exception {
+        when(recipeReactiveRepository.findByCategoryIdsAndIdGreaterThanOrderByIdAsc(anyString(), anyString(), any(Limit.class)))
+                .thenReturn(Flux.just(summary("6"), summary("7"), summary("8")));
+
+        assertEquals(3, recipeService.listRecipesInCategory("c1", "5", 20).count().block());
+        verify(recipeReactiveRepository).findByCategoryIdsAndIdGreaterThanOrderByIdAsc("c1", "5", Limit.of(20));
+        verify(recipeReactiveRepository, never()).findByCategoryIdsOrderByIdAsc(anyString(), any(Limit.class));
+    }
+
+    @Test
+    public void searchRecipes() throws Exception {
+        when(recipeReactiveRepository.search(anyString(), anyLong(), anyInt())).thenReturn(Flux.just(new RecipeSearchResult()));
+
+        List<RecipeSearchResult> results = recipeService.searchRecipes(" tacos ", 20, 10).collectList().block();
+
+        assertEquals(1, results.size());
+        verify(recipeReactiveRepository, times(1)).search("tacos", 20, 10);
+    }
+
+    @Test
+    public void searchRecipesBlankText() throws Exception {
+        assertEquals(0, recipeService.searchRecipes("  ", 0, 10).count().block());
+        verify(recipeReactiveRepository, never()).search(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void findByIngredients() throws Exception {
+        ingredientIndex.index("guacamole", List.of("avocados", "lime juice", "red onion"));
+        ingredientIndex.index("tacos", List.of("chicken", "lime", "tomatoes"));
+        ingredientIndex.index("salsa", List.of("tomatoes", "red onion"));
+
+        when(recipeReactiveRepository.findByIdIn(anyCollection())).thenAnswer(invocation -> Flux.fromIterable(
+                invocation.<List<String>>getArgument(0)).map(this::summary).sort(Comparator.comparing(RecipeSummary::getId)));
+
+        List<RecipeIngredientMatch> all = recipeService
+                .findByIngredients(List.of("lime", "onion"), List.of(), List.of("chicken"), 0, 10).collectList().block();
+        assertEquals(List.of("guacamole"), all.stream().map(match -> match.getRecipe().getId()).toList());
+        assertEquals(List.of(), all.get(0).getMissing());
+
+        //the fewest missing first, whatever order the summaries come back in
+        List<RecipeIngredientMatch> missingOne = recipeService
+                .findByIngredients(List.of("lime", "onion"), List.of(), List.of(), 1, 10).collectList().block();
+        assertEquals(List.of("guacamole", "tacos", "salsa"), missingOne.stream().map(match -> match.getRecipe().getId()).toList());
+        assertEquals(List.of("onion"), missingOne.get(1).getMissing());
+    }
+
+    @Test
+    public void findByIngredientsWithoutMatchesOrIngredients() throws Exception {
+        assertEquals(0, recipeService.findByIngredients(List.of("saffron"), List.of(), List.of(), 0, 10).count().block());
+        assertEquals(0, recipeService.findByIngredients(List.of(), List.of(), List.of(), 2, 10).count().block());
+
+        verify(recipeReactiveRepository, never()).findByIdIn(anyCollection());
+    }
+
+    @Test
+    public void saveNewRecipeCommand() throws Exception {
+        RecipeCommand command = new RecipeCommand();
+        command.setId("");
+        Recipe recipe = recipe("", null, "new");
+        Recipe saved = recipe("3", 0L, "new");
+        saved.addIngredient(new Ingredient("salt", BigDecimal.ONE, null));
+
+        when(recipeCommandToRecipe.convert(any())).thenReturn(recipe);
+        when(recipeReactiveRepository.save(any(Recipe.class))).thenReturn(Mono.just(saved));
+        when(recipeToRecipeCommand.convert(any())).thenReturn(new RecipeCommand());
+
+        assertNotNull(recipeService.saveRecipeCommand(command).block());
+
+        assertNull(recipe.getId());
+        verify(recipeReactiveRepository, times(1)).save(recipe);
+        assertEquals(List.of("3"), ingredientIndex.find(List.of("salt"), List.of(), List.of(), 10));
+        verify(recipeReactiveRepository, never()).updateFields(anyString(), any(), anyMap());
+    }
+
+    @Test
+    public void saveRecipeCommandSetsOnlyChangedFields() throws Exception {
+        Recipe current = recipe("1", 2L, "old description");
+        current.setImage(new RecipeImage());
+        Recipe edited = recipe("1", 2L, "new description");
+
+        when(recipeCommandToRecipe.convert(any())).thenReturn(edited);
+        when(recipeReactiveRepository.findById(anyString())).thenReturn(Mono.just(current));
+        when(recipeReactiveRepository.updateFields(anyString(), any(), anyMap())).thenReturn(Mono.just(true));
+        when(recipeToRecipeCommand.convert(any())).thenReturn(new RecipeCommand());
+
+        recipeService.saveRecipeCommand(command("1", 2L)).block();
+
+        verify(recipeReactiveRepository, times(1))
+                .updateFields("1", 2L, Map.of("description", "new description"));
+        verify(recipeReactiveRepository, never()).save(any(Recipe.class));
+    }
+
+    @Test
+    public void saveRecipeCommandWithoutChangesWritesNothing() throws Exception {
+        when(recipeCommandToRecipe.convert(any())).thenReturn(recipe("1", 2L, "same"));
+        when(recipeReactiveRepository.findById(anyString())).thenReturn(Mono.just(recipe("1", 2L, "same")));
+        when(recipeToRecipeCommand.convert(any())).thenReturn(new RecipeCommand());
+
+        recipeService.saveRecipeCommand(command("1", 2L)).block();
+
+        verify(recipeReactiveRepository, never()).updateFields(anyString(), any(), anyMap());
+    }
+
+    @Test
+    public void saveRecipeCommandFromStaleVersionConflicts() throws Exception {
+        when(recipeCommandToRecipe.convert(any())).thenReturn(recipe("1", 1L, "mine"));
+        when(recipeReactiveRepository.findById(anyString())).thenReturn(Mono.just(recipe("1", 2L, "theirs")));
+
+        StepVerifier.create(recipeService.saveRecipeCommand(command("1", 1L)))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+
+        verify(recipeReactiveRepository, never()).updateFields(anyString(), any(), anyMap());
+    }
+
+    @Test
+    public void saveRecipeCommandLosingTheRaceConflicts() throws Exception {
+        when(recipeCommandToRecipe.convert(any())).thenReturn(recipe("1", 2L, "mine"));
+        when(recipeReactiveRepository.findById(anyString())).thenReturn(Mono.just(recipe("1", 2L, "theirs")));
+        //another form saved from version 2 lands between the read and the conditional update
+        when(recipeReactiveRepository.updateFields(anyString(), any(), anyMap())).thenReturn(Mono.just(false));
+
+        StepVerifier.create(recipeService.saveRecipeCommand(command("1", 2L)))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+
+        verify(recipeReactiveRepository, times(1)).updateFields(eq("1"), eq(2L), anyMap());
+    }
+
+    @Test
+    public void saveRecipeCommandWithoutVersionRetriesLostRace() throws Exception {
+        when(recipeCommandToRecipe.convert(any())).thenReturn(recipe("1", null, "mine"));
+        //a concurrent write lands between the first read and the conditional update
+        when(recipeReactiveRepository.findById(anyString()))
+                .thenReturn(Mono.just(recipe("1", 2L, "theirs")), Mono.just(recipe("1", 3L, "theirs")));
+        when(recipeReactiveRepository.updateFields(anyString(), any(), anyMap()))
+                .thenReturn(Mono.just(false), Mono.just(true));
+        when(recipeToRecipeCommand.convert(any())).thenReturn(new RecipeCommand());
+
+        StepVerifier.create(recipeService.saveRecipeCommand(command("1", null)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(recipeReactiveRepository, times(1)).updateFields(eq("1"), eq(2L), anyMap());
+        verify(recipeReactiveRepository, times(1)).updateFields(eq("1"), eq(3L), anyMap());
+    }
+
+    @Test
+    public void saveRecipeCommandWithoutVersionGivesUpAfterRepeatedRaces() throws Exception {
+        when(recipeCommandToRecipe.convert(any())).thenReturn(recipe("1", null, "mine"));
+        when(recipeReactiveRepository.findById(anyString())).thenAnswer(invocation -> Mono.just(recipe("1", 3L, "theirs")));
+        when(recipeReactiveRepository.updateFields(anyString(), any(), anyMap())).thenReturn(Mono.just(false));
+
+        StepVerifier.create(recipeService.saveRecipeCommand(command("1", null)))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+
+        verify(recipeReactiveRepository, times(4)).updateFields(eq("1"), eq(3L), anyMap());
+    }
+
     @Test
     public void testDeleteById() throws Exception {
 
         //given
         String idToDelete = "2";
+        when(recipeReactiveRepository.removeRecipe(anyString())).thenReturn(Mono.just(true));
+        when(recipeImageStore.deleteByRecipeId(anyString())).thenReturn(Mono.empty());
 
         //when
-        when(recipeReactiveRepository.deleteById(anyString())).thenReturn(Mono.empty());
-        recipeService.deleteById(idToDelete);
-
-        //no 'when', since method has void return type
+        Mono<Void> delete = recipeService.deleteById(idToDelete);
 
         //then
-        verify(recipeReactiveRepository, times(1)).deleteById(anyString());
+        verify(recipeImageStore, never()).deleteByRecipeId(anyString());
+        ingredientIndex.index(idToDelete, List.of("salt"));
+        StepVerifier.create(delete).verifyComplete();
+        assertEquals(0, ingredientIndex.size());
+        verify(recipeReactiveRepository, times(1)).removeRecipe(idToDelete);
+        verify(recipeImageStore, timeout(1000)).deleteByRecipeId(idToDelete);
+    }
+
+    @Test
+    public void testDeleteByIdOfMissingRecipe() throws Exception {
+        when(recipeReactiveRepository.removeRecipe(anyString())).thenReturn(Mono.just(false));
+        ingredientIndex.index("2", List.of("salt"));
+
+        StepVerifier.create(recipeService.deleteById("2")).verifyComplete();
+
+        //nothing was deleted, so there is nothing to clean up
+        assertEquals(1, ingredientIndex.size());
+        verify(recipeImageStore, never()).deleteByRecipeId(anyString());
+    }
+
+    @Test
+    public void testDeleteByIdDoesNotWaitForImageCleanup() throws Exception {
+        //parallel() threads reject block(), so a blocking delete chain fails here
+        when(recipeReactiveRepository.removeRecipe(anyString()))
+                .thenAnswer(invocation -> Mono.just(true).publishOn(Schedulers.parallel()));
+        when(recipeImageStore.deleteByRecipeId(anyString())).thenReturn(Mono.never());
+
+        StepVerifier.create(recipeService.deleteById("2").subscribeOn(Schedulers.parallel()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        verify(recipeImageStore, timeout(1000)).deleteByRecipeId("2");
+    }
+
+    private RecipeSummary summary(String id) {
+        RecipeSummary summary = new RecipeSummary();
+        summary.setId(id);
+        return summary;
+    }
+
+    private Recipe recipe(String id, Long version, String description) {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        recipe.setVersion(version);
+        recipe.setDescription(description);
+        return recipe;
+    }
+
+    private RecipeCommand command(String id, Long version) {
+        RecipeCommand command = new RecipeCommand();
+        command.setId(id);
+        command.setVersion(version);
+        return command;
     }
-}
\ No newline at end of file
+}
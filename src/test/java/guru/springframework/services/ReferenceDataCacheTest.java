@@ -0,0 +1,151 @@
+package guru.springframework.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReferenceDataCacheTest {
+
+    static final Duration TTL = Duration.ofMinutes(10);
+
+    List<String> entries = List.of("cup", "pinch", "teaspoon");
+    AtomicInteger loads = new AtomicInteger();
+    AtomicInteger singleLoads = new AtomicInteger();
+    MutableClock clock = new MutableClock();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        loads.set(0);
+        singleLoads.set(0);
+    }
+
+    @Test
+    public void loadsOnceForRepeatedReads() throws Exception {
+        ReferenceDataCache<String> cache = cache(10);
+
+        assertEquals(entries, cache.findAll().collectList().block());
+        assertEquals(entries, cache.findAll().collectList().block());
+        assertEquals("pinch", cache.findById("pinch").block());
+
+        assertEquals(1, loads.get());
+        assertEquals(3, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    public void concurrentReadersShareOneLoad() throws Exception {
+        ReferenceDataCache<String> cache = new ReferenceDataCache<>("test",
+                () -> Flux.fromIterable(entries).delaySubscription(Duration.ofMillis(50)).doOnSubscribe(s -> loads.incrementAndGet()),
+                id -> Mono.empty(), id -> id, 10, TTL, clock);
+
+        long found = Flux.range(0, 64)
+                .flatMap(i -> cache.findById("cup").subscribeOn(Schedulers.parallel()))
+                .count().block();
+
+        assertEquals(64, found);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void unknownIdInCompleteSnapshotIsNotLoaded() throws Exception {
+        ReferenceDataCache<String> cache = cache(10);
+
+        assertNull(cache.findById("gallon").block());
+
+        assertEquals(0, singleLoads.get());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void reloadsAfterTtl() throws Exception {
+        ReferenceDataCache<String> cache = cache(10);
+
+        cache.findAll().blockLast();
+        clock.advance(TTL.minusSeconds(1));
+        cache.findAll().blockLast();
+        assertEquals(1, loads.get());
+
+        clock.advance(Duration.ofSeconds(1));
+        cache.findAll().blockLast();
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void reloadsAfterInvalidate() throws Exception {
+        ReferenceDataCache<String> cache = cache(10);
+
+        cache.findAll().blockLast();
+        cache.invalidate();
+        cache.findAll().blockLast();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void refreshLoadsEagerly() throws Exception {
+        ReferenceDataCache<String> cache = cache(10);
+
+        cache.refresh().block();
+        assertEquals(1, loads.get());
+
+        cache.findById("cup").block();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void collectionLargerThanCacheFallsBackToLoaders() throws Exception {
+        ReferenceDataCache<String> cache = cache(2);
+
+        assertEquals(entries, cache.findAll().collectList().block());
+        assertEquals("cup", cache.findById("cup").block());
+        assertEquals("teaspoon", cache.findById("teaspoon").block());
+
+        assertEquals(1, singleLoads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1.0 / 3, cache.getHitRate(), 0.0001);
+    }
+
+    private ReferenceDataCache<String> cache(int maxSize) {
+        return new ReferenceDataCache<>("test",
+                () -> Flux.fromIterable(entries).doOnSubscribe(s -> loads.incrementAndGet()),
+                id -> Mono.justOrEmpty(entries.contains(id) ? id : null).doOnSubscribe(s -> singleLoads.incrementAndGet()),
+                id -> id, maxSize, TTL, clock);
+    }
+
+    static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2017-06-28T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
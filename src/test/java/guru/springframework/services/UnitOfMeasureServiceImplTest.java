@@ -2,8 +2,8 @@ package guru.springframework.services;
 
 import guru.springframework.commands.UnitOfMeasureCommand;
 import guru.springframework.converters.UnitOfMeasureToUnitOfMeasureCommand;
+import guru.springframework.converters.UnitOfMeasureToUnitOfMeasureCommandImpl;
 import guru.springframework.domain.UnitOfMeasure;
-import guru.springframework.repositories.UnitOfMeasureRepository;
 import guru.springframework.repositories.reactive.UnitOfMeasureReactiveRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,16 +11,15 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import reactor.core.publisher.Flux;
 
-import java.util.HashSet;
+import java.time.Duration;
 import java.util.List;
-import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 public class UnitOfMeasureServiceImplTest {
 
-    UnitOfMeasureToUnitOfMeasureCommand unitOfMeasureToUnitOfMeasureCommand = new UnitOfMeasureToUnitOfMeasureCommand();
+    UnitOfMeasureToUnitOfMeasureCommand unitOfMeasureToUnitOfMeasureCommand = new UnitOfMeasureToUnitOfMeasureCommandImpl();
     UnitOfMeasureService service;
 
     @Mock
@@ -30,7 +29,9 @@ public class UnitOfMeasureServiceImplTest {
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
 
-        service = new UnitOfMeasureServiceImpl(unitOfMeasureReactiveRepository, unitOfMeasureToUnitOfMeasureCommand);
+        ReferenceDataCache<UnitOfMeasure> cache = new ReferenceDataCache<>("unitOfMeasure", unitOfMeasureReactiveRepository::findAll,
+                unitOfMeasureReactiveRepository::findById, UnitOfMeasure::getId, 100, Duration.ofMinutes(10));
+        service = new UnitOfMeasureServiceImpl(cache, unitOfMeasureToUnitOfMeasureCommand);
     }
 
     @Test
@@ -52,4 +53,21 @@ public class UnitOfMeasureServiceImplTest {
         verify(unitOfMeasureReactiveRepository, times(1)).findAll();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void findUomByIdIsServedFromCache() throws Exception {
+        //given
+        UnitOfMeasure uom = new UnitOfMeasure();
+        uom.setId("1");
+
+        when(unitOfMeasureReactiveRepository.findAll()).thenReturn(Flux.just(uom));
+
+        //when
+        service.listAllUoms().blockLast();
+        UnitOfMeasure found = service.findUomById("1").block();
+
+        //then
+        assertEquals(uom, found);
+        verify(unitOfMeasureReactiveRepository, times(1)).findAll();
+        verify(unitOfMeasureReactiveRepository, never()).findById(anyString());
+    }
+}